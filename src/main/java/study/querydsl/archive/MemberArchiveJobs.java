@@ -0,0 +1,91 @@
+package study.querydsl.archive;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberArchiveJobDto;
+import study.querydsl.dto.MemberArchiveResultDto;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 보관(MemberArchiver)을 HTTP 요청 밖에서 돌린다. 요청은 작업을 넣고 id만 받아 간다.
+ * - 요청 스레드가 몇 분씩 붙잡히지 않고, 리미터 자리를 쥔 채 리미터 대기열(member.limiter.queued)을 보며 쉬는 일도 없다.
+ * - 작업은 스레드 하나에서 하나씩 (동시에 두 보관이 같은 행을 잠그지 않게). 상태는 최근 MAX_JOBS개만 남긴다.
+ * - 종료 시 인터럽트하면 MemberArchiver가 다음 청크 전에 멈춘다 (커밋한 청크는 그대로).
+ */
+@Slf4j
+@Component
+public class MemberArchiveJobs {
+    static final int MAX_JOBS = 100;
+
+    private final MemberArchiver archiver;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<Long, MemberArchiveJobDto> jobs = new LinkedHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemberArchiveJobs(MemberArchiver archiver) {
+        this.archiver = archiver;
+    }
+
+    // 조건을 먼저 확인하고(IllegalArgumentException) 작업을 넣는다
+    public MemberArchiveJobDto start(MemberSearchCondition condition) {
+        MemberArchiver.validate(condition);
+        long id = ids.incrementAndGet();
+        MemberArchiveJobDto job = new MemberArchiveJobDto(id, "queued", null);
+        synchronized (jobs) {
+            jobs.put(id, job);
+            while (jobs.size() > MAX_JOBS) {
+                jobs.remove(jobs.keySet().iterator().next());
+            }
+            executor.execute(() -> run(job, condition));
+            return copy(job);
+        }
+    }
+
+    // 없거나 오래돼서 지워졌으면 null
+    public MemberArchiveJobDto get(long id) {
+        synchronized (jobs) {
+            MemberArchiveJobDto job = jobs.get(id);
+            return job != null ? copy(job) : null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(MemberArchiveJobDto job, MemberSearchCondition condition) {
+        update(job, "running", null);
+        MemberArchiveResultDto result;
+        try {
+            result = archiver.archive(condition);
+        } catch (RuntimeException e) {
+            log.warn("member archive job {} failed", job.getId(), e);
+            result = new MemberArchiveResultDto();
+            result.setError(e.getMessage());
+        }
+        update(job, "done", result);
+    }
+
+    private void update(MemberArchiveJobDto job, String status, MemberArchiveResultDto result) {
+        synchronized (jobs) {
+            job.setStatus(status);
+            job.setResult(result);
+        }
+    }
+
+    private static MemberArchiveJobDto copy(MemberArchiveJobDto job) {
+        return new MemberArchiveJobDto(job.getId(), job.getStatus(), job.getResult());
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.archive;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.MemberSearchQueries;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.entity.QMemberArchive.memberArchive;
+
+/**
+ * member + member_archive 검색 (MemberSearchCondition.includeArchived).
+ * MemberRepositoryImpl/MemberJpaRepository가 플래그를 보고 이쪽으로 넘긴다.
+ * - 결과는 member id 순. 두 테이블에서 id 순으로 offset + size건씩 받아 합치고 offset만큼 건너뛴다.
+ * - 전체 개수는 두 테이블 개수의 합 (같은 id가 양쪽에 있을 수 없음 - 옮기는 트랜잭션에서 지우고 넣는다).
+ * 보관 테이블은 인덱스가 username/team_id뿐이라 나이 조건만으로는 전체를 훑는다. 자주 쓰는 검색이 아니라는 전제.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberArchiveSearch implements MemberRepositoryCustom {
+    private final MemberSearchQueries searchQueries;
+
+    public MemberArchiveSearch(MemberSearchQueries searchQueries) {
+        this.searchQueries = searchQueries;
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return merge(hot(condition).fetch(), archived(condition).fetch(), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return page(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return page(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex2(MemberSearchCondition condition, Pageable pageable) {
+        return page(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable) {
+        return page(condition, pageable);
+    }
+
+    public long count(MemberSearchCondition condition) {
+        return searchQueries.count(condition).fetchOne() + searchQueries.countArchived(condition).fetchOne();
+    }
+
+    // 첫 페이지가 덜 찼거나 마지막 페이지면 개수 조회 생략
+    private Page<MemberTeamDto> page(MemberSearchCondition condition, Pageable pageable) {
+        long limit = pageable.getOffset() + pageable.getPageSize();
+        List<MemberTeamDto> content = merge(
+                hot(condition).limit(limit).fetch(),
+                archived(condition).limit(limit).fetch(),
+                pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(condition));
+    }
+
+    private JPAQuery<MemberTeamDto> hot(MemberSearchCondition condition) {
+        return searchQueries.select(searchQueries.memberTeamDto(), condition).orderBy(searchQueries.memberIdAsc());
+    }
+
+    private JPAQuery<MemberTeamDto> archived(MemberSearchCondition condition) {
+        return searchQueries.selectArchived(searchQueries.archivedMemberTeamDto(), condition)
+                .orderBy(memberArchive.memberId.asc());
+    }
+
+    // member id 순으로 정렬된 두 목록을 합쳐서 [offset, offset + limit) 구간만
+    static List<MemberTeamDto> merge(List<MemberTeamDto> hot, List<MemberTeamDto> archived, long offset, int limit) {
+        List<MemberTeamDto> merged = new ArrayList<>(Math.min(limit, hot.size() + archived.size()));
+        int h = 0;
+        int a = 0;
+        long skipped = 0;
+        while ((h < hot.size() || a < archived.size()) && merged.size() < limit) {
+            MemberTeamDto next = a == archived.size()
+                    || h < hot.size() && hot.get(h).getMemberId() < archived.get(a).getMemberId()
+                    ? hot.get(h++) : archived.get(a++);
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                merged.add(next);
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,196 @@
+package study.querydsl.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import study.querydsl.change.ChangeVersions;
+import study.querydsl.dto.MemberArchiveResultDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberSearchQueries;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 조건에 맞는 회원을 member에서 member_archive로 옮긴다 (QuerydslBasicTest.bulkDelete처럼 지우지 않고 보관).
+ * - member id 순으로 chunk-size건씩, 청크마다 따로 커밋 (REQUIRES_NEW + 타임아웃). 한 번에 잠그는 행 수가 청크 크기로 묶인다.
+ *   청크는 직전 청크의 마지막 id 다음부터라 PK 범위 스캔이고, 중간에 실패해도 앞 청크는 그대로 남는다.
+ * - 청크 안에서: 후보 id 조회 -> 행 잠금(for update) -> 조건 다시 확인 -> archive에 복사,
+ *   읽기 모델(member_team)과 member에서 삭제. SQL로 직접 하므로 엔티티 이벤트는 없지만 tombstone은 member 삭제 트리거
+ *   (MemberTombstoneTrigger)가 남긴다 (변경 피드에는 삭제로 보임). DataVersion은 member delete를 DataVersionStatementInspector가 잡아서 올린다.
+ * - 라이브 트래픽 우선: 커넥션 풀이나 동시성 리미터에 대기 중인 요청이 있으면 pause-ms씩 쉬고(최대 max-pause-ms),
+ *   청크 사이에는 duty-cycle에 맞춰 쉰다 (0.5면 청크에 걸린 시간만큼).
+ * - HTTP에서는 MemberArchiveJobs가 요청 밖 스레드에서 부른다 (요청이 리미터 자리를 쥔 채 기다리지 않게).
+ */
+@Slf4j
+@Service
+public class MemberArchiver {
+    private static final String COPY_TO_ARCHIVE = "insert into member_archive"
+            + " (member_id, username, username_normalized, age, team_id, archived_version)"
+            + " select member_id, username, username_normalized, age, team_id, cast(:version as bigint)"
+            + " from member where member_id in (:ids)";
+    // 대기 중인 요청 수 (HikariCP 메트릭, AdmissionControlInterceptor)
+    private static final List<String> WAITING_GAUGES = List.of("hikaricp.connections.pending", "member.limiter.queued");
+
+    private final EntityManager em;
+    private final MemberSearchQueries searchQueries;
+    private final TransactionTemplate chunkTransaction;
+    private final MeterRegistry meterRegistry;
+    private final Counter archivedMembers;
+    private final int chunkSize;
+    private final double dutyCycle;
+    private final long pauseMillis;
+    private final long maxPauseMillis;
+
+    public MemberArchiver(EntityManager em,
+                          MemberSearchQueries searchQueries,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${querydsl.archive.chunk-size:500}") int chunkSize,
+                          @Value("${querydsl.archive.duty-cycle:0.5}") double dutyCycle,
+                          @Value("${querydsl.archive.pause-ms:50}") long pauseMillis,
+                          @Value("${querydsl.archive.max-pause-ms:5000}") long maxPauseMillis,
+                          @Value("${querydsl.archive.tx-timeout-seconds:10}") int txTimeoutSeconds) {
+        this.em = em;
+        this.searchQueries = searchQueries;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkTransaction.setTimeout(txTimeoutSeconds);
+        this.meterRegistry = meterRegistry;
+        this.archivedMembers = Counter.builder("member.archive.members").register(meterRegistry);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.dutyCycle = Math.min(1.0, Math.max(0.01, dutyCycle));
+        this.pauseMillis = Math.max(1, pauseMillis);
+        this.maxPauseMillis = Math.max(0, maxPauseMillis);
+    }
+
+    // 조건 없이 부르면 전체가 옮겨지므로 하나 이상 필요
+    public static void validate(MemberSearchCondition condition) {
+        if (!StringUtils.hasText(condition.getUsername()) && !StringUtils.hasText(condition.getTeamName())
+                && condition.getAgeGoe() == null && condition.getAgeLoe() == null) {
+            throw new IllegalArgumentException("archive condition is required");
+        }
+    }
+
+    public MemberArchiveResultDto archive(MemberSearchCondition condition) {
+        validate(condition);
+        long start = System.nanoTime();
+        MemberArchiveResultDto result = new MemberArchiveResultDto();
+        long after = Long.MIN_VALUE;
+        while (true) {
+            result.setThrottledMillis(result.getThrottledMillis() + waitForQuietTraffic());
+            if (Thread.currentThread().isInterrupted()) {
+                result.setError("interrupted");
+                break;
+            }
+            long chunkStart = System.nanoTime();
+            long from = after;
+            Chunk chunk;
+            try {
+                chunk = chunkTransaction.execute(status -> archiveChunk(condition, from));
+            } catch (RuntimeException e) {
+                log.warn("member archive stopped after id {}", result.getLastMemberId(), e);
+                result.setError(e.getMessage());
+                break;
+            }
+            if (chunk.candidates() == 0) {
+                break;
+            }
+            result.setChunks(result.getChunks() + 1);
+            result.setArchived(result.getArchived() + chunk.archived());
+            result.setLastMemberId(chunk.lastMemberId());
+            archivedMembers.increment(chunk.archived());
+            after = chunk.lastMemberId();
+            if (chunk.candidates() < chunkSize) {
+                break; // 마지막 청크
+            }
+            result.setThrottledMillis(result.getThrottledMillis() + rest(System.nanoTime() - chunkStart));
+        }
+        result.setMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private Chunk archiveChunk(MemberSearchCondition condition, long after) {
+        List<Long> candidates = searchQueries.select(member.id, condition)
+                .where(member.id.gt(after))
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .fetch();
+        if (candidates.isEmpty()) {
+            return new Chunk(0, 0, after);
+        }
+        // 잠그기 전에 다른 트랜잭션이 바꿨을 수 있으므로 잠근 뒤 조건을 다시 본다
+        em.createNativeQuery("select member_id from member where member_id in (:ids) for update")
+                .setParameter("ids", candidates)
+                .getResultList();
+        List<Long> ids = searchQueries.select(member.id, condition)
+                .where(member.id.in(candidates))
+                .fetch();
+        if (!ids.isEmpty()) {
+            long version = ChangeVersions.next();
+            nativeUpdate(COPY_TO_ARCHIVE, ids).setParameter("version", version).executeUpdate();
+            nativeUpdate("delete from member_team where member_id in (:ids)", ids).executeUpdate();
+            nativeUpdate("delete from member where member_id in (:ids)", ids).executeUpdate();
+        }
+        return new Chunk(candidates.size(), ids.size(), candidates.get(candidates.size() - 1));
+    }
+
+    private Query nativeUpdate(String sql, List<Long> ids) {
+        return em.createNativeQuery(sql).setParameter("ids", ids);
+    }
+
+    // 대기 중인 요청이 없어질 때까지 pause-ms씩. max-pause-ms를 넘기면 그냥 진행 (보관이 영영 멈추지 않도록)
+    private long waitForQuietTraffic() {
+        long waited = 0;
+        while (waited < maxPauseMillis && liveTrafficWaiting()) {
+            if (!sleep(pauseMillis)) {
+                break;
+            }
+            waited += pauseMillis;
+        }
+        return waited;
+    }
+
+    private boolean liveTrafficWaiting() {
+        for (String name : WAITING_GAUGES) {
+            for (Gauge gauge : meterRegistry.find(name).gauges()) {
+                if (gauge.value() > 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // 청크에 걸린 시간 x (1 - d) / d 만큼 쉰다
+    private long rest(long chunkNanos) {
+        long millis = Math.round(chunkNanos / 1_000_000.0 * (1 - dutyCycle) / dutyCycle);
+        if (millis > 0) {
+            sleep(millis);
+        }
+        return millis;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record Chunk(int candidates, int archived, long lastMemberId) {
+    }
+}
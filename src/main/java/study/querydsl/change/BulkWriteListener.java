@@ -0,0 +1,12 @@
+package study.querydsl.change;
+
+import study.querydsl.change.ChangeEvent.EntityKind;
+
+/**
+ * 엔티티 이벤트가 없는 member/team 쓰기(JPQL 벌크, 네이티브 쿼리, ChangeEventCapture.bulk를 부르는 JDBC 쓰기)를 받는다.
+ * ChangeEventCapture가 SQL이 실행되기 직전에 쓰기 스레드에서 부르므로 여기서 바로 SQL을 실행하면 안 된다
+ * (트랜잭션 동기화로 미뤄서 처리).
+ */
+public interface BulkWriteListener {
+    void onBulkWrite(EntityKind entity, String statement);
+}
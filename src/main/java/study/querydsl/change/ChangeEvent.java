@@ -0,0 +1,42 @@
+package study.querydsl.change;
+
+import lombok.Getter;
+
+/**
+ * Member/Team 변경 한 건 (ChangeEventBus).
+ * 링 버퍼 슬롯으로 미리 만들어 두고 계속 덮어쓰므로 consumer는 onEvents 안에서만 읽고 객체를 보관하지 않는다 (필요하면 값을 복사).
+ */
+@Getter
+public final class ChangeEvent {
+    public static final long NO_ID = -1;
+
+    public enum EntityKind {MEMBER, TEAM}
+
+    // BULK: JPQL 벌크/네이티브 쓰기. 어느 행이 바뀌었는지 모르므로 그 엔티티 전체가 바뀐 것으로 봐야 한다.
+    public enum Operation {INSERT, UPDATE, DELETE, BULK}
+
+    // 발행 순번. 버스 전체에서 1씩 증가 (버려진 이벤트도 순번을 쓰지 않으므로 빈틈은 없다)
+    private long sequence;
+    private EntityKind entity;
+    private Operation operation;
+    // BULK면 NO_ID
+    private long entityId;
+    // BULK일 때 실행한 SQL, 아니면 null
+    private String statement;
+
+    ChangeEvent() {
+    }
+
+    void set(long sequence, EntityKind entity, Operation operation, long entityId, String statement) {
+        this.sequence = sequence;
+        this.entity = entity;
+        this.operation = operation;
+        this.entityId = entityId;
+        this.statement = statement;
+    }
+
+    @Override
+    public String toString() {
+        return sequence + ":" + operation + " " + entity + (entityId != NO_ID ? "#" + entityId : "");
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.change;
+
+import java.util.Objects;
+
+/**
+ * consumer에 넘기는 이벤트 묶음. 링 버퍼 위의 뷰라서 onEvents가 끝나면 내용이 바뀐다.
+ * 디스패처가 하나를 계속 재사용한다.
+ */
+public final class ChangeEventBatch {
+    private ChangeEventRing ring;
+    private int size;
+    private long lost;
+
+    void reset(ChangeEventRing ring, int size, long lost) {
+        this.ring = ring;
+        this.size = size;
+        this.lost = lost;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ChangeEvent get(int i) {
+        Objects.checkIndex(i, size);
+        return ring.peek(i);
+    }
+
+    // 이 묶음 앞에서 링이 가득 차 버려진 이벤트 수. 0보다 크면 consumer는 전체를 다시 맞춰야 한다 (캐시 비우기 등).
+    public long lost() {
+        return lost;
+    }
+}
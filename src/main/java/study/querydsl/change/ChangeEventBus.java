@@ -0,0 +1,210 @@
+package study.querydsl.change;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import study.querydsl.change.ChangeEvent.EntityKind;
+import study.querydsl.change.ChangeEvent.Operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Member/Team 변경 이벤트 버스. ChangeEventCapture가 커밋 후에 publish하고, 디스패처 스레드 하나가
+ * batch-size개씩 묶어서 등록된 consumer들에게 순서대로 넘긴다.
+ * - 링 버퍼(capacity)의 슬롯을 재사용하므로 발행/전달 경로에서 이벤트마다 객체를 만들지 않는다.
+ * - 링이 가득 차면 커밋 스레드가 max-publish-wait-ms까지 기다리고(producer.waits), 그래도 자리가 없으면 버린다(dropped).
+ *   ChangeEventCapture는 한 번 버려지면 그 트랜잭션의 나머지는 기다리지 않고 drop으로 버린다 (트랜잭션당 최대 한 번 대기).
+ *   버린 개수는 다음 묶음의 lost()로 consumer에게 알려서 전체를 다시 맞추게 한다.
+ * - 이벤트가 없으면 디스패처는 잠깐(최대 64us) 점점 길게 쉬다가, 그 뒤로는 생산자가 깨울 때까지 잠든다.
+ * 메트릭: change.events.published/dropped/producer.waits, change.events.backlog(게이지), change.events.batch.size,
+ * change.events.consumer.failures(consumer별)
+ */
+@Slf4j
+@Component
+public class ChangeEventBus implements SmartLifecycle {
+    // 잠들기 전 짧게 쉬는 횟수 (1us, 2us ... 64us)
+    private static final int IDLE_SPINS = 7;
+
+    private final ChangeEventRing ring;
+    private final ChangeEventBatch batch = new ChangeEventBatch();
+    private final int batchSize;
+    private final long maxPublishWaitNanos;
+    private final AtomicLong lost = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter producerWaits;
+    private final DistributionSummary batchSizes;
+    private volatile ChangeEventConsumer[] consumers;
+    // 디스패처가 잠들었거나 잠들려는 중. 생산자는 발행 뒤에 이 값을 보고 깨운다.
+    // (둘 다 volatile 쓰기 뒤 읽기라 "잠들기 직전 링 확인"과 "발행 뒤 확인" 중 하나는 반드시 상대를 본다)
+    private final AtomicBoolean sleeping = new AtomicBoolean();
+    private volatile boolean running;
+    private volatile Thread dispatcher;
+
+    public ChangeEventBus(MeterRegistry meterRegistry,
+                          List<ChangeEventConsumer> consumers,
+                          @Value("${querydsl.change-events.capacity:8192}") int capacity,
+                          @Value("${querydsl.change-events.batch-size:256}") int batchSize,
+                          @Value("${querydsl.change-events.max-publish-wait-ms:10}") long maxPublishWaitMillis) {
+        this.ring = new ChangeEventRing(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPublishWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxPublishWaitMillis));
+        this.consumers = consumers.toArray(new ChangeEventConsumer[0]);
+        this.meterRegistry = meterRegistry;
+        this.published = Counter.builder("change.events.published").register(meterRegistry);
+        this.dropped = Counter.builder("change.events.dropped").register(meterRegistry);
+        this.producerWaits = Counter.builder("change.events.producer.waits")
+                .description("publish가 링이 가득 차서 기다린 횟수")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("change.events.batch.size").register(meterRegistry);
+        Gauge.builder("change.events.backlog", ring, ChangeEventRing::backlog)
+                .description("발행됐지만 아직 consumer에게 넘기지 않은 이벤트 수")
+                .register(meterRegistry);
+    }
+
+    public synchronized void register(ChangeEventConsumer consumer) {
+        ChangeEventConsumer[] next = Arrays.copyOf(consumers, consumers.length + 1);
+        next[consumers.length] = consumer;
+        consumers = next;
+    }
+
+    public synchronized void unregister(ChangeEventConsumer consumer) {
+        List<ChangeEventConsumer> next = new ArrayList<>(Arrays.asList(consumers));
+        next.remove(consumer);
+        consumers = next.toArray(new ChangeEventConsumer[0]);
+    }
+
+    public int capacity() {
+        return ring.capacity();
+    }
+
+    /**
+     * 이벤트 하나를 링에 넣는다. 자리가 없으면 잠깐 기다리고, 그래도 없으면 버리고 false.
+     * 커밋 후(afterCommit)에 부르므로 여기서 실패해도 데이터 쓰기에는 영향이 없다.
+     */
+    public boolean publish(EntityKind entity, Operation operation, long entityId, String statement) {
+        long sequence = ring.tryClaim();
+        if (sequence < 0) {
+            producerWaits.increment();
+            long deadline = System.nanoTime() + maxPublishWaitNanos;
+            while ((sequence = ring.tryClaim()) < 0) {
+                if (System.nanoTime() - deadline >= 0) {
+                    drop(1);
+                    return false;
+                }
+                LockSupport.parkNanos(10_000);
+            }
+        }
+        ring.slot(sequence).set(sequence, entity, operation, entityId, statement);
+        ring.publish(sequence);
+        published.increment();
+        wakeDispatcher();
+        return true;
+    }
+
+    // 기다리지 않고 count개를 버린 것으로 센다 (다음 묶음의 lost)
+    public void drop(int count) {
+        if (count <= 0) {
+            return;
+        }
+        lost.addAndGet(count);
+        dropped.increment(count);
+        wakeDispatcher();
+    }
+
+    private void wakeDispatcher() {
+        if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        dispatcher = new Thread(this::dispatch, "change-events");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    // 남은 이벤트를 다 넘기고 멈춘다
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void dispatch() {
+        int idle = 0;
+        while (running) {
+            if (dispatchBatch()) {
+                idle = 0;
+            } else if (idle < IDLE_SPINS) {
+                // 1us, 2us, 4us ... 64us
+                LockSupport.parkNanos(1000L << idle);
+                idle++;
+            } else {
+                sleeping.set(true);
+                // 표시한 뒤 한 번 더 확인: 그 사이 발행된 이벤트는 여기서 보이거나, 생산자가 sleeping을 보고 깨운다
+                if (running && ring.available(1) == 0 && lost.get() == 0) {
+                    LockSupport.park(this);
+                }
+                sleeping.set(false);
+            }
+        }
+        while (dispatchBatch()) {
+            // drain
+        }
+    }
+
+    private boolean dispatchBatch() {
+        int count = ring.available(batchSize);
+        if (count == 0 && lost.get() == 0) {
+            return false;
+        }
+        // count가 0이어도 버려진 이벤트가 있으면 빈 묶음으로 알린다
+        batch.reset(ring, count, lost.getAndSet(0));
+        for (ChangeEventConsumer consumer : consumers) {
+            try {
+                consumer.onEvents(batch);
+            } catch (RuntimeException e) {
+                // 한 consumer가 실패해도 다른 consumer와 다음 묶음은 계속
+                log.warn("change event consumer {} failed", consumer, e);
+                meterRegistry.counter("change.events.consumer.failures", "consumer", consumer.getClass().getSimpleName())
+                        .increment();
+            }
+        }
+        if (count > 0) {
+            ring.release(count);
+            batchSizes.record(count);
+        }
+        return true;
+    }
+}
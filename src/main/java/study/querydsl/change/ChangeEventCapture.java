@@ -0,0 +1,200 @@
+package study.querydsl.change;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionEventListener;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.change.ChangeEvent.EntityKind;
+import study.querydsl.change.ChangeEvent.Operation;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Member/Team 변경을 모아서 커밋 후에 ChangeEventBus로 보낸다. 롤백되면 버린다.
+ * - 엔티티 insert/update/delete: Hibernate post 이벤트.
+ * - 벌크 쓰기(JPQL 벌크, 네이티브 쿼리): 이벤트가 없으므로 ChangeEventStatementInspector가 SQL을 보고 BULK로 넘긴다.
+ *   flush 중에 나가는 SQL은 엔티티 쓰기라서 제외 (FlushTracker로 flush 구간을 표시).
+ * - JdbcTemplate처럼 Hibernate를 거치지 않는 쓰기는 bulk(...)를 직접 부른다 (MemberSnapshotService).
+ * - 벌크 쓰기는 BulkWriteListener 빈들(읽기 모델 등)에게도 바로 알린다.
+ * 트랜잭션마다 모으는 버퍼는 스레드별로 재사용해서 이벤트마다 객체를 만들지 않는다.
+ */
+@Component
+public class ChangeEventCapture implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    // flush 중첩 깊이 (auto flush 안에서 flush 등)
+    private static final ThreadLocal<int[]> FLUSH_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final EntityManagerFactory emf;
+    private final ChangeEventBus bus;
+    private final ObjectProvider<BulkWriteListener> bulkWriteListeners;
+    // 끝난 트랜잭션의 버퍼. 트랜잭션이 중첩(REQUIRES_NEW)되면 여러 개가 동시에 쓰인다.
+    private final ThreadLocal<ArrayDeque<PendingChanges>> pool = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public ChangeEventCapture(EntityManagerFactory emf, ChangeEventBus bus, ObjectProvider<BulkWriteListener> bulkWriteListeners) {
+        this.emf = emf;
+        this.bus = bus;
+        this.bulkWriteListeners = bulkWriteListeners;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        entity(event.getEntity(), Operation.INSERT, event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        entity(event.getEntity(), Operation.UPDATE, event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        entity(event.getEntity(), Operation.DELETE, event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // 어느 행인지 모르는 쓰기. 트랜잭션 안이면 커밋 후에, 밖이면 바로.
+    public void bulk(EntityKind entity, String statement) {
+        add(entity, Operation.BULK, ChangeEvent.NO_ID, statement);
+        bulkWriteListeners.forEach(listener -> listener.onBulkWrite(entity, statement));
+    }
+
+    static boolean isFlushing() {
+        return FLUSH_DEPTH.get()[0] > 0;
+    }
+
+    private void entity(Object entity, Operation operation, Object id) {
+        if (entity instanceof Member) {
+            add(EntityKind.MEMBER, operation, (Long) id, null);
+        } else if (entity instanceof Team) {
+            add(EntityKind.TEAM, operation, (Long) id, null);
+        }
+    }
+
+    private void add(EntityKind entity, Operation operation, long id, String statement) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bus.publish(entity, operation, id, statement);
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = pool.get().poll();
+            if (pending == null) {
+                pending = new PendingChanges();
+            }
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(entity, operation, id, statement);
+    }
+
+    /**
+     * 트랜잭션 하나에서 모은 변경. 커밋되면 순서대로 발행하고, 끝나면 비워서 풀에 돌려준다.
+     * 중첩 트랜잭션이 시작되면(suspend) 바깥 버퍼를 잠깐 떼어 두어 안쪽 변경이 섞이지 않게 한다.
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+        private EntityKind[] entities = new EntityKind[16];
+        private Operation[] operations = new Operation[16];
+        private long[] ids = new long[16];
+        private String[] statements = new String[16];
+        private int size;
+
+        void add(EntityKind entity, Operation operation, long id, String statement) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                entities = Arrays.copyOf(entities, capacity);
+                operations = Arrays.copyOf(operations, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                statements = Arrays.copyOf(statements, capacity);
+            }
+            entities[size] = entity;
+            operations[size] = operation;
+            ids[size] = id;
+            statements[size] = statement;
+            size++;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(ChangeEventCapture.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(ChangeEventCapture.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            for (int i = 0; i < size; i++) {
+                if (!bus.publish(entities[i], operations[i], ids[i], statements[i])) {
+                    // 링이 가득 차서 한 번 기다렸다 버려졌으면 나머지는 기다리지 않고 버린다 (커밋 스레드를 N번 붙잡지 않게)
+                    bus.drop(size - i - 1);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ChangeEventCapture.this);
+            Arrays.fill(statements, 0, size, null);
+            size = 0;
+            pool.get().push(this);
+        }
+    }
+
+    /**
+     * Hibernate 세션 이벤트로 flush 구간을 표시한다 (hibernate.session.events.auto, 세션마다 생성).
+     * flush는 세션을 쓰는 스레드에서 돌므로 스레드 로컬로 충분하다.
+     */
+    public static class FlushTracker implements SessionEventListener {
+        @Override
+        public void flushStart() {
+            FLUSH_DEPTH.get()[0]++;
+        }
+
+        @Override
+        public void flushEnd(int numberOfEntities, int numberOfCollections) {
+            FLUSH_DEPTH.get()[0]--;
+        }
+
+        @Override
+        public void partialFlushStart() {
+            FLUSH_DEPTH.get()[0]++;
+        }
+
+        @Override
+        public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+            FLUSH_DEPTH.get()[0]--;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.change;
+
+/**
+ * ChangeEventBus 구독자. 빈으로 등록하면 기동 시 자동으로 붙고, ChangeEventBus.register로도 붙일 수 있다.
+ * 디스패처 스레드 하나에서 순서대로 불리므로 오래 걸리면 뒤 이벤트가 밀린다 (링이 차면 커밋 스레드가 기다림).
+ */
+@FunctionalInterface
+public interface ChangeEventConsumer {
+    void onEvents(ChangeEventBatch batch);
+}
@@ -0,0 +1,82 @@
+package study.querydsl.change;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 고정 크기 링 버퍼 (생산자 여럿, 소비자 하나). 락 없이 CAS로 순번을 받는다.
+ * - 생산자: tryClaim으로 순번을 받고 slot(순번)을 채운 뒤 publish. 가득 차 있으면 -1.
+ * - 소비자: available로 앞에서부터 연속으로 발행된 개수를 보고 peek으로 읽은 뒤 release.
+ *   순번을 받고 아직 발행하지 않은 슬롯이 있으면 그 앞까지만 보인다 (순서 보장).
+ * 슬롯 객체는 처음에 모두 만들어 두고 재사용한다.
+ */
+final class ChangeEventRing {
+    private final ChangeEvent[] slots;
+    private final int mask;
+    // 슬롯마다 마지막으로 발행된 순번. 소비자는 이 값이 기대한 순번과 같을 때만 읽는다.
+    private final AtomicLongArray published;
+    // 다음에 줄 순번 (생산자)
+    private final AtomicLong head = new AtomicLong();
+    // 다음에 읽을 순번 (소비자만 쓴다)
+    private final AtomicLong tail = new AtomicLong();
+
+    ChangeEventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new ChangeEvent[size];
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ChangeEvent();
+            published.set(i, -1);
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    long tryClaim() {
+        while (true) {
+            long sequence = head.get();
+            if (sequence - tail.get() >= slots.length) {
+                return -1;
+            }
+            if (head.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    ChangeEvent slot(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    // slot을 다 채운 뒤에. 이 쓰기 이후에야 소비자가 슬롯 내용을 읽는다.
+    void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+    }
+
+    int available(int max) {
+        long next = tail.get();
+        int count = 0;
+        while (count < max && published.get((int) (next + count) & mask) == next + count) {
+            count++;
+        }
+        return count;
+    }
+
+    // tail부터 i번째
+    ChangeEvent peek(int i) {
+        return slots[(int) (tail.get() + i) & mask];
+    }
+
+    // 읽은 슬롯을 생산자에게 돌려준다
+    void release(int count) {
+        tail.set(tail.get() + count);
+    }
+
+    // 순번을 받았지만 아직 소비되지 않은 수
+    long backlog() {
+        return head.get() - tail.get();
+    }
+}
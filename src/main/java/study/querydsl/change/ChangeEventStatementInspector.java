@@ -0,0 +1,29 @@
+package study.querydsl.change;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import study.querydsl.change.ChangeEvent.EntityKind;
+
+/**
+ * flush 밖에서 나가는 member/team 쓰기(JPQL 벌크, 네이티브 쿼리)를 BULK 변경 이벤트로 넘긴다.
+ * flush 중의 SQL은 엔티티 쓰기라 Hibernate 이벤트로 이미 잡히므로 제외.
+ */
+public class ChangeEventStatementInspector implements StatementInspector {
+    // ChangeEventCapture는 EntityManagerFactory가 필요하고 EntityManagerFactory는 이 inspector가 필요하므로 나중에 꺼낸다
+    private final ObjectProvider<ChangeEventCapture> capture;
+
+    public ChangeEventStatementInspector(ObjectProvider<ChangeEventCapture> capture) {
+        this.capture = capture;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (!ChangeEventCapture.isFlushing()) {
+            String table = DataVersionStatementInspector.writtenTable(sql);
+            if (table != null) {
+                capture.getObject().bulk(table.equals("member") ? EntityKind.MEMBER : EntityKind.TEAM, sql);
+            }
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.change;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ChangeTrackingConfig {
+
+    // QuerydslConfig에서 다른 StatementInspector들과 묶여 Hibernate에 등록된다.
+    @Bean
+    public DataVersionStatementInspector dataVersionStatementInspector(DataVersion dataVersion) {
+        return new DataVersionStatementInspector(dataVersion);
+    }
+
+    // ChangeVersions.stamp 없이 나가는 벌크 update 경고 (SQL은 고치지 않음)
+    @Bean
+    public ChangeVersionStatementInspector changeVersionStatementInspector() {
+        return new ChangeVersionStatementInspector();
+    }
+
+    @Bean
+    public ChangeEventStatementInspector changeEventStatementInspector(ObjectProvider<ChangeEventCapture> changeEventCapture) {
+        return new ChangeEventStatementInspector(changeEventCapture);
+    }
+
+    // 세션마다 flush 구간을 표시 (벌크 SQL과 엔티티 flush SQL 구분용)
+    @Bean
+    public HibernatePropertiesCustomizer flushTrackerCustomizer() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                ChangeEventCapture.FlushTracker.class.getName());
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.change;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * flush 밖에서 나가는 member/team 벌크 update(JPQL 벌크, 네이티브 쿼리)가 change_version을 찍었는지 확인만 한다.
+ * 벌크 update는 ChangeVersions.stamp로 버전을 바인딩 파라미터로 넣어야 한다. SQL을 고쳐 값을 넣으면
+ * 문장마다 SQL이 달라져 statement 캐시를 못 쓰므로 여기서는 고치지 않고 WARN만 남긴다.
+ * 찍지 않은 update는 변경 피드에 안 나오고, 읽기 모델은 그 트랜잭션 커밋 때 전체 rebuild로 맞춘다 (MemberTeamReadModel).
+ */
+@Slf4j
+public class ChangeVersionStatementInspector implements StatementInspector {
+    // "update member m1_0 set " 까지. 별칭이 없으면 바로 set.
+    private static final Pattern BULK_UPDATE = Pattern.compile(
+            "\\s*(?:/\\*.*?\\*/\\s*)*update\\s+(?:member|team)(?:\\s+(?!set\\b)\\w+)?\\s+set\\s+",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CHANGE_VERSION_SET = Pattern.compile(
+            "\\bchange_version\\s*=", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE = Pattern.compile("\\swhere\\s", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public String inspect(String sql) {
+        if (!ChangeEventCapture.isFlushing() && isUnstamped(sql)) {
+            log.warn("bulk update without change_version, use ChangeVersions.stamp: {}", sql);
+        }
+        return sql;
+    }
+
+    // member/team update인데 set 절에 change_version이 없으면 true
+    static boolean isUnstamped(String sql) {
+        Matcher update = BULK_UPDATE.matcher(sql);
+        if (!update.lookingAt()) {
+            return false;
+        }
+        Matcher where = WHERE.matcher(sql);
+        int setEnd = where.find(update.end()) ? where.start() : sql.length();
+        return !CHANGE_VERSION_SET.matcher(sql).region(update.end(), setEnd).find();
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.change;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 변경 버전 시계. 마이크로초 단위 시각을 기반으로 하되 항상 단조 증가한다.
+ * 엔티티의 changeVersion과 삭제 기록(tombstone)이 같은 시계를 써서 하나의 커서로 이어 읽을 수 있다.
+ * 버전은 커밋이 아니라 쓰는 시점(persist/flush)에 정해지므로, 트랜잭션마다 처음 받은 버전을 진행 중 목록에 두고
+ * {@link #safeVersion()}은 그보다 작은 버전까지만 확정으로 본다. 커밋이 얼마나 늦든 커서가 그 행을 건너뛰지 않는다.
+ * (진행 중 목록은 이 JVM 안의 트랜잭션만 안다)
+ */
+public final class ChangeVersions {
+    private static final AtomicLong last = new AtomicLong();
+    // 진행 중 트랜잭션의 첫 버전. 같은 락 안에서 버전을 받고 등록해야 safeVersion이 그 사이를 보지 않는다.
+    private static final TreeSet<Long> inFlight = new TreeSet<>();
+    private static final Object IN_FLIGHT_KEY = new Object();
+
+    private ChangeVersions() {
+    }
+
+    public static long next() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(IN_FLIGHT_KEY)) {
+            return advance();
+        }
+        long version;
+        synchronized (inFlight) {
+            version = advance();
+            inFlight.add(version);
+        }
+        InFlight registration = new InFlight(version);
+        TransactionSynchronizationManager.bindResource(IN_FLIGHT_KEY, registration);
+        TransactionSynchronizationManager.registerSynchronization(registration);
+        return version;
+    }
+
+    // 이 버전 이하로는 더 커밋될 행이 없다. 변경 피드의 upTo(커서)로 쓴다.
+    public static long safeVersion() {
+        synchronized (inFlight) {
+            return inFlight.isEmpty() ? last.get() : inFlight.first() - 1;
+        }
+    }
+
+    // 현재 트랜잭션이 처음 받은 버전. 이 트랜잭션이 찍은 버전은 모두 이 값 이상. 아직 버전을 받지 않았으면 null.
+    public static Long transactionFloor() {
+        InFlight registration = (InFlight) TransactionSynchronizationManager.getResource(IN_FLIGHT_KEY);
+        return registration != null ? registration.version : null;
+    }
+
+    // 벌크 update는 엔티티 콜백을 타지 않으므로 직접 찍어줘야 한다.
+    // 버전은 바인딩 파라미터라 SQL이 같아 statement 캐시를 쓴다. 찍지 않은 벌크는 ChangeVersionStatementInspector가 경고.
+    public static JPAUpdateClause stamp(JPAUpdateClause update, Path<Long> changeVersion) {
+        return update.set(changeVersion, next());
+    }
+
+    private static long advance() {
+        long now = System.currentTimeMillis() * 1000;
+        return last.updateAndGet(prev -> Math.max(prev + 1, now));
+    }
+
+    // 트랜잭션이 끝나면(커밋/롤백) 진행 중 목록에서 뺀다.
+    // 중첩 트랜잭션(REQUIRES_NEW)이 시작되면 떼어 두어 안쪽은 자기 첫 버전을 따로 등록한다.
+    private static final class InFlight implements TransactionSynchronization {
+        private final long version;
+
+        InFlight(long version) {
+            this.version = version;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(IN_FLIGHT_KEY);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(IN_FLIGHT_KEY, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(IN_FLIGHT_KEY);
+            synchronized (inFlight) {
+                inFlight.remove(version);
+            }
+        }
+    }
+}
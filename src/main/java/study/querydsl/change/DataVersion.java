@@ -0,0 +1,58 @@
+package study.querydsl.change;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Member/Team 테이블의 데이터 버전.
+ * 쓰기가 커밋될 때마다 1씩 증가하고, 조회 응답의 ETag 계산에 사용된다.
+ */
+@Component
+public class DataVersion {
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    // 트랜잭션 안이면 커밋 후에 올린다. 롤백되면 그대로.
+    // 커밋 전에 올려버리면 아직 안 보이는 데이터에 새 버전 ETag가 붙을 수 있음.
+    public void touch() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            version.incrementAndGet();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return; // 이미 이번 트랜잭션에 등록됨
+        }
+        PendingTouch pending = new PendingTouch();
+        TransactionSynchronizationManager.bindResource(this, pending);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+
+    // 중첩 트랜잭션(REQUIRES_NEW)이 시작되면 표시를 떼어 두어 안쪽 트랜잭션이 자기 동기화를 따로 등록하게 한다
+    private final class PendingTouch implements TransactionSynchronization {
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(DataVersion.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(DataVersion.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            version.incrementAndGet();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DataVersion.this);
+        }
+    }
+}
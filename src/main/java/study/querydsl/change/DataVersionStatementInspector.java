@@ -0,0 +1,39 @@
+package study.querydsl.change;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hibernate가 실행하는 모든 SQL을 보고 member/team 쓰기면 {@link DataVersion}을 올린다.
+ * 엔티티 변경뿐 아니라 JPQL 벌크 update/delete도 여기를 지나가므로 같이 잡힌다.
+ */
+@RequiredArgsConstructor
+public class DataVersionStatementInspector implements StatementInspector {
+    // use_sql_comments가 켜져 있으면 앞에 /* ... */ 주석이 붙는다.
+    private static final Pattern MEMBER_TEAM_WRITE = Pattern.compile(
+            "\\s*(?:/\\*.*?\\*/\\s*)*(?:insert\\s+into|update|delete\\s+from|merge\\s+into|truncate\\s+table)\\s+(member|team)\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final DataVersion dataVersion;
+
+    @Override
+    public String inspect(String sql) {
+        if (isMemberOrTeamWrite(sql)) {
+            dataVersion.touch();
+        }
+        return sql;
+    }
+
+    static boolean isMemberOrTeamWrite(String sql) {
+        return MEMBER_TEAM_WRITE.matcher(sql).lookingAt();
+    }
+
+    // 쓰는 테이블 ("member"/"team"). 둘 다 아니면 null.
+    static String writtenTable(String sql) {
+        Matcher matcher = MEMBER_TEAM_WRITE.matcher(sql);
+        return matcher.lookingAt() ? matcher.group(1).toLowerCase() : null;
+    }
+}
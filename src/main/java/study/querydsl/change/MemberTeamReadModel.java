@@ -0,0 +1,273 @@
+package study.querydsl.change;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.change.ChangeEvent.EntityKind;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * member_team 읽기 모델 유지 (querydsl.read-model.enabled=true 일 때만).
+ * - Member insert/update/delete, Team 이름 변경(소속 회원 전체로 전파)/삭제를 같은 트랜잭션 안에서 반영.
+ *   flush 도중이라 세션의 커넥션으로 바로 실행한다 (doWork).
+ * - 벌크 쓰기(JPQL 벌크, 네이티브 쿼리, 스냅샷 import)는 ChangeEventCapture가 BulkWriteListener로 알려주고,
+ *   커밋 직전(beforeCommit)에 한 번 맞춘다. 그 전까지 같은 트랜잭션 안에서는 member_team이 늦을 수 있다.
+ *   - update: 이 트랜잭션이 찍은 change_version(ChangeVersions.transactionFloor 이상)의 회원/팀 행만 다시.
+ *     ChangeVersions.stamp 없이 나간 update는 범위를 알 수 없으므로 전체 rebuild
+ *   - insert: 마찬가지로 이 트랜잭션이 찍은 change_version 이상의 회원 행. 버전을 받지 않고 넣었으면(직접 쓴 네이티브 insert)
+ *     범위를 모르므로 member_team에 없는 회원 행 전체 (테이블 전체를 훑으므로 WARN)
+ *   - delete: member_team.member_id FK의 on delete cascade (import.sql)
+ * - 행 반영은 모두 merge라서 다른 트랜잭션의 동시 insert와 기본 키가 부딪히지 않는다 (rebuild도 지우고 다시 넣지 않음).
+ * - 기동 시(warm-up보다 먼저) 전체 rebuild.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "querydsl.read-model.enabled", havingValue = "true")
+public class MemberTeamReadModel implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        ApplicationRunner, BulkWriteListener {
+    private static final int REFRESH_CHUNK = 256;
+    private static final String COLUMNS = "member_id, username, username_normalized, age, team_id, team_name";
+    private static final String SELECT_FROM_MEMBER = "select m.member_id, m.username, m.username_normalized, m.age, m.team_id,"
+            + " t.name team_name from member m left join team t on t.id = m.team_id";
+    // 바뀐 행만 update, 없는 행은 insert. 원본 범위는 SELECT_FROM_MEMBER 뒤에 where로.
+    private static final String MERGE_INTO = "merge into member_team v using (%s) s on v.member_id = s.member_id"
+            + " when matched and (v.username is distinct from s.username"
+            + " or v.username_normalized is distinct from s.username_normalized or v.age <> s.age"
+            + " or v.team_id is distinct from s.team_id or v.team_name is distinct from s.team_name)"
+            + " then update set username = s.username, username_normalized = s.username_normalized, age = s.age,"
+            + " team_id = s.team_id, team_name = s.team_name"
+            + " when not matched then insert (" + COLUMNS + ")"
+            + " values (s.member_id, s.username, s.username_normalized, s.age, s.team_id, s.team_name)";
+    private static final Pattern OPERATION = Pattern.compile(
+            "\\s*(?:/\\*.*?\\*/\\s*)*(insert|update|delete|merge|truncate)\\b", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Object PENDING_KEY = new Object();
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberTeamReadModel(EntityManagerFactory emf, EntityManager em, PlatformTransactionManager transactionManager) {
+        this.emf = emf;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        int rows = rebuild();
+        log.info("member_team read model rebuilt: {} rows in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // 전체 맞추기 (불일치가 의심될 때). 지우고 다시 넣지 않고 merge하므로 동시 쓰기와 같이 돌아도 된다. 바뀐 행 수.
+    public int rebuild() {
+        return transactionTemplate.execute(status -> {
+            int removed = em.createNativeQuery("delete from member_team v"
+                    + " where not exists (select 1 from member m where m.member_id = v.member_id)").executeUpdate();
+            return removed + em.createNativeQuery(MERGE_INTO.formatted(SELECT_FROM_MEMBER)).executeUpdate();
+        });
+    }
+
+    // 지정한 회원 행만 다시 맞추기. 현재 트랜잭션이 있으면 거기에 참여.
+    public void refresh(Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(memberIds);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < ids.size(); from += REFRESH_CHUNK) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + REFRESH_CHUNK));
+                em.createNativeQuery(MERGE_INTO.formatted(SELECT_FROM_MEMBER + " where m.member_id in (:ids)"))
+                        .setParameter("ids", chunk)
+                        .executeUpdate();
+            }
+        });
+    }
+
+    // SQL이 실행되기 전이므로 트랜잭션에 표시만 해두고 커밋 직전에 맞춘다.
+    // 트랜잭션 밖 쓰기(자동 커밋 네이티브 쿼리)는 따라갈 수 없으므로 rebuild 필요.
+    @Override
+    public void onBulkWrite(EntityKind entity, String statement) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            log.warn("bulk write outside a transaction, member_team needs rebuild: {}", statement);
+            return;
+        }
+        PendingSync pending = (PendingSync) TransactionSynchronizationManager.getResource(PENDING_KEY);
+        if (pending == null) {
+            pending = new PendingSync();
+            TransactionSynchronizationManager.bindResource(PENDING_KEY, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        Matcher operation = OPERATION.matcher(statement);
+        String keyword = operation.lookingAt() ? operation.group(1).toLowerCase() : "update";
+        boolean member = entity == EntityKind.MEMBER;
+        switch (keyword) {
+            case "insert" -> pending.memberInserted |= member;
+            case "update" -> {
+                pending.updated(member);
+                pending.unstamped |= ChangeVersionStatementInspector.isUnstamped(statement);
+            }
+            case "merge" -> {
+                pending.memberInserted |= member;
+                pending.updated(member);
+            }
+            default -> {
+                // delete/truncate: 회원은 FK cascade, 팀은 소속 회원이 있으면 지울 수 없음
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            upsert(event.getSession(), member);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            upsert(event.getSession(), member);
+        } else if (event.getEntity() instanceof Team team) {
+            // 팀 이름 변경은 소속 회원 행 전체로
+            execute(event.getSession(), "update member_team set team_name = ? where team_id = ?", team.getName(), team.getId());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            execute(event.getSession(), "delete from member_team where member_id = ?", event.getId());
+        } else if (event.getEntity() instanceof Team) {
+            execute(event.getSession(), "update member_team set team_id = null, team_name = null where team_id = ?", event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // 팀 이름은 엔티티(지연 로딩 프록시일 수 있음) 대신 team 테이블에서
+    private void upsert(EventSource session, Member member) {
+        Long teamId = member.getTeam() != null ? member.getTeam().getId() : null;
+        String values = "username = ?, username_normalized = ?, age = ?, team_id = ?, team_name = (select name from team where id = ?)";
+        int updated = execute(session, "update member_team set " + values + " where member_id = ?",
+                member.getUsername(), member.getUsernameNormalized(), member.getAge(), teamId, teamId, member.getId());
+        if (updated == 0) {
+            execute(session, "insert into member_team (" + COLUMNS + ") values (?, ?, ?, ?, ?, (select name from team where id = ?))",
+                    member.getId(), member.getUsername(), member.getUsernameNormalized(), member.getAge(), teamId, teamId);
+        }
+    }
+
+    private int execute(EventSource session, String sql, Object... params) {
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * 트랜잭션 하나에서 본 벌크 쓰기 종류. 커밋 직전에 member_team을 맞춘다.
+     * 중첩 트랜잭션(REQUIRES_NEW)이 시작되면 떼어 두어 안쪽 쓰기가 섞이지 않게 한다.
+     */
+    private final class PendingSync implements TransactionSynchronization {
+        private boolean memberUpdated;
+        private boolean teamUpdated;
+        private boolean memberInserted;
+        private boolean unstamped;
+
+        void updated(boolean member) {
+            if (member) {
+                memberUpdated = true;
+            } else {
+                teamUpdated = true;
+            }
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(PENDING_KEY);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(PENDING_KEY, this);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            Long floor = ChangeVersions.transactionFloor();
+            if (unstamped || (memberUpdated || teamUpdated) && floor == null) {
+                // 버전을 찍지 않은 update는 어느 행인지 모르므로 전체
+                rebuild();
+                return;
+            }
+            if ((memberUpdated || memberInserted) && floor != null) {
+                em.createNativeQuery(MERGE_INTO.formatted(SELECT_FROM_MEMBER + " where m.change_version >= :floor"))
+                        .setParameter("floor", floor)
+                        .executeUpdate();
+            }
+            if (teamUpdated) {
+                em.createNativeQuery(MERGE_INTO.formatted(SELECT_FROM_MEMBER + " where t.change_version >= :floor"))
+                        .setParameter("floor", floor)
+                        .executeUpdate();
+            }
+            if (memberInserted && floor == null) {
+                log.warn("member insert without a change version, scanning member for rows missing from member_team");
+                em.createNativeQuery(MERGE_INTO.formatted(SELECT_FROM_MEMBER
+                                + " where not exists (select 1 from member_team e where e.member_id = m.member_id)"))
+                        .executeUpdate();
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_KEY);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.change;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * member 행이 지워지면 member_tombstone에 기록하는 H2 행 트리거 (import.sql에서 스키마 생성 직후에 건다).
+ * 엔티티 삭제뿐 아니라 JPQL 벌크 delete, 네이티브 쿼리, 보관(MemberArchiver)도 모두 여기를 지나므로 변경 피드에서 빠지지 않는다.
+ * 임베디드 H2는 SQL을 실행한 스레드에서 트리거를 부르므로 버전은 그 트랜잭션의 ChangeVersions 진행 중 목록에 들어간다.
+ * 같은 id가 다시 지워질 수 있어서(고정 id로 넣는 데이터) insert 대신 merge.
+ */
+public class MemberTombstoneTrigger implements Trigger {
+    private static final String RECORD = "merge into member_tombstone (member_id, change_version) key (member_id) values (?, ?)";
+
+    private int memberId = -1;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName,
+                     boolean before, int type) throws SQLException {
+        try (ResultSet columns = conn.getMetaData().getColumns(null, schemaName, tableName, null)) {
+            while (columns.next()) {
+                if (columns.getString("COLUMN_NAME").equalsIgnoreCase("member_id")) {
+                    memberId = columns.getInt("ORDINAL_POSITION") - 1;
+                }
+            }
+        }
+        if (memberId < 0) {
+            throw new SQLException("member_id not found on " + schemaName + "." + tableName);
+        }
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(RECORD)) {
+            ps.setLong(1, ((Number) oldRow[memberId]).longValue());
+            ps.setLong(2, ChangeVersions.next());
+            ps.executeUpdate();
+        }
+    }
+}
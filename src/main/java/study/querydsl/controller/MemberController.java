@@ -1,35 +1,198 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.archive.MemberArchiveJobs;
+import study.querydsl.change.ChangeVersions;
+import study.querydsl.change.DataVersion;
+import study.querydsl.dto.MemberAgeBucketDto;
+import study.querydsl.dto.MemberArchiveJobDto;
+import study.querydsl.dto.MemberChangesDto;
+import study.querydsl.dto.MemberIngestResultDto;
+import study.querydsl.dto.MemberRankDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.ingest.MemberIngestService;
+import study.querydsl.query.QueryDeadline;
+import study.querydsl.repository.MemberAgeHistogramRepository;
+import study.querydsl.repository.MemberChangeRepository;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.MemberRankingRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.web.MemberPagePrefetcher;
+import study.querydsl.web.QueryTimeout;
 
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberQueryRepository memberQueryRepository;
+    private final MemberChangeRepository memberChangeRepository;
+    private final MemberRankingRepository memberRankingRepository;
+    private final DataVersion dataVersion;
+    private final MemberPagePrefetcher memberPagePrefetcher;
+    private final MemberIngestService memberIngestService;
+    private final MemberAgeHistogramRepository memberAgeHistogramRepository;
+    private final MemberArchiveJobs memberArchiveJobs;
 
+    @Value("${querydsl.age-histogram.bounds:10,20,30,40,50,60}")
+    private List<Integer> defaultAgeBounds;
+
+    @Value("${querydsl.ranking.max-per-team:100}")
+    private int maxRankPerTeam;
+
+    @Value("${querydsl.search-batch.max-conditions:500}")
+    private int maxBatchConditions;
+
+    // 조건부 요청 - ETag가 같으면 쿼리 없이 304 (null 반환 시 스프링이 304로 응답)
+    // 검색 엔드포인트는 비동기로 조회 - 오래 걸리는 동안 클라이언트가 끊으면 QueryDeadlineInterceptor가 바로 취소.
+    // ETag 확인과 입력 검증(400)은 요청 스레드에서 먼저.
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+    @QueryTimeout(millis = 3000) // 조건 없이 전체 조회가 될 수 있어서 짧게
+    public Callable<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition, WebRequest request) {
+        if (request.checkNotModified(searchETag("v1", condition, null, request))) {
+            return null;
+        }
+        Supplier<List<MemberTeamDto>> search = QueryDeadline.inheriting(() -> memberJpaRepository.search(condition));
+        return search::get;
     }
 
     // 스프링 데이터 페이징 활용3 - 컨트롤러 개발
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition,pageable);
+    public Callable<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (request.checkNotModified(searchETag("v2", condition, pageable, request))) {
+            return null;
+        }
+        // querydsl.prefetch.enabled면 다음 페이지를 미리 조회
+        Supplier<Page<MemberTeamDto>> search = QueryDeadline.inheriting(
+                memberPagePrefetcher.deferred("v2", condition, pageable, memberRepository::searchPageSimple));
+        return search::get;
     }
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition,pageable);
+    public Callable<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (request.checkNotModified(searchETag("v3", condition, pageable, request))) {
+            return null;
+        }
+        Supplier<Page<MemberTeamDto>> search = QueryDeadline.inheriting(
+                memberPagePrefetcher.deferred("v3", condition, pageable, memberRepository::searchPageComplex));
+        return search::get;
+    }
+
+    // 묶음 검색 - 조건 목록을 받아 조건별 결과 목록을 같은 순서로 반환
+    @PostMapping("/v1/members/search-batch")
+    public Callable<List<List<MemberTeamDto>>> searchMemberBatch(@RequestBody List<MemberSearchCondition> conditions) {
+        if (conditions.size() > maxBatchConditions) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "too many conditions: " + conditions.size());
+        }
+        int nullAt = conditions.indexOf(null);
+        if (nullAt >= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "null condition at index " + nullAt);
+        }
+        Supplier<List<List<MemberTeamDto>>> search = QueryDeadline.inheriting(() -> memberQueryRepository.searchBatch(conditions));
+        return search::get;
+    }
+
+    // 대량 등록 - JSON 배열 또는 NDJSON 본문을 스트리밍으로 읽고 청크마다 커밋, 청크별 결과 반환
+    @PostMapping(value = "/v1/members/ingest",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @QueryTimeout(millis = 600_000) // 본문이 클 수 있어서 길게
+    public MemberIngestResultDto ingestMembers(InputStream body) {
+        return memberIngestService.ingest(body);
+    }
+
+    // 보관 - 조건에 맞는 회원을 member_archive로 청크마다 커밋하며 옮김 (검색은 includeArchived=true로 같이)
+    // 몇 분씩 걸릴 수 있어서 작업만 넣고 202. 진행은 Location(/v1/members/archive/{id})으로 확인.
+    @PostMapping("/v1/members/archive")
+    public ResponseEntity<MemberArchiveJobDto> archiveMembers(MemberSearchCondition condition) {
+        MemberArchiveJobDto job;
+        try {
+            job = memberArchiveJobs.start(condition);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.accepted().location(URI.create("/v1/members/archive/" + job.getId())).body(job);
+    }
+
+    @GetMapping("/v1/members/archive/{id}")
+    public MemberArchiveJobDto archiveJob(@PathVariable long id) {
+        MemberArchiveJobDto job = memberArchiveJobs.get(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "no archive job " + id);
+        }
+        return job;
+    }
+
+    // 팀별 나이 많은 순 상위 n명 (n은 querydsl.ranking.max-per-team까지)
+    @GetMapping("/v1/members/oldest-per-team")
+    public List<MemberRankDto> oldestPerTeam(@RequestParam(defaultValue = "1") int n) {
+        if (n > maxRankPerTeam) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "n must be <= " + maxRankPerTeam + ": " + n);
+        }
+        return memberRankingRepository.findOldestPerTeam(Math.max(1, n));
+    }
+
+    // 팀 내 나이 순위. 팀 하나만 - 팀 없이는 전체 회원이 페이징 없이 나가므로 teamName 필수.
+    @GetMapping("/v1/members/team-rank")
+    public List<MemberRankDto> teamRank(@RequestParam String teamName) {
+        if (!StringUtils.hasText(teamName)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "teamName is required");
+        }
+        return memberRankingRepository.rankWithinTeam(teamName);
+    }
+
+    // 팀별 나이 구간 회원 수 - bounds=20,40 이면 ~20, 20~40, 40~ (데이터가 바뀔 때까지 캐시)
+    @GetMapping("/v1/members/age-histogram")
+    public List<MemberAgeBucketDto> ageHistogram(@RequestParam(required = false) List<Integer> bounds,
+                                                 @RequestParam(required = false) String teamName) {
+        List<Integer> ageBounds = bounds != null ? bounds : defaultAgeBounds;
+        try {
+            MemberAgeHistogramRepository.validate(ageBounds);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return memberAgeHistogramRepository.histogram(ageBounds, teamName);
+    }
+
+    // 변경 피드 - since 이후 변경분만. 응답의 cursor를 다음 since로 사용.
+    @GetMapping("/v1/members/changes")
+    public MemberChangesDto memberChanges(@RequestParam(defaultValue = "0") long since,
+                                          @RequestParam(defaultValue = "1000") int limit) {
+        long upTo = ChangeVersions.safeVersion();
+        if (upTo <= since) {
+            return new MemberChangesDto(since, since, false, List.of(), List.of(), List.of(), List.of());
+        }
+        return memberChangeRepository.findChangesSince(since, upTo, Math.max(1, Math.min(limit, 10_000)));
+    }
+
+    // (데이터 버전, 조건, 페이지, Accept)로 ETag 생성. 버전은 쿼리보다 먼저 읽어야 오래된 데이터에 새 ETag가 붙지 않음.
+    // 같은 결과라도 JSON/CBOR/컬럼 형식은 본문이 다르므로 Accept도 키에 넣는다.
+    private String searchETag(String api, MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        String key = api + "|" + condition + "|" + pageable + "|" + request.getHeader(HttpHeaders.ACCEPT);
+        return dataVersion.current() + "-" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8));
     }
 }
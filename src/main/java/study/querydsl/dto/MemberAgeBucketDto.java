@@ -0,0 +1,15 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// 팀별 나이 구간 회원 수. 구간은 [fromAge, toAge) - 첫 구간 fromAge, 마지막 구간 toAge는 null (열린 구간)
+@Data
+@AllArgsConstructor
+public class MemberAgeBucketDto {
+    private Long teamId;
+    private String teamName;
+    private Integer fromAge;
+    private Integer toAge;
+    private long count;
+}
@@ -0,0 +1,15 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 보관 작업 상태. status: queued -> running -> done. result는 done일 때만.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberArchiveJobDto {
+    private long id;
+    private String status;
+    private MemberArchiveResultDto result;
+}
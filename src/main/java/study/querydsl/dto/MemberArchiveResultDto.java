@@ -0,0 +1,16 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+// 보관 이동 결과. error가 있으면 그 청크에서 멈춘 것 (앞 청크들은 이미 커밋됨).
+@Data
+public class MemberArchiveResultDto {
+    private int chunks;
+    private long archived;
+    // 다음 청크는 이 id 다음부터. 실패 후 다시 돌리면 처음부터 다시 훑어도 이미 옮긴 행은 member에 없다.
+    private Long lastMemberId;
+    // 라이브 트래픽 때문에 기다린 시간 + 듀티 사이클 휴식
+    private long throttledMillis;
+    private long millis;
+    private String error;
+}
@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// 변경 피드 응답. cursor를 다음 요청의 since로 넘기면 이어서 받을 수 있다.
+@Data
+@AllArgsConstructor
+public class MemberChangesDto {
+    private long since;
+    private long cursor;
+    private boolean hasMore;
+    private List<Long> inserted;
+    private List<Long> updated;
+    private List<Long> deleted;
+    private List<MemberTeamDto> members; // inserted + updated 회원, 변경 순서대로
+}
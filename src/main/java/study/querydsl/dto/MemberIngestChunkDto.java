@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 대량 등록 청크 하나의 결과. 청크마다 따로 커밋되므로 실패해도 다른 청크에는 영향 없음.
+@Data
+public class MemberIngestChunkDto {
+    private int chunk;
+    private long firstRow; // 입력 전체 기준 0부터
+    private int rows;
+    private int inserted;
+    private boolean committed;
+    private String error; // 청크 전체가 롤백된 경우
+    private Map<Long, String> rejected = new LinkedHashMap<>(); // 행 번호 -> 이유 (그 행만 건너뜀)
+
+    public MemberIngestChunkDto(int chunk, long firstRow) {
+        this.chunk = chunk;
+        this.firstRow = firstRow;
+    }
+}
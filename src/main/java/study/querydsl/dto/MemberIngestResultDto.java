@@ -0,0 +1,16 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 대량 등록 응답. error가 있으면 그 지점에서 입력 읽기를 멈춘 것 (앞 청크들은 이미 커밋됨).
+@Data
+public class MemberIngestResultDto {
+    private long received;
+    private long inserted;
+    private long rejected;
+    private List<MemberIngestChunkDto> chunks = new ArrayList<>();
+    private String error;
+}
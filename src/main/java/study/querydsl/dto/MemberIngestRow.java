@@ -0,0 +1,13 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 대량 등록 입력 한 줄. teamName은 없어도 됨.
+@Data
+@NoArgsConstructor
+public class MemberIngestRow {
+    private String username;
+    private Integer age;
+    private String teamName;
+}
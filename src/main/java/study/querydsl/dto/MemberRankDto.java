@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class MemberRankDto {
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+    private long rank; // 팀 안에서 나이 많은 순 (1부터)
+
+    @QueryProjection
+    public MemberRankDto(Long memberId, String username, int age, Long teamId, String teamName, long rank) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.rank = rank;
+    }
+}
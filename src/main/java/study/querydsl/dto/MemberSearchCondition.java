@@ -7,7 +7,11 @@ public class MemberSearchCondition {
     // 회원명, 팀명, 나이(ageGod, ageLoe)
 
     private String username;
+    // true면 username을 대소문자/악센트 무시로 비교 (username_normalized 인덱스 사용)
+    private boolean usernameIgnoreCase;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+    // true면 보관된 회원(member_archive)도 같이 검색 (member id 순으로 합침). 묶음 검색은 무시.
+    private boolean includeArchived;
 }
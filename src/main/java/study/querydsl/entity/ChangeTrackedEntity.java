@@ -0,0 +1,30 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.Getter;
+import study.querydsl.change.ChangeVersions;
+
+// 변경 피드용 버전 컬럼. 생성/수정 시 엔티티 콜백으로 자동 갱신.
+@MappedSuperclass
+@Getter
+public abstract class ChangeTrackedEntity {
+    @Column(name = "created_version", nullable = false, updatable = false)
+    private long createdVersion;
+
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+
+    @PrePersist
+    protected void onCreateVersion() {
+        this.createdVersion = ChangeVersions.next();
+        this.changeVersion = this.createdVersion;
+    }
+
+    @PreUpdate
+    protected void onUpdateVersion() {
+        this.changeVersion = ChangeVersions.next();
+    }
+}
@@ -2,16 +2,28 @@ package study.querydsl.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.ManagedEntity;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_change_version", columnList = "change_version"),
+        @Index(name = "idx_member_username_normalized", columnList = "username_normalized")})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of ={"id","username","age"})
-public class Member {
+public class Member extends ChangeTrackedEntity {
+    // 바이트코드 향상된 클래스인지 (build.gradle에서 향상은 association management와 같이 켜고 끈다)
+    private static final boolean ASSOCIATION_MANAGED = ManagedEntity.class.isAssignableFrom(Member.class);
+
     @Id @GeneratedValue
     @Column(name = "member_id")
     private Long id;
     private String username;
+    // 대소문자/악센트 무시 검색용. username이 바뀔 때마다 같이 갱신 (Usernames.normalize)
+    @Column(name = "username_normalized")
+    @Setter(AccessLevel.NONE)
+    private String usernameNormalized;
     private int age;
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn
@@ -23,14 +35,46 @@ public class Member {
         this(username,0);
     }
     public Member(String username, int age, Team team) {
-        this.username = username;
+        setUsername(username);
         this.age = age;
-        if(team!=null){
+        if (team != null) {
             changeTeam(team);
         }
     }
+    public void setTeam(Team team) {
+        changeTeam(team);
+    }
+
+    // 바이트코드 향상(association management)이 꺼져 있어도(-PnoEnhancement, IDE 실행) team.members를 맞춘다.
+    // 향상된 클래스에서는 필드 쓰기(this.team = team) 때 Hibernate가 이미 넣고 빼므로 더 하지 않는다.
+    // 직접 맞출 때 같은 팀이면 이미 들어 있고, 다른 팀이면 새 팀 목록에는 없으므로 contains(목록 전체 훑기) 없이 add.
+    // 초기화 전인 프록시/컬렉션은 건드리지 않음 (건드리면 팀 전체 멤버를 읽어옴)
     private void changeTeam(Team team) {
+        Team before = this.team;
         this.team = team;
-        team.getMembers().add(this);
+        if (ASSOCIATION_MANAGED || before == team) {
+            return;
+        }
+        if (before != null && isLoaded(before)) {
+            before.getMembers().remove(this);
+        }
+        if (team != null && isLoaded(team)) {
+            team.getMembers().add(this);
+        }
+    }
+
+    private static boolean isLoaded(Team team) {
+        return Hibernate.isInitialized(team) && Hibernate.isInitialized(team.getMembers());
+    }
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameNormalized = Usernames.normalize(username);
+    }
+
+    // 필드를 직접 바꾸는 경로가 생겨도 저장 시점에 맞춰짐
+    @PrePersist
+    @PreUpdate
+    protected void onUsernameChange() {
+        this.usernameNormalized = Usernames.normalize(username);
     }
 }
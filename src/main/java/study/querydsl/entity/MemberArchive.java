@@ -0,0 +1,41 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+// member에서 옮겨 둔 비활성 회원 (id 그대로). 쓰기는 MemberArchiver가 SQL로 직접 한다.
+// 팀은 나중에 지워질 수 있으므로 FK 없이 id만 둔다.
+@Entity
+@Immutable
+@Table(name = "member_archive", indexes = {
+        @Index(name = "idx_member_archive_username", columnList = "username"),
+        @Index(name = "idx_member_archive_username_normalized", columnList = "username_normalized"),
+        @Index(name = "idx_member_archive_team_id", columnList = "team_id")})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberArchive {
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String username;
+
+    @Column(name = "username_normalized")
+    private String usernameNormalized;
+
+    private int age;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    // 옮긴 시점의 ChangeVersions 값 (member_tombstone은 그 뒤 삭제 트리거가 찍으므로 이보다 큼)
+    @Column(name = "archived_version", nullable = false)
+    private long archivedVersion;
+}
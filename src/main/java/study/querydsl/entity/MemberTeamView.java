@@ -0,0 +1,42 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+// member + team을 펼쳐 둔 읽기 전용 테이블 (조회 시 조인 없음).
+// 쓰기는 MemberTeamReadModel이 member/team 변경에 맞춰 SQL로 직접 한다.
+@Entity
+@Immutable
+@Table(name = "member_team", indexes = {
+        @Index(name = "idx_member_team_username", columnList = "username"),
+        @Index(name = "idx_member_team_username_normalized", columnList = "username_normalized"),
+        @Index(name = "idx_member_team_team_name_age", columnList = "team_name, age"),
+        @Index(name = "idx_member_team_team_id", columnList = "team_id"),
+        @Index(name = "idx_member_team_age", columnList = "age")})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberTeamView {
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String username;
+
+    @Column(name = "username_normalized")
+    private String usernameNormalized;
+
+    private int age;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "team_name")
+    private String teamName;
+}
@@ -0,0 +1,24 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+// 삭제된 회원 기록. 변경 피드에서 deleted id를 내려주기 위해 남겨둔다.
+@Entity
+@Table(name = "member_tombstone", indexes = @Index(name = "idx_member_tombstone_change_version", columnList = "change_version"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberTombstone {
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+}
@@ -3,17 +3,20 @@ package study.querydsl.entity;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 import lombok.*;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_change_version", columnList = "change_version"))
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of ={"id","name"})
-public class Team {
+public class Team extends ChangeTrackedEntity {
     @Id @GeneratedValue
     private Long id;
     private String name;
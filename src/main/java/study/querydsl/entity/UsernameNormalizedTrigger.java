@@ -0,0 +1,41 @@
+package study.querydsl.entity;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * member.username_normalized를 DB에서 맞추는 H2 행 트리거 (import.sql에서 스키마 생성 직후에 건다).
+ * 엔티티 콜백과 Usernames.set을 거치지 않는 쓰기(그냥 set(member.username, ..)한 벌크 update, 네이티브 쿼리, JDBC insert)도
+ * 정규화 값이 같이 바뀐다. 엔티티/Usernames.set이 넣은 값과 결과는 같다.
+ */
+public class UsernameNormalizedTrigger implements Trigger {
+    private int username = -1;
+    private int usernameNormalized = -1;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName,
+                     boolean before, int type) throws SQLException {
+        try (ResultSet columns = conn.getMetaData().getColumns(null, schemaName, tableName, null)) {
+            while (columns.next()) {
+                int index = columns.getInt("ORDINAL_POSITION") - 1;
+                switch (columns.getString("COLUMN_NAME").toLowerCase()) {
+                    case "username" -> username = index;
+                    case "username_normalized" -> usernameNormalized = index;
+                    default -> {
+                    }
+                }
+            }
+        }
+        if (username < 0 || usernameNormalized < 0) {
+            throw new SQLException("username/username_normalized not found on " + schemaName + "." + tableName);
+        }
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) {
+        newRow[usernameNormalized] = Usernames.normalize((String) newRow[username]);
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.entity;
+
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 대소문자/악센트 무시 검색용 username 정규화.
+ * username_normalized 컬럼에 저장해두고 인덱스를 타게 한다. (lower(username) 조건은 인덱스를 못 씀)
+ */
+public final class Usernames {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private Usernames() {
+    }
+
+    // NFD로 분해 후 결합 문자(악센트) 제거, NFC로 다시 합치고 소문자. "Émile" -> "emile"
+    // 한글 음절은 NFD에서 자모 2~3자로 풀리므로 다시 합쳐야 길이가 그대로 (안 합치면 varchar(255)를 넘을 수 있음)
+    public static String normalize(String username) {
+        if (username == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(username, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return Normalizer.normalize(stripped, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    // 벌크 update는 엔티티 콜백을 타지 않으므로 username을 바꿀 때 정규화 컬럼도 같이 set.
+    // (빠뜨려도 DB 트리거 UsernameNormalizedTrigger가 맞추지만 H2 밖에서도 맞도록 명시)
+    // (member_team 읽기 모델은 MemberTeamReadModel이 커밋 직전에 맞춤)
+    public static JPAUpdateClause set(JPAUpdateClause update, QMember member, String username) {
+        return update
+                .set(member.username, username)
+                .set(member.usernameNormalized, normalize(username));
+    }
+}
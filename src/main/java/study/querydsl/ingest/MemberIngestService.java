@@ -0,0 +1,163 @@
+package study.querydsl.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberIngestChunkDto;
+import study.querydsl.dto.MemberIngestResultDto;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 대량 등록. JSON 배열이나 NDJSON 본문을 스트리밍으로 한 건씩 읽고 N건마다 따로 커밋한다.
+ * - 본문 전체를 메모리에 올리지 않는다 (청크 하나만).
+ * - 팀 이름 -> id는 요청 안에서 캐시해서 이름당 한 번만 조회.
+ * - insert는 hibernate.jdbc.batch_size로 묶이고 청크마다 flush/clear.
+ * - 잘못된 행은 그 행만 건너뛰고, 청크 커밋이 실패하면 그 청크만 롤백.
+ */
+@Service
+public class MemberIngestService {
+    private final ObjectMapper objectMapper;
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public MemberIngestService(ObjectMapper objectMapper,
+                               EntityManager em,
+                               JPAQueryFactory queryFactory,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${querydsl.ingest.chunk-size:1000}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public MemberIngestResultDto ingest(InputStream body) {
+        MemberIngestResultDto result = new MemberIngestResultDto();
+        Map<String, Optional<Long>> teamIds = new HashMap<>();
+        List<Pending> buffer = new ArrayList<>(chunkSize);
+        long rowNo = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            // 배열이면 ']'까지, NDJSON이면 루트 값이 더 없을 때까지
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode node = objectMapper.readTree(parser);
+                buffer.add(toPending(rowNo++, node));
+                if (buffer.size() == chunkSize) {
+                    writeChunk(buffer, teamIds, result);
+                    buffer.clear();
+                }
+                token = parser.nextToken();
+            }
+        } catch (IOException e) {
+            result.setError("row " + rowNo + ": " + e.getMessage());
+        }
+        if (!buffer.isEmpty()) {
+            writeChunk(buffer, teamIds, result);
+        }
+        result.setReceived(rowNo);
+        return result;
+    }
+
+    private Pending toPending(long rowNo, JsonNode node) {
+        if (!node.isObject()) {
+            return new Pending(rowNo, null, "not an object");
+        }
+        try {
+            MemberIngestRow row = objectMapper.treeToValue(node, MemberIngestRow.class);
+            if (!StringUtils.hasText(row.getUsername())) {
+                return new Pending(rowNo, null, "username is required");
+            }
+            if (row.getAge() == null || row.getAge() < 0) {
+                return new Pending(rowNo, null, "age must be >= 0");
+            }
+            return new Pending(rowNo, row, null);
+        } catch (JsonProcessingException e) {
+            return new Pending(rowNo, null, e.getOriginalMessage());
+        }
+    }
+
+    private void writeChunk(List<Pending> rows, Map<String, Optional<Long>> teamIds, MemberIngestResultDto result) {
+        MemberIngestChunkDto chunk = new MemberIngestChunkDto(result.getChunks().size(), rows.get(0).rowNo());
+        chunk.setRows(rows.size());
+        try {
+            int inserted = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Pending pending : rows) {
+                    if (pending.error() != null) {
+                        chunk.getRejected().put(pending.rowNo(), pending.error());
+                        continue;
+                    }
+                    MemberIngestRow row = pending.row();
+                    Team selectedTeam = null;
+                    if (StringUtils.hasText(row.getTeamName())) {
+                        Optional<Long> teamId = teamIds.computeIfAbsent(row.getTeamName(), this::findTeamId);
+                        if (teamId.isEmpty()) {
+                            chunk.getRejected().put(pending.rowNo(), "unknown team: " + row.getTeamName());
+                            continue;
+                        }
+                        selectedTeam = em.getReference(Team.class, teamId.get());
+                    }
+                    // 참조로 얻은 팀은 초기화 전이라 association management도 team.members를 읽지 않는다
+                    Member member = new Member(row.getUsername(), row.getAge());
+                    member.setTeam(selectedTeam);
+                    em.persist(member);
+                    count++;
+                }
+                em.flush();
+                em.clear();
+                return count;
+            });
+            chunk.setInserted(inserted);
+            chunk.setCommitted(true);
+        } catch (RuntimeException e) {
+            // 이 청크만 롤백. 캐시된 팀이 원인일 수 있어 비운다.
+            teamIds.clear();
+            chunk.setError(e.getMessage());
+        }
+        result.getChunks().add(chunk);
+        result.setInserted(result.getInserted() + chunk.getInserted());
+        result.setRejected(result.getRejected() + (chunk.isCommitted() ? chunk.getRejected().size() : chunk.getRows()));
+    }
+
+    private Optional<Long> findTeamId(String teamName) {
+        return Optional.ofNullable(queryFactory
+                .select(team.id)
+                .from(team)
+                .where(team.name.eq(teamName))
+                .orderBy(team.id.asc())
+                .fetchFirst());
+    }
+
+    private record Pending(long rowNo, MemberIngestRow row, String error) {
+    }
+}
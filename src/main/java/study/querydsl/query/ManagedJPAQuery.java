@@ -0,0 +1,66 @@
+package study.querydsl.query;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.List;
+
+public class ManagedJPAQuery<T> extends JPAQuery<T> {
+    private final SlowQueryLog slowQueryLog;
+    private JPQLSerializer lastSerializer; // 실행 후 reset()되므로 로그용으로 직렬화 결과를 잡아둠
+    private String lastJpql; // 호출 위치 키 (Hibernate에 넘긴 문자열 그대로, 복사 없음)
+
+    public ManagedJPAQuery(EntityManager em, SlowQueryLog slowQueryLog) {
+        super(em);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public List<T> fetch() {
+        return slowQueryLog.observe("fetch", super::fetch, List::size, () -> lastSerializer, () -> lastJpql);
+    }
+
+    @Override
+    public T fetchOne() throws NonUniqueResultException {
+        return slowQueryLog.observe("fetchOne", super::fetchOne, result -> result == null ? 0 : 1,
+                () -> lastSerializer, () -> lastJpql);
+    }
+
+    // querydsl 5에서 deprecated (count 쿼리는 select(count())로). 아직 부르는 곳이 있을 수 있어서 같은 관찰만 붙여 둔다.
+    @Deprecated
+    @Override
+    public long fetchCount() {
+        return slowQueryLog.observe("count", super::fetchCount, count -> 1, () -> lastSerializer, () -> lastJpql);
+    }
+
+    @Deprecated
+    @Override
+    public QueryResults<T> fetchResults() {
+        return slowQueryLog.observe("fetchResults", super::fetchResults,
+                results -> results.getResults().size(), () -> lastSerializer, () -> lastJpql);
+    }
+
+    @Override
+    protected JPQLSerializer serialize(boolean forCountRow, boolean validate) {
+        JPQLSerializer serializer = super.serialize(forCountRow, validate);
+        lastSerializer = serializer;
+        return serializer;
+    }
+
+    // fetch, fetchOne, fetchCount, fetchResults 모두 여기서 jakarta Query를 만든다.
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        Query query = super.createQuery(modifiers, forCount);
+        lastJpql = query.unwrap(org.hibernate.query.Query.class).getQueryString();
+        QueryDeadline deadline = QueryDeadline.current();
+        if (deadline != null) {
+            deadline.applyTo(query);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+
+/**
+ * select/selectFrom/from 모두 query()를 거쳐 만들어지므로 여기서 {@link ManagedJPAQuery}를 돌려주면
+ * 이 팩토리로 실행되는 모든 쿼리(컨텐츠, 카운트)에 공통 처리를 걸 수 있다.
+ */
+public class ManagedJPAQueryFactory extends JPAQueryFactory {
+    private final EntityManager em;
+    private final SlowQueryLog slowQueryLog;
+
+    public ManagedJPAQueryFactory(EntityManager em, SlowQueryLog slowQueryLog) {
+        super(em);
+        this.em = em;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new ManagedJPAQuery<Void>(em, slowQueryLog);
+    }
+}
@@ -0,0 +1,123 @@
+package study.querydsl.query;
+
+import jakarta.persistence.Query;
+import jakarta.persistence.QueryTimeoutException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.query.spi.QueryImplementor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 요청 단위 쿼리 마감 시각. 요청 스레드에 묶어두고 그 요청이 실행하는 모든 쿼리에 남은 시간을 타임아웃 힌트로 건다.
+ * 마감이 지나면 {@link #cancel()}로 실행 중인 statement를 다른 스레드에서 취소할 수 있다.
+ */
+public final class QueryDeadline {
+    private static final ThreadLocal<QueryDeadline> CURRENT = new ThreadLocal<>();
+    private static final String TIMEOUT_HINT = "jakarta.persistence.query.timeout";
+
+    private final long deadlineNanos;
+    private volatile SharedSessionContractImplementor session;
+    private volatile boolean cancelled;
+    private volatile boolean queried;
+
+    private QueryDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static QueryDeadline start(long timeoutMillis) {
+        QueryDeadline deadline = new QueryDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    public static QueryDeadline current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    // 작업 스레드(샤드 조회 등)에서도 요청 스레드의 마감을 쓰도록 현재 마감을 묶어서 실행한다
+    public static <T> Supplier<T> inheriting(Supplier<T> work) {
+        return bound(CURRENT.get(), work);
+    }
+
+    // 마감 시각만 물려받는다. 요청이 끝난 뒤에도 돌 수 있는 작업(prefetch)이 요청의 취소 대상/DB 사용 표시를 덮어쓰지 않게.
+    public static <T> Supplier<T> inheritingDeadlineOnly(Supplier<T> work) {
+        QueryDeadline deadline = CURRENT.get();
+        return bound(deadline != null ? new QueryDeadline(deadline.deadlineNanos) : null, work);
+    }
+
+    private static <T> Supplier<T> bound(QueryDeadline deadline, Supplier<T> work) {
+        if (deadline == null) {
+            return work;
+        }
+        return () -> {
+            QueryDeadline previous = CURRENT.get();
+            CURRENT.set(deadline);
+            try {
+                return work.get();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    // 이 요청이 DB에 SQL을 보냈다 (작업 스레드에서 불러도 같은 마감 객체에 남는다)
+    public static void markQueried() {
+        QueryDeadline deadline = CURRENT.get();
+        if (deadline != null && !deadline.queried) {
+            deadline.queried = true;
+        }
+    }
+
+    public boolean hasQueried() {
+        return queried;
+    }
+
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    // JDBC 타임아웃은 초 단위라 올림. 1초 미만 정밀도는 cancel()이 맡는다.
+    public int timeoutSeconds() {
+        long remaining = remainingMillis();
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("query deadline exceeded before execution");
+        }
+        return (int) Math.max(1, (remaining + 999) / 1000);
+    }
+
+    // 쿼리가 묶인 실제 세션을 잡는다. 스프링 공유 EntityManager에서 unwrap한 Session은 부르는 스레드의 세션으로
+    // 위임되는 프록시라 watchdog/AsyncListener 스레드에서 cancelQuery를 부르면 실행 중인 statement에 닿지 않는다.
+    void applyTo(Query query) {
+        int seconds = timeoutSeconds();
+        session = query.unwrap(QueryImplementor.class).getSession();
+        query.setHint(TIMEOUT_HINT, seconds * 1000);
+    }
+
+    // 다른 스레드에서 호출 가능. Session.cancelQuery와 같은 일 - 마지막 statement에 JDBC cancel.
+    public boolean cancel() {
+        SharedSessionContractImplementor current = session;
+        if (current == null) {
+            return false;
+        }
+        try {
+            current.getJdbcCoordinator().cancelLastQuery();
+        } catch (RuntimeException e) {
+            return false; // 이미 끝났거나 닫힌 세션
+        }
+        cancelled = true;
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,136 @@
+package study.querydsl.query;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 배포 직후 느린 구간(Hibernate 쿼리 플랜 캐시, Querydsl 직렬화, JIT)을 트래픽 전에 미리 데운다.
+ * ApplicationRunner는 ApplicationReadyEvent 전에 끝나므로 readiness(ACCEPTING_TRAFFIC)는 이게 끝난 뒤에 보고된다.
+ * 모든 조건 shape x 페이징 변형을 실제 DB에 조회만 하고, 트랜잭션은 롤백한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.warmup.enabled", havingValue = "true")
+public class QueryWarmup implements ApplicationRunner {
+    private static final List<Pageable> PAGES = List.of(PageRequest.of(0, 20), PageRequest.of(3, 20));
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final MemberQueryRepository memberQueryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rounds;
+    private final long maxMillis;
+
+    public QueryWarmup(MemberJpaRepository memberJpaRepository,
+                       MemberRepository memberRepository,
+                       MemberQueryRepository memberQueryRepository,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${querydsl.warmup.rounds:50}") int rounds,
+                       @Value("${querydsl.warmup.max-ms:30000}") long maxMillis) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.memberRepository = memberRepository;
+        this.memberQueryRepository = memberQueryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.rounds = rounds;
+        this.maxMillis = maxMillis;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    public WarmupReport warmUp() {
+        List<MemberSearchCondition> conditions = allShapes();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        long firstRoundNanos = 0;
+        long lastRoundNanos = 0;
+        int completed = 0;
+        int callsPerRound = 0;
+        while (completed < rounds && System.nanoTime() < deadline) {
+            long roundStart = System.nanoTime();
+            callsPerRound = transactionTemplate.execute(status -> {
+                status.setRollbackOnly(); // 부수효과 없음
+                return runAll(conditions);
+            });
+            lastRoundNanos = System.nanoTime() - roundStart;
+            if (completed == 0) {
+                firstRoundNanos = lastRoundNanos;
+            }
+            completed++;
+        }
+        WarmupReport report = new WarmupReport(completed, callsPerRound,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                perCallMicros(firstRoundNanos, callsPerRound),
+                perCallMicros(lastRoundNanos, callsPerRound));
+        log.info("query warm-up done in {} ms: {} rounds x {} calls, avg {} us/call first round -> {} us/call last round",
+                report.tookMillis(), report.rounds(), report.callsPerRound(),
+                report.firstRoundMicrosPerCall(), report.lastRoundMicrosPerCall());
+        return report;
+    }
+
+    // 호출 경로별로 /v1(search), /v2(searchPageSimple), /v3(searchPageComplex), 그 밖의 페이징 변형과 묶음 검색
+    private int runAll(List<MemberSearchCondition> conditions) {
+        int calls = 0;
+        for (MemberSearchCondition condition : conditions) {
+            memberJpaRepository.search(condition);
+            memberRepository.search(condition);
+            calls += 2;
+            for (Pageable pageable : PAGES) {
+                memberRepository.searchPageSimple(condition, pageable);
+                memberRepository.searchPageComplex(condition, pageable);
+                memberRepository.searchPageComplex2(condition, pageable);
+                memberRepository.searchPageWindow(condition, pageable);
+                calls += 4;
+            }
+        }
+        memberQueryRepository.searchBatch(conditions);
+        return calls + 1;
+    }
+
+    // username, teamName, ageGoe, ageLoe 채움 여부 16가지 + username이 있을 때 대소문자 무시 여부
+    static List<MemberSearchCondition> allShapes() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (int shape = 0; shape < 32; shape++) {
+            boolean username = (shape & 1) != 0;
+            boolean ignoreCase = (shape & 16) != 0;
+            if (ignoreCase && !username) {
+                continue;
+            }
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername(username ? "member1" : null);
+            condition.setUsernameIgnoreCase(ignoreCase);
+            condition.setTeamName((shape & 2) != 0 ? "teamA" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 10 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 40 : null);
+            conditions.add(condition);
+        }
+        return conditions;
+    }
+
+    private static long perCallMicros(long nanos, int calls) {
+        return calls == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(nanos) / calls;
+    }
+
+    public record WarmupReport(int rounds, int callsPerRound, long tookMillis,
+                               long firstRoundMicrosPerCall, long lastRoundMicrosPerCall) {
+    }
+}
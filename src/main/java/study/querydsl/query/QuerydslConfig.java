@@ -0,0 +1,49 @@
+package study.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class QuerydslConfig {
+
+    // 리포지토리마다 new JPAQueryFactory(em) 하지 않고 하나를 빈으로 공유.
+    // em은 트랜잭션 범위 프록시라 동시성 문제 없음.
+    @Bean
+    public JPAQueryFactory jpaQueryFactory(EntityManager em, SlowQueryLog slowQueryLog) {
+        return new ManagedJPAQueryFactory(em, slowQueryLog);
+    }
+
+    @Bean
+    public SlowQueryStatementInspector slowQueryStatementInspector(SlowQueryLog slowQueryLog) {
+        return new SlowQueryStatementInspector(slowQueryLog);
+    }
+
+    // 요청이 실제로 DB까지 갔는지 표시. 입장 제어 리미터는 DB를 탄 요청의 지연만 기준으로 쓴다 (304, 프리페치 적중 제외).
+    @Bean
+    public StatementInspector queryDeadlineStatementInspector() {
+        return sql -> {
+            QueryDeadline.markQueried();
+            return sql;
+        };
+    }
+
+    // Hibernate는 StatementInspector를 하나만 받으므로 등록된 것들을 차례로 적용.
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(List<StatementInspector> inspectors) {
+        StatementInspector composite = sql -> {
+            String result = sql;
+            for (StatementInspector inspector : inspectors) {
+                result = inspector.inspect(result);
+            }
+            return result;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, composite);
+    }
+}
@@ -0,0 +1,121 @@
+package study.querydsl.query;
+
+import com.querydsl.jpa.JPQLSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * JPAQueryFactory로 실행되는 모든 쿼리의 실행 시간을 잰다.
+ * - 호출한 리포지토리 메서드(origin) + 종류(fetch/count)별로 히스토그램(member.query)을 남기고
+ * - 임계값을 넘은 쿼리만 JPQL, 실제 SQL(둘 다 바인딩 자리표시자 그대로), 행 수와 함께 한 줄로 WARN.
+ *   바인딩 값은 개인정보(username 등)가 들어 있으므로 DEBUG에서만 따로 남긴다.
+ * JPQL/SQL 문자열은 이미 만들어진 것을 참조만 하다가 느린 쿼리일 때만 꺼내 쓰므로 평소 비용은 타이머 기록 정도.
+ * origin은 호출 위치마다 한 번만 스택을 훑어 구한다. 호출 위치는 그 위치가 만드는 쿼리 문자열(JPQL)로 알아본다
+ * (같은 JPQL을 여러 메서드가 실행하면 처음 본 메서드 이름으로 묶임).
+ */
+@Slf4j
+@Component
+public class SlowQueryLog {
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    private static final ThreadLocal<List<String>> CAPTURED_SQL = new ThreadLocal<>();
+    // 동적으로 만든 JPQL이 끝없이 늘어나도 메모리는 이만큼만. 넘으면 캐시 없이 매번 훑는다.
+    private static final int MAX_CALL_SITES = 1000;
+
+    private final MeterRegistry meterRegistry;
+    private final long thresholdNanos;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, String> origins = new ConcurrentHashMap<>();
+
+    public SlowQueryLog(MeterRegistry meterRegistry,
+                        @Value("${querydsl.slow-query.threshold-ms:200}") long thresholdMillis) {
+        this.meterRegistry = meterRegistry;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    // callSite: 호출 위치를 알아볼 키 (실행 후에 읽음). null이면 캐시 없이 스택을 훑는다.
+    public <R> R observe(String kind, Supplier<R> execution, ToLongFunction<R> rowCount, Supplier<JPQLSerializer> jpql,
+                         Supplier<String> callSite) {
+        List<String> sql = CAPTURED_SQL.get();
+        if (sql == null) {
+            sql = new ArrayList<>(4);
+            CAPTURED_SQL.set(sql);
+        }
+        sql.clear();
+        long start = System.nanoTime();
+        R result = null;
+        boolean failed = true;
+        try {
+            result = execution.get();
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            String origin = origin(callSite.get());
+            timers.computeIfAbsent(origin + "|" + kind, key -> Timer.builder("member.query")
+                            .tag("origin", origin)
+                            .tag("kind", kind)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry))
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            if (elapsed >= thresholdNanos) {
+                JPQLSerializer serializer = jpql.get();
+                log.warn("slow query origin={} kind={} elapsedMs={} rows={} failed={} jpql=\"{}\" sql={}",
+                        origin, kind, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                        failed ? -1 : rowCount.applyAsLong(result), failed,
+                        serializer != null ? serializer.toString().replace('\n', ' ') : "",
+                        List.copyOf(sql));
+                if (log.isDebugEnabled() && serializer != null) {
+                    log.debug("slow query params origin={} kind={} params={}", origin, kind, serializer.getConstants());
+                }
+            }
+            sql.clear();
+        }
+    }
+
+    // Hibernate(또는 샤드의 querydsl-sql)가 실제로 보내는 SQL. 쿼리 관찰 중인 스레드에서만 모은다.
+    public void captureSql(String sql) {
+        List<String> captured = CAPTURED_SQL.get();
+        if (captured != null && captured.size() < 8) {
+            captured.add(sql);
+        }
+    }
+
+    private String origin(String callSite) {
+        if (callSite == null) {
+            return walkOrigin();
+        }
+        String origin = origins.get(callSite);
+        if (origin == null) {
+            origin = walkOrigin();
+            if (origins.size() < MAX_CALL_SITES) {
+                origins.putIfAbsent(callSite, origin);
+            }
+        }
+        return origin;
+    }
+
+    // querydsl 내부와 이 패키지를 건너뛴 첫 호출자 = 쿼리를 만든 리포지토리 메서드
+    private static String walkOrigin() {
+        Optional<StackWalker.StackFrame> caller = STACK_WALKER.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().startsWith("com.querydsl.")
+                        && !frame.getClassName().startsWith("study.querydsl.query."))
+                .findFirst());
+        return caller.map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName()).orElse("unknown");
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,16 @@
+package study.querydsl.query;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// 느린 쿼리 로그에 실제 SQL을 붙이기 위해 Hibernate가 준비하는 SQL을 넘겨준다.
+@RequiredArgsConstructor
+public class SlowQueryStatementInspector implements StatementInspector {
+    private final SlowQueryLog slowQueryLog;
+
+    @Override
+    public String inspect(String sql) {
+        slowQueryLog.captureSql(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * id 목록으로 대량 조회 (findAllById 대체).
+ * - IN 목록을 고정 크기로 자르고 마지막 조각은 2의 거듭제곱 길이로 패딩(마지막 id 반복)해서
+ *   쿼리 모양이 log2(chunkSize)개 정도만 나오게 한다. 플랜 캐시, 파라미터 개수 제한 대비.
+ *   (hibernate.query.in_clause_parameter_padding도 같은 패딩이지만 모든 IN 쿼리에 걸리는 전역 설정이고,
+ *   Session.byMultipleIds().multiLoad는 영속성 컨텍스트 확인/순서는 같지만 조각 크기·패딩을 여기처럼 고정할 수 없다)
+ * - 이미 영속성 컨텍스트에 있는 id는 DB에 묻지 않는다.
+ * - 결과는 입력 순서대로 (없는 id는 빠지고 중복 id는 중복 그대로).
+ * - 조각은 호출자의 EntityManager로 차례대로 조회한다. 결과는 영속 상태라 지연 로딩이 되고, 호출자 트랜잭션의
+ *   아직 커밋 안 된 쓰기도 보이며, 요청 마감(QueryDeadline)도 걸린다. (조각별 별도 EntityManager로 동시에 읽던
+ *   parallel 모드는 이 세 가지가 모두 깨져서 뺐다)
+ */
+@Repository
+@Transactional(readOnly = true)
+public class BulkIdLoader {
+    static final int MIN_PADDED_SIZE = 8;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final int chunkSize;
+
+    public BulkIdLoader(EntityManager em,
+                        JPAQueryFactory queryFactory,
+                        @Value("${querydsl.bulk-load.chunk-size:256}") int chunkSize) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.chunkSize = Math.max(MIN_PADDED_SIZE, Integer.highestOneBit(chunkSize));
+    }
+
+    public List<Member> findMembers(List<Long> ids) {
+        return load(Member.class, member, member.id, Member::getId, ids);
+    }
+
+    public List<Team> findTeams(List<Long> ids) {
+        return load(Team.class, team, team.id, Team::getId, ids);
+    }
+
+    private <T> List<T> load(Class<T> type, EntityPathBase<T> root, NumberPath<Long> idPath,
+                             Function<T, Long> idOf, List<Long> ids) {
+        Map<Long, T> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(type);
+        PersistenceContext context = session.getPersistenceContextInternal();
+
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (id == null) {
+                continue;
+            }
+            Object managed = context.getEntity(session.generateEntityKey(id, persister));
+            if (managed == null) {
+                missing.add(id);
+                continue;
+            }
+            EntityEntry entry = context.getEntry(managed);
+            if (entry == null || (entry.getStatus() != Status.DELETED && entry.getStatus() != Status.GONE)) {
+                found.put(id, type.cast(managed));
+            }
+        }
+
+        for (List<Long> chunk : paddedChunks(missing, chunkSize)) {
+            queryFactory.selectFrom(root).where(idPath.in(chunk)).fetch()
+                    .forEach(entity -> found.put(idOf.apply(entity), entity));
+        }
+
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // chunkSize씩 자르고 마지막 조각은 2의 거듭제곱(최소 MIN_PADDED_SIZE) 길이가 되도록 마지막 id로 채움
+    static List<List<Long>> paddedChunks(List<Long> ids, int chunkSize) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = new ArrayList<>(ids.subList(from, Math.min(ids.size(), from + chunkSize)));
+            int padded = Math.max(MIN_PADDED_SIZE, Integer.highestOneBit(chunk.size() - 1) << 1);
+            padded = Math.min(padded, Math.max(chunkSize, chunk.size()));
+            Long last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < padded) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,145 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.change.DataVersion;
+import study.querydsl.dto.MemberAgeBucketDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 나이 구간 히스토그램. QuerydslBasicTest.basicCase처럼 행마다 CASE를 돌려받지 않고
+ * CASE(구간 번호)로 group by 해서 (팀, 구간)별 개수만 받는다 -> 결과 행 수는 팀 수 x 구간 수 이하.
+ * - 구간 경계는 SQL 리터럴로 넣는다. 파라미터로 넣으면 select와 group by의 CASE가 다른 식이 되어 DB가 거절.
+ * - 결과는 (데이터 버전, 경계, 팀)으로 캐시. member/team 쓰기가 커밋되면 버전이 바뀌어 다시 조회.
+ * - 회원이 있는 팀마다 모든 구간을 0 포함해서 돌려준다. 팀 없는 회원은 teamId null.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberAgeHistogramRepository {
+    public static final int MAX_BOUNDS = 50;
+
+    private final JPAQueryFactory queryFactory;
+    private final DataVersion dataVersion;
+    private final int maxEntries;
+    private final Map<String, List<MemberAgeBucketDto>> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+
+    public MemberAgeHistogramRepository(JPAQueryFactory queryFactory,
+                                        DataVersion dataVersion,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${querydsl.age-histogram.max-entries:256}") int maxEntries) {
+        this.queryFactory = queryFactory;
+        this.dataVersion = dataVersion;
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("member.age-histogram.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("member.age-histogram.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    // bounds: 오름차순 경계. [b0, b1, ..., bn-1] -> (~b0), [b0, b1), ..., [bn-1~) 총 n+1 구간
+    public List<MemberAgeBucketDto> histogram(List<Integer> bounds, String teamName) {
+        validate(bounds);
+        // 버전은 조회 전에 읽는다. 조회 중에 커밋된 쓰기는 다음 버전 키로 다시 조회됨.
+        String key = dataVersion.current() + "|" + bounds + "|" + teamName;
+        synchronized (cache) {
+            List<MemberAgeBucketDto> cached = cache.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        List<MemberAgeBucketDto> result = List.copyOf(query(bounds, teamName));
+        synchronized (cache) {
+            cache.put(key, result);
+            Iterator<String> eldest = cache.keySet().iterator();
+            while (cache.size() > maxEntries) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return result;
+    }
+
+    // 리포지토리 밖(컨트롤러)에서 먼저 검사할 때. 리포지토리를 거치면 예외가 InvalidDataAccessApiUsageException으로 바뀐다.
+    public static void validate(List<Integer> bounds) {
+        if (bounds.isEmpty() || bounds.size() > MAX_BOUNDS) {
+            throw new IllegalArgumentException("bounds must have 1.." + MAX_BOUNDS + " values: " + bounds);
+        }
+        for (int i = 0; i < bounds.size(); i++) {
+            if (bounds.get(i) == null || (i > 0 && bounds.get(i) <= bounds.get(i - 1))) {
+                throw new IllegalArgumentException("bounds must be strictly increasing: " + bounds);
+            }
+        }
+    }
+
+    private List<MemberAgeBucketDto> query(List<Integer> bounds, String teamName) {
+        NumberExpression<Integer> bucket = bucket(bounds);
+        List<Tuple> rows = queryFactory
+                .select(team.id, team.name, bucket, member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(teamNameEq(teamName))
+                .groupBy(team.id, team.name, bucket)
+                .fetch();
+
+        // 팀 id 순(팀 없음은 마지막), 팀마다 구간 전부
+        Map<Long, long[]> counts = new TreeMap<>(Comparator.nullsLast(Comparator.naturalOrder()));
+        Map<Long, String> names = new LinkedHashMap<>();
+        for (Tuple row : rows) {
+            Long teamId = row.get(team.id);
+            names.put(teamId, row.get(team.name));
+            counts.computeIfAbsent(teamId, id -> new long[bounds.size() + 1])[row.get(bucket)] += row.get(member.count());
+        }
+        List<MemberAgeBucketDto> result = new ArrayList<>(counts.size() * (bounds.size() + 1));
+        counts.forEach((teamId, teamCounts) -> {
+            for (int i = 0; i < teamCounts.length; i++) {
+                Integer from = i == 0 ? null : bounds.get(i - 1);
+                Integer to = i == bounds.size() ? null : bounds.get(i);
+                result.add(new MemberAgeBucketDto(teamId, names.get(teamId), from, to, teamCounts[i]));
+            }
+        });
+        return result;
+    }
+
+    // 구간 번호 CASE. 경계는 검증된 정수라 리터럴로.
+    private static NumberExpression<Integer> bucket(List<Integer> bounds) {
+        CaseBuilder.Cases<Integer, NumberExpression<Integer>> cases = null;
+        for (int i = 0; i < bounds.size(); i++) {
+            BooleanExpression below = member.age.lt(literal(bounds.get(i)));
+            cases = cases == null
+                    ? new CaseBuilder().when(below).then(literal(i))
+                    : cases.when(below).then(literal(i));
+        }
+        return Objects.requireNonNull(cases).otherwise(literal(bounds.size()));
+    }
+
+    private static NumberExpression<Integer> literal(int value) {
+        return Expressions.numberTemplate(Integer.class, Integer.toString(value));
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+}
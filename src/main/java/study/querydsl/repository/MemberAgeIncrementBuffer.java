@@ -0,0 +1,187 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.change.ChangeVersions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원별 age 증가분을 모아서 주기적으로 한 번에 반영 (쓰기 합치기).
+ * 같은 행에 대한 동시 update 경합 대신 LongAdder에 더해두고 flush 때
+ * "update member set age = age + :delta where member_id in (...)"를 delta 값별로 묶어 실행한다.
+ * - 반영 지연은 최대 flush 주기 (querydsl.age-buffer.flush-ms)
+ * - 종료 시 남은 증가분 flush
+ * - 아직 반영 안 된 증가분까지 포함한 값은 currentAge로 (flush와 겹치지 않게 읽음)
+ * - 없는(또는 아직 커밋 안 된) 회원 id의 증가분은 반영할 행이 없어 버려진다.
+ */
+@Slf4j
+@Component
+public class MemberAgeIncrementBuffer {
+    static final int MAX_IDS_PER_UPDATE = 256;
+
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledThreadPoolExecutor flusher;
+    private final Counter flushedRows;
+    // flush(꺼내기~커밋) 동안 currentAge가 DB와 버퍼를 어긋나게 읽지 않도록
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    public MemberAgeIncrementBuffer(JPAQueryFactory queryFactory,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${querydsl.age-buffer.flush-ms:200}") long flushMillis) {
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 호출자 트랜잭션과 상관없이 항상 따로 커밋
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushedRows = Counter.builder("member.age-buffer.flushed").register(meterRegistry);
+        Gauge.builder("member.age-buffer.pending", pending, Map::size).register(meterRegistry);
+        this.flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "member-age-buffer-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void increment(long memberId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        LongAdder adder = pending.computeIfAbsent(memberId, id -> new LongAdder());
+        adder.add(delta);
+        if (pending.get(memberId) != adder) {
+            // flush가 이 adder를 맵에서 뺀 뒤에 더했을 수 있음 -> 직접 비워서 살아있는 adder로 옮긴다
+            long orphaned = adder.sumThenReset();
+            if (orphaned != 0) {
+                increment(memberId, orphaned);
+            }
+        }
+    }
+
+    // 아직 DB에 반영되지 않은 증가분
+    public long pendingDelta(long memberId) {
+        LongAdder adder = pending.get(memberId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    // 이미 읽어둔 age에 대기 중인 증가분을 더한 값.
+    // flush 도중에는 꺼낸 증가분이 아직 커밋 전이라 빠질 수 있다. 정확한 값이 필요하면 currentAge.
+    public int ageOf(long memberId, int persistedAge) {
+        return Math.toIntExact(persistedAge + pendingDelta(memberId));
+    }
+
+    // DB 값 + 대기 중인 증가분. flush와 겹치지 않게 읽으므로 증가분이 빠지거나 두 번 더해지지 않는다.
+    public Optional<Integer> currentAge(long memberId) {
+        flushLock.readLock().lock();
+        try {
+            Integer persisted = queryFactory
+                    .select(member.age)
+                    .from(member)
+                    .where(member.id.eq(memberId))
+                    .fetchOne();
+            return Optional.ofNullable(persisted).map(age -> ageOf(memberId, age));
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 대기 중인 증가분을 DB에 반영하고 반영한 회원 수를 돌려준다.
+     * 실패하면 증가분을 다시 버퍼에 돌려놓는다.
+     */
+    public int flush() {
+        flushLock.writeLock().lock();
+        try {
+            Map<Long, Long> deltas = drain();
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(deltas));
+            } catch (RuntimeException e) {
+                deltas.forEach(this::increment);
+                throw e;
+            }
+            flushedRows.increment(deltas.size());
+            return deltas.size();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("member age buffer flush failed, will retry: {}", e.toString());
+        }
+    }
+
+    private Map<Long, Long> drain() {
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            Long memberId = entry.getKey();
+            LongAdder adder = entry.getValue();
+            long delta = adder.sumThenReset();
+            if (delta == 0 && pending.remove(memberId, adder)) {
+                // 지난 flush 이후 증가가 없던 id는 정리. 빼는 사이에 더해진 값은 여기서 한 번 더 회수
+                delta = adder.sumThenReset();
+            }
+            if (delta != 0) {
+                deltas.merge(memberId, delta, Long::sum);
+            }
+        }
+        return deltas;
+    }
+
+    // 같은 delta끼리 IN 목록으로 묶어서 update. 카운터성 증가는 delta 종류가 적어서 문장 수가 적다.
+    private void apply(Map<Long, Long> deltas) {
+        Map<Long, List<Long>> idsByDelta = new HashMap<>();
+        deltas.forEach((memberId, delta) -> idsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(memberId));
+        idsByDelta.forEach((delta, ids) -> {
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_UPDATE) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_UPDATE));
+                ChangeVersions.stamp(queryFactory.update(member), member.changeVersion)
+                        .set(member.age, member.age.add(Math.toIntExact(delta)))
+                        .where(member.id.in(chunk))
+                        .execute();
+            }
+        });
+        // 읽기 모델(member_team)은 MemberTeamReadModel이 벌크 update를 보고 커밋 직전에 맞춘다
+    }
+}
@@ -0,0 +1,162 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberChangesDto;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberTombstone.memberTombstone;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 변경 피드 조회. (since, upTo] 구간의 변경을 change_version 인덱스로 읽는다.
+ * 회원 변경, 소속 팀 변경(팀명 변경 등), 삭제 세 흐름을 각각 limit 만큼 읽고
+ * 한쪽이라도 limit을 채우면 그 마지막 버전 직전에서 잘라 커서로 돌려준다.
+ */
+@Repository
+public class MemberChangeRepository {
+    private final JPAQueryFactory queryFactory;
+
+    public MemberChangeRepository(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    public MemberChangesDto findChangesSince(long since, long upTo, int limit) {
+        List<Tuple> memberRows = changedMembers(member.changeVersion, since, upTo, limit);
+        List<Tuple> teamRows = changedMembers(team.changeVersion, since, upTo, limit);
+        List<Tuple> tombstones = deletedMembers(since, upTo, limit);
+
+        long cursor = upTo;
+        cursor = cut(versions(memberRows, member.changeVersion), cursor, limit);
+        cursor = cut(versions(teamRows, team.changeVersion), cursor, limit);
+        cursor = cut(versions(tombstones, memberTombstone.changeVersion), cursor, limit);
+        boolean hasMore = memberRows.size() >= limit || teamRows.size() >= limit || tombstones.size() >= limit;
+
+        // 한 버전에 limit보다 많은 행이 몰린 경우(벌크 update) 그 버전은 limit 없이 다시 읽는다.
+        if (memberRows.size() >= limit && lastVersion(memberRows, member.changeVersion) == cursor) {
+            memberRows = changedMembers(member.changeVersion, since, cursor, 0);
+        }
+        if (teamRows.size() >= limit && lastVersion(teamRows, team.changeVersion) == cursor) {
+            teamRows = changedMembers(team.changeVersion, since, cursor, 0);
+        }
+        if (tombstones.size() >= limit && lastVersion(tombstones, memberTombstone.changeVersion) == cursor) {
+            tombstones = deletedMembers(since, cursor, 0);
+        }
+
+        // 회원 변경과 팀 변경에 모두 걸린 회원은 더 늦은 버전 기준으로 한 번만 내려준다.
+        Map<Long, Tuple> latest = new LinkedHashMap<>();
+        Map<Long, Long> versionById = new LinkedHashMap<>();
+        collect(memberRows, member.changeVersion, cursor, latest, versionById);
+        collect(teamRows, team.changeVersion, cursor, latest, versionById);
+
+        List<Long> ordered = new ArrayList<>(latest.keySet());
+        ordered.sort(Comparator.comparing((Long id) -> versionById.get(id)).thenComparing(id -> id));
+
+        List<Long> inserted = new ArrayList<>();
+        List<Long> updated = new ArrayList<>();
+        List<MemberTeamDto> members = new ArrayList<>();
+        for (Long id : ordered) {
+            Tuple row = latest.get(id);
+            if (row.get(member.createdVersion) > since) {
+                inserted.add(id);
+            } else {
+                updated.add(id);
+            }
+            members.add(new MemberTeamDto(
+                    row.get(member.id),
+                    row.get(member.username),
+                    row.get(member.age),
+                    row.get(team.id),
+                    row.get(team.name)));
+        }
+
+        List<Long> deleted = new ArrayList<>();
+        for (Tuple row : tombstones) {
+            if (row.get(memberTombstone.changeVersion) <= cursor) {
+                deleted.add(row.get(memberTombstone.memberId));
+            }
+        }
+        return new MemberChangesDto(since, cursor, hasMore, inserted, updated, deleted, members);
+    }
+
+    private List<Tuple> changedMembers(NumberPath<Long> version, long since, long upTo, int limit) {
+        JPAQuery<Tuple> query = queryFactory
+                .select(member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name,
+                        member.createdVersion,
+                        member.changeVersion,
+                        team.changeVersion)
+                .from(member);
+        if (version == team.changeVersion) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        query.where(version.gt(since), version.loe(upTo))
+                .orderBy(version.asc(), member.id.asc());
+        if (limit > 0) {
+            query.limit(limit);
+        }
+        return query.fetch();
+    }
+
+    private List<Tuple> deletedMembers(long since, long upTo, int limit) {
+        JPAQuery<Tuple> query = queryFactory
+                .select(memberTombstone.memberId, memberTombstone.changeVersion)
+                .from(memberTombstone)
+                .where(memberTombstone.changeVersion.gt(since), memberTombstone.changeVersion.loe(upTo))
+                .orderBy(memberTombstone.changeVersion.asc());
+        if (limit > 0) {
+            query.limit(limit);
+        }
+        return query.fetch();
+    }
+
+    private void collect(List<Tuple> rows, NumberPath<Long> version, long cursor,
+                         Map<Long, Tuple> latest, Map<Long, Long> versionById) {
+        for (Tuple row : rows) {
+            long v = row.get(version);
+            if (v > cursor) {
+                continue;
+            }
+            Long id = row.get(member.id);
+            Long prev = versionById.get(id);
+            if (prev == null || prev < v) {
+                latest.put(id, row);
+                versionById.put(id, v);
+            }
+        }
+    }
+
+    // limit을 채운 흐름은 마지막 버전에 같은 버전 행이 더 남아 있을 수 있으므로 그 직전까지만 확정.
+    // 전부 같은 버전이면 그 버전까지 확정하고 limit 없이 다시 읽는다.
+    private long cut(List<Long> versions, long cursor, int limit) {
+        if (versions.size() < limit) {
+            return cursor;
+        }
+        long first = versions.get(0);
+        long last = versions.get(versions.size() - 1);
+        return Math.min(cursor, first < last ? last - 1 : last);
+    }
+
+    private List<Long> versions(List<Tuple> rows, NumberPath<Long> version) {
+        return rows.stream().map(row -> row.get(version)).toList();
+    }
+
+    private long lastVersion(List<Tuple> rows, NumberPath<Long> version) {
+        return rows.get(rows.size() - 1).get(version);
+    }
+}
@@ -6,10 +6,12 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
+import study.querydsl.archive.MemberArchiveSearch;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.Usernames;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,10 +23,15 @@ import static study.querydsl.entity.QTeam.team;
 public class MemberJpaRepository {
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueries searchQueries;
+    private final MemberArchiveSearch archiveSearch;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, MemberSearchQueries searchQueries,
+                               MemberArchiveSearch archiveSearch) {
         this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = queryFactory;
+        this.searchQueries = searchQueries;
+        this.archiveSearch = archiveSearch;
     }
 
     public void save(Member member) {
@@ -64,7 +71,9 @@ public class MemberJpaRepository {
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
         BooleanBuilder builder = new BooleanBuilder();
         if (StringUtils.hasText(condition.getUsername())) { // null 또는 ""로 들어올 수도 있으니 hasText 사용
-            builder.and(member.username.eq(condition.getUsername()));
+            builder.and(condition.isUsernameIgnoreCase()
+                    ? member.usernameNormalized.eq(Usernames.normalize(condition.getUsername()))
+                    : member.username.eq(condition.getUsername()));
         }
         if (StringUtils.hasText(condition.getTeamName())) {
             builder.and(team.name.eq(condition.getTeamName()));
@@ -89,34 +98,19 @@ public class MemberJpaRepository {
     }
 
     // 동적 쿼리와 성능 최적화 조회 - Where절 파라미터 사용
+    // 조건(usernameEq, teamNameEq, ageGoe, ageLoe)과 필요한 조인만 붙이는 건 MemberSearchQueries가 맡는다.
+    // 읽기 모델(querydsl.read-model.enabled)을 켜면 member_team에서 조인 없이 읽는다.
+    // includeArchived면 보관된 회원까지 member id 순으로.
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-//                        ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
-                )
+        if (condition.isIncludeArchived()) {
+            return archiveSearch.search(condition);
+        }
+        return searchQueries
+                .select(searchQueries.memberTeamDto(), condition)
+//                .where(ageBetween(condition.getAgeLoe(), condition.getAgeGoe()))
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
     private BooleanExpression ageGoe(Integer ageGoe) {
         return ageGoe != null ? member.age.goe(ageGoe) : null;
     }
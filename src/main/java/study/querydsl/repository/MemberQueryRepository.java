@@ -1,61 +1,60 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.impl.JPAQueryFactory;
-import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Repository;
-import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-
-import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
+import java.util.Map;
 
 @Repository
 public class MemberQueryRepository {
     // 만약 어느 부분에만 특화된 기능이라고 하면 interface로 만들지 말고 바로 구현체를 만들어서 사용해도 좋음.
-    private final JPAQueryFactory queryFactory;
+    // 묶음 검색에서 쿼리 하나에 넣을 조건 수 (IN-list / or 길이 제한)
+    static final int MAX_CONDITIONS_PER_QUERY = 100;
+
+    private final MemberSearchQueries searchQueries;
 
-    public MemberQueryRepository(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberQueryRepository(MemberSearchQueries searchQueries) {
+        this.searchQueries = searchQueries;
     }
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        return searchQueries
+                .select(searchQueries.memberTeamDto(), condition)
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    /**
+     * 여러 조건을 한 번에 검색. 결과는 conditions 순서대로 조건별 목록.
+     * 채워진 필드가 같은(shape) 조건끼리 쿼리 하나로 묶고 행은 메모리에서 조건별로 나눈다.
+     * 왕복 횟수는 조건 수가 아니라 shape 수에 비례. shape는 팀/나이 조합 8가지 x username(없음, 대소문자 구분, 무시) 3가지로
+     * 최대 24이고, shape마다 MAX_CONDITIONS_PER_QUERY개씩 나누므로 조건 n개면 쿼리는 많아야 24 + n / 100개
+     * (querydsl.search-batch.max-conditions 기본 500이면 29개).
+     */
+    public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions) {
+        Map<Integer, List<MemberSearchCondition>> byShape = new LinkedHashMap<>();
+        for (MemberSearchCondition condition : new LinkedHashSet<>(conditions)) {
+            byShape.computeIfAbsent(MemberSearchQueries.shape(condition), k -> new ArrayList<>()).add(condition);
+        }
+
+        Map<MemberSearchCondition, List<MemberTeamDto>> results = new HashMap<>();
+        for (List<MemberSearchCondition> group : byShape.values()) {
+            for (int from = 0; from < group.size(); from += MAX_CONDITIONS_PER_QUERY) {
+                List<MemberSearchCondition> chunk = group.subList(from, Math.min(group.size(), from + MAX_CONDITIONS_PER_QUERY));
+                List<MemberTeamDto> rows = new ArrayList<>(searchQueries.selectAny(searchQueries.memberTeamDto(), chunk).fetch());
+                rows.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+                for (MemberSearchCondition condition : chunk) {
+                    results.put(condition, rows.stream()
+                            .filter(row -> MemberSearchQueries.matches(condition, row))
+                            .toList());
+                }
+            }
+        }
+        return conditions.stream().map(results::get).toList();
     }
-
-
 }
@@ -0,0 +1,102 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.WindowFunction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.QMemberRankDto;
+
+import java.util.List;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * 팀 내 순위 조회. JPAExpressions 상관 서브쿼리(팀별 max(age)) 대신 윈도우 함수로 한 번에 계산한다.
+ * JPQL은 from절 서브쿼리를 만들 수 없어서 querydsl-sql로 작성. (자동 flush 없음 - MemberSqlRepository 참고)
+ */
+@Repository
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberRankingRepository {
+    private final SQLQueryFactory sqlQueryFactory;
+
+    private final PathBuilder<Object> ranked = new PathBuilder<>(Object.class, "ranked");
+    private final NumberPath<Long> rankedMemberId = ranked.getNumber("member_id", Long.class);
+    private final StringPath rankedUsername = ranked.getString("username");
+    private final NumberPath<Integer> rankedAge = ranked.getNumber("age", Integer.class);
+    private final NumberPath<Long> rankedTeamId = ranked.getNumber("team_id", Long.class);
+    private final StringPath rankedTeamName = ranked.getString("team_name");
+    private final NumberPath<Long> rankedRank = ranked.getNumber("rnk", Long.class);
+
+    // 팀별 나이 많은 순 상위 n명. 동갑이면 id 순으로 끊는다 (ROW_NUMBER).
+    public List<MemberRankDto> findOldestPerTeam(int n) {
+        WindowFunction<Long> rowNumber = SQLExpressions.rowNumber()
+                .over()
+                .partitionBy(member.teamId)
+                .orderBy(member.age.desc(), member.memberId.asc());
+        return sqlQueryFactory
+                .select(rankDto())
+                .from(rankedMembers(rowNumber, null), ranked)
+                .where(rankedRank.loe((long) n))
+                .orderBy(rankedTeamId.asc(), rankedRank.asc())
+                .fetch();
+    }
+
+    // 팀 안에서의 순위 (RANK - 동갑은 같은 순위). teamName이 없으면 전체 팀.
+    public List<MemberRankDto> rankWithinTeam(String teamName) {
+        return sqlQueryFactory
+                .select(rankDto())
+                .from(rankedMembers(ageRank(), teamNameEq(teamName)), ranked)
+                .orderBy(rankedTeamId.asc(), rankedRank.asc(), rankedMemberId.asc())
+                .fetch();
+    }
+
+    // 팀 최고령자 (동갑이면 모두). QuerydslBasicTest.subQuery의 max(age) 상관 서브쿼리와 같은 결과.
+    public List<MemberRankDto> findOldestInEachTeam() {
+        return sqlQueryFactory
+                .select(rankDto())
+                .from(rankedMembers(ageRank(), null), ranked)
+                .where(rankedRank.eq(1L))
+                .orderBy(rankedTeamId.asc(), rankedMemberId.asc())
+                .fetch();
+    }
+
+    private WindowFunction<Long> ageRank() {
+        return SQLExpressions.rank()
+                .over()
+                .partitionBy(member.teamId)
+                .orderBy(member.age.desc());
+    }
+
+    private SubQueryExpression<Tuple> rankedMembers(WindowFunction<Long> rank, BooleanExpression filter) {
+        return SQLExpressions
+                .select(member.memberId.as("member_id"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.id.as("team_id"),
+                        team.name.as("team_name"),
+                        rank.as("rnk"))
+                .from(member)
+                .join(team).on(member.teamId.eq(team.id))
+                .where(filter);
+    }
+
+    private QMemberRankDto rankDto() {
+        return new QMemberRankDto(rankedMemberId, rankedUsername, rankedAge, rankedTeamId, rankedTeamName, rankedRank);
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+}
@@ -12,4 +12,5 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex2(MemberSearchCondition condition, Pageable pageable);
+    Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable);
 }
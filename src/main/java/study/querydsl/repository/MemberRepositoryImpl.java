@@ -1,88 +1,61 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.impl.JPAQuery;
-import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
-import org.springframework.util.StringUtils;
+import study.querydsl.archive.MemberArchiveSearch;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
-import study.querydsl.entity.Member;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
-
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
     // MemberRepositoryImpl 이름 맞춰주어야함.
 
-    private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueries searchQueries;
+    private final boolean windowFunctionSupported;
+    // includeArchived면 member_archive까지
+    // 샤드(querydsl.shards.enabled)는 별도 실험 데이터라 여기서는 보지 않는다 (ShardedMemberSearch를 직접 사용)
+    private final MemberArchiveSearch archiveSearch;
 
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberRepositoryImpl(MemberSearchQueries searchQueries, EntityManager em,
+                                MemberArchiveSearch archiveSearch) {
+        this.searchQueries = searchQueries;
+        this.archiveSearch = archiveSearch;
+        this.windowFunctionSupported = em.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect()
+                .supportsWindowFunctions();
     }
 
+    // 조인은 MemberSearchQueries가 조건/select 대상을 보고 필요한 것만 붙인다.
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+        if (condition.isIncludeArchived()) {
+            return archiveSearch.search(condition);
+        }
+        return searchQueries.select(memberTeamDto(), condition).fetch();
     }
 
     // 스프링 데이터 페이징 활용1 - Querydsl 페이징 연동
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        if (condition.isIncludeArchived()) {
+            return archiveSearch.searchPageSimple(condition, pageable);
+        }
+        QueryResults<MemberTeamDto> results = searchQueries.select(memberTeamDto(), condition)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetchResults();
@@ -95,72 +68,63 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     // 스프링 데이터 페이징 활용2 - CountQuery 최적화
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        if (condition.isIncludeArchived()) {
+            return archiveSearch.searchPageComplex(condition, pageable);
+        }
+        List<MemberTeamDto> results = searchQueries.select(memberTeamDto(), condition)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
-        // 사용자가 쿼리를 직접 날림.
-        long total = queryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetchCount();
+        // 사용자가 쿼리를 직접 날림. teamName 조건이 없으면 team 조인 없이 카운트.
+        long total = searchQueries.count(condition).fetchOne();
         return new PageImpl<>(results, pageable, total);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageComplex2(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        if (condition.isIncludeArchived()) {
+            return archiveSearch.searchPageComplex2(condition, pageable);
+        }
+        List<MemberTeamDto> results = searchQueries.select(memberTeamDto(), condition)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
         // 사용자가 쿼리를 직접 날림.
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+        JPAQuery<Long> countQuery = searchQueries.count(condition);
 
         // 스프링 데이터 페이징 활용2 - CountQuery 최적화
-        return PageableExecutionUtils.getPage(results, pageable, () -> countQuery.fetchCount());
+        return PageableExecutionUtils.getPage(results, pageable, countQuery::fetchOne);
+    }
+
+    // 페이징 - 윈도우 함수로 컨텐츠와 전체 개수를 한 번에 (count(*) over())
+    // 윈도우 함수를 지원하지 않는 DB면 searchPageComplex2 방식으로.
+    @Override
+    public Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable) {
+        if (condition.isIncludeArchived()) {
+            return archiveSearch.searchPageWindow(condition, pageable);
+        }
+        if (!windowFunctionSupported) {
+            return searchPageComplex2(condition, pageable);
+        }
+        NumberExpression<Long> totalCount = Expressions.numberTemplate(Long.class, "count(*) over()");
+        List<Tuple> rows = searchQueries.select(Projections.tuple(memberTeamDto(), totalCount), condition)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        if (rows.isEmpty()) {
+            // 마지막 페이지를 넘어가면 행이 없어서 개수도 같이 못 받음 -> 그때만 카운트 쿼리
+            return PageableExecutionUtils.getPage(List.of(), pageable, () -> searchQueries.count(condition).fetchOne());
+        }
+        List<MemberTeamDto> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            content.add(row.get(0, MemberTeamDto.class));
+        }
+        return new PageImpl<>(content, pageable, rows.get(0).get(totalCount));
+    }
+
+    // 읽기 모델(querydsl.read-model.enabled)을 켜면 member_team에서 조인 없이
+    private QMemberTeamDto memberTeamDto() {
+        return searchQueries.memberTeamDto();
     }
 }
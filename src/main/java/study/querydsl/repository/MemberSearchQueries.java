@@ -0,0 +1,267 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Usernames;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberArchive.memberArchive;
+import static study.querydsl.entity.QMemberTeamView.memberTeamView;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 검색 쿼리 빌더.
+ * 조건과 select 대상을 보고 team 조인이 정말 필요할 때만 조인한다.
+ * - member -> team은 ManyToOne이라 left join을 빼도 행 수가 변하지 않는다.
+ * - teamName 조건이 있으면 어차피 team이 있는 행만 남으므로 inner join.
+ * - 카운트나 회원 컬럼만 select하면 teamName 조건이 없는 한 조인하지 않는다.
+ * querydsl.read-model.enabled면 member_team 읽기 모델(MemberTeamView)에서 조인 없이 읽는다.
+ * 어느 테이블에서 읽을지는 select 대상이 memberTeamView를 참조하는지로 정한다 (memberTeamDto() 참고).
+ * 보관된 회원(member_archive)은 selectArchived/countArchived로 따로 읽는다.
+ */
+@Component
+public class MemberSearchQueries {
+    private static final Columns BASE = new Columns(member.username, member.usernameNormalized, team.name, member.age);
+    private static final Columns VIEW = new Columns(memberTeamView.username, memberTeamView.usernameNormalized,
+            memberTeamView.teamName, memberTeamView.age);
+    private static final Columns ARCHIVE = new Columns(memberArchive.username, memberArchive.usernameNormalized,
+            team.name, memberArchive.age);
+
+    private final JPAQueryFactory queryFactory;
+    private final boolean readModelEnabled;
+
+    public MemberSearchQueries(JPAQueryFactory queryFactory,
+                               @Value("${querydsl.read-model.enabled:false}") boolean readModelEnabled) {
+        this.queryFactory = queryFactory;
+        this.readModelEnabled = readModelEnabled;
+    }
+
+    // MemberTeamDto select 대상. 읽기 모델을 켜면 member_team 컬럼.
+    public QMemberTeamDto memberTeamDto() {
+        if (readModelEnabled) {
+            return new QMemberTeamDto(
+                    memberTeamView.memberId,
+                    memberTeamView.username,
+                    memberTeamView.age,
+                    memberTeamView.teamId,
+                    memberTeamView.teamName);
+        }
+        return new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName"));
+    }
+
+    // memberTeamDto()와 같은 테이블의 member id 순서
+    public OrderSpecifier<Long> memberIdAsc() {
+        return readModelEnabled ? memberTeamView.memberId.asc() : member.id.asc();
+    }
+
+    // 보관된 회원의 MemberTeamDto select 대상
+    public QMemberTeamDto archivedMemberTeamDto() {
+        return new QMemberTeamDto(
+                memberArchive.memberId,
+                memberArchive.username,
+                memberArchive.age,
+                memberArchive.teamId,
+                team.name.as("teamName"));
+    }
+
+    public <T> JPAQuery<T> select(Expression<T> projection, MemberSearchCondition condition) {
+        if (references(projection, memberTeamView)) {
+            return queryFactory.select(projection).from(memberTeamView).where(where(condition, VIEW));
+        }
+        JPAQuery<T> query = queryFactory.select(projection).from(member);
+        joinTeamIfNeeded(query, condition, references(projection, team));
+        return query.where(where(condition));
+    }
+
+    public JPAQuery<Long> count(MemberSearchCondition condition) {
+        if (readModelEnabled) {
+            return queryFactory.select(memberTeamView.count()).from(memberTeamView).where(where(condition, VIEW));
+        }
+        JPAQuery<Long> query = queryFactory.select(member.count()).from(member);
+        joinTeamIfNeeded(query, condition, false);
+        return query.where(where(condition));
+    }
+
+    // member_archive 검색. team과는 연관관계가 없어서 id로 조인 (팀이 지워졌으면 teamName은 null)
+    public <T> JPAQuery<T> selectArchived(Expression<T> projection, MemberSearchCondition condition) {
+        JPAQuery<T> query = queryFactory.select(projection).from(memberArchive);
+        joinArchivedTeamIfNeeded(query, condition, references(projection, team));
+        return query.where(where(condition, ARCHIVE));
+    }
+
+    public JPAQuery<Long> countArchived(MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory.select(memberArchive.count()).from(memberArchive);
+        joinArchivedTeamIfNeeded(query, condition, false);
+        return query.where(where(condition, ARCHIVE));
+    }
+
+    /**
+     * 같은 shape의 조건 여러 개를 쿼리 하나로.
+     * 결과는 조건들의 합집합보다 클 수 있으므로(IN-list 조합) 조건별로 matches로 다시 거른다.
+     */
+    public <T> JPAQuery<T> selectAny(Expression<T> projection, List<MemberSearchCondition> conditions) {
+        MemberSearchCondition first = conditions.get(0);
+        JPAQuery<T> query = queryFactory.select(projection);
+        Columns columns;
+        if (references(projection, memberTeamView)) {
+            query.from(memberTeamView);
+            columns = VIEW;
+        } else {
+            query.from(member);
+            joinTeamIfNeeded(query, first, references(projection, team));
+            columns = BASE;
+        }
+        if (first.getAgeGoe() == null && first.getAgeLoe() == null) {
+            // 동등 조건만 있으면 IN-list로 (username in (...) and team.name in (...))
+            return query.where(
+                    StringUtils.hasText(first.getUsername())
+                            ? columns.username(first).in(conditions.stream().map(MemberSearchQueries::usernameValue).distinct().toList())
+                            : null,
+                    filtersByTeam(first)
+                            ? columns.teamName().in(conditions.stream().map(MemberSearchCondition::getTeamName).distinct().toList())
+                            : null);
+        }
+        // 나이 범위가 있으면 조건마다 and로 묶어서 or
+        BooleanBuilder any = new BooleanBuilder();
+        for (MemberSearchCondition condition : conditions) {
+            any.or(ExpressionUtils.allOf(where(condition, columns)));
+        }
+        return query.where(any);
+    }
+
+    // member/team 기준 조건
+    public Predicate[] where(MemberSearchCondition condition) {
+        return where(condition, BASE);
+    }
+
+    private Predicate[] where(MemberSearchCondition condition, Columns columns) {
+        return new Predicate[]{
+                usernameEq(condition, columns),
+                teamNameEq(condition.getTeamName(), columns),
+                ageGoe(condition.getAgeGoe(), columns),
+                ageLoe(condition.getAgeLoe(), columns)
+        };
+    }
+
+    // 채워진 조건 필드 조합. 같은 shape끼리만 selectAny로 묶을 수 있다.
+    // 대소문자 무시는 username이 있을 때만 의미가 있으므로 그때만 구분 (최대 24가지).
+    static int shape(MemberSearchCondition condition) {
+        return (StringUtils.hasText(condition.getUsername()) ? 1 : 0)
+                | (filtersByTeam(condition) ? 2 : 0)
+                | (condition.getAgeGoe() != null ? 4 : 0)
+                | (condition.getAgeLoe() != null ? 8 : 0)
+                | (StringUtils.hasText(condition.getUsername()) && condition.isUsernameIgnoreCase() ? 16 : 0);
+    }
+
+    // where(condition)과 같은 판정을 메모리에서. 묶음 쿼리 결과를 조건별로 나눌 때 사용.
+    static boolean matches(MemberSearchCondition condition, MemberTeamDto row) {
+        return (!StringUtils.hasText(condition.getUsername())
+                || usernameValue(condition).equals(condition.isUsernameIgnoreCase() ? Usernames.normalize(row.getUsername()) : row.getUsername()))
+                && (!filtersByTeam(condition) || condition.getTeamName().equals(row.getTeamName()))
+                && (condition.getAgeGoe() == null || row.getAge() >= condition.getAgeGoe())
+                && (condition.getAgeLoe() == null || row.getAge() <= condition.getAgeLoe());
+    }
+
+    static boolean filtersByTeam(MemberSearchCondition condition) {
+        return StringUtils.hasText(condition.getTeamName());
+    }
+
+    private void joinTeamIfNeeded(JPAQuery<?> query, MemberSearchCondition condition, boolean selectsTeam) {
+        if (filtersByTeam(condition)) {
+            query.join(member.team, team);
+        } else if (selectsTeam) {
+            query.leftJoin(member.team, team);
+        }
+    }
+
+    private void joinArchivedTeamIfNeeded(JPAQuery<?> query, MemberSearchCondition condition, boolean selectsTeam) {
+        if (filtersByTeam(condition)) {
+            query.join(team).on(team.id.eq(memberArchive.teamId));
+        } else if (selectsTeam) {
+            query.leftJoin(team).on(team.id.eq(memberArchive.teamId));
+        }
+    }
+
+    // team 별칭으로 시작하는 경로가 있는지. member.team.id는 FK 컬럼이라 조인이 필요 없다.
+    static boolean references(Expression<?> expression, Path<?> root) {
+        if (expression instanceof Path<?> path) {
+            return path.getRoot().equals(root);
+        }
+        if (expression instanceof Operation<?> operation) {
+            return anyReferences(operation.getArgs(), root);
+        }
+        if (expression instanceof FactoryExpression<?> factory) {
+            return anyReferences(factory.getArgs(), root);
+        }
+        if (expression instanceof TemplateExpression<?> template) {
+            for (Object arg : template.getArgs()) {
+                if (arg instanceof Expression<?> argument && references(argument, root)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean anyReferences(List<Expression<?>> args, Path<?> root) {
+        for (Expression<?> arg : args) {
+            if (references(arg, root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BooleanExpression usernameEq(MemberSearchCondition condition, Columns columns) {
+        return StringUtils.hasText(condition.getUsername()) ? columns.username(condition).eq(usernameValue(condition)) : null;
+    }
+
+    private static String usernameValue(MemberSearchCondition condition) {
+        return condition.isUsernameIgnoreCase() ? Usernames.normalize(condition.getUsername()) : condition.getUsername();
+    }
+
+    private BooleanExpression teamNameEq(String teamName, Columns columns) {
+        return StringUtils.hasText(teamName) ? columns.teamName().eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe, Columns columns) {
+        return ageGoe != null ? columns.age().goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe, Columns columns) {
+        return ageLoe != null ? columns.age().loe(ageLoe) : null;
+    }
+
+    // 조건에 쓰는 컬럼. member/team 또는 member_team 읽기 모델.
+    private record Columns(StringPath username, StringPath usernameNormalized, StringPath teamName, NumberPath<Integer> age) {
+        // 대소문자/악센트 무시면 정규화 컬럼과 정규화한 값으로 비교 (lower()를 쓰면 인덱스를 못 탐)
+        StringPath username(MemberSearchCondition condition) {
+            return condition.isUsernameIgnoreCase() ? usernameNormalized : username;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.sql.MemberSqlConditions.memberTeamDto;
+import static study.querydsl.sql.MemberSqlConditions.where;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * querydsl-sql로 JDBC에서 바로 MemberTeamDto를 만드는 조회 경로.
+ * HQL 파싱, 엔티티/결과 변환 과정이 없다. JPA와 같은 DataSource, 같은 트랜잭션을 쓴다.
+ * 주의: Hibernate를 거치지 않으므로 자동 flush가 없다. 같은 트랜잭션에서 쓴 내용을 읽으려면 먼저 em.flush().
+ */
+@Repository
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberSqlRepository implements MemberRepositoryCustom {
+    private final SQLQueryFactory sqlQueryFactory;
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return contentQuery(condition).fetch();
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = contentQuery(condition)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        return new PageImpl<>(content, pageable, countQuery(condition).fetchOne());
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageComplex2(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex2(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = contentQuery(condition)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery(condition).fetchOne());
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable) {
+        List<Tuple> rows = sqlQueryFactory
+                .select(memberTeamDto(), SQLExpressions.count().over())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id))
+                .where(where(condition))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        if (rows.isEmpty()) {
+            return PageableExecutionUtils.getPage(List.of(), pageable, () -> countQuery(condition).fetchOne());
+        }
+        List<MemberTeamDto> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            content.add(row.get(0, MemberTeamDto.class));
+        }
+        return new PageImpl<>(content, pageable, rows.get(0).get(1, Long.class));
+    }
+
+    private SQLQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        return sqlQueryFactory
+                .select(memberTeamDto())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id))
+                .where(where(condition));
+    }
+
+    private SQLQuery<Long> countQuery(MemberSearchCondition condition) {
+        return sqlQueryFactory
+                .select(member.memberId.count())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id))
+                .where(where(condition));
+    }
+}
@@ -0,0 +1,214 @@
+package study.querydsl.shard;
+
+import com.querydsl.sql.SQLBaseListener;
+import com.querydsl.sql.SQLListenerContext;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
+import com.querydsl.sql.SQLTemplatesRegistry;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.query.QueryDeadline;
+import study.querydsl.query.SlowQueryLog;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 회원 샤드 DB 목록 (실험용, querydsl.shards.enabled). 회원은 팀 id로 샤드가 정해지고(shardOf), 팀 테이블은 모든 샤드에 복제한다.
+ * 그래서 회원-팀 조인은 항상 한 샤드 안에서 끝난다.
+ * 샤드 데이터는 ShardedMemberStore로만 채우는 별도 데이터다. 기본 DB의 회원 검색/쓰기(/v1~/v3, ingest, 보관 등)는 샤드를 보지 않는다.
+ * - 샤드마다 커넥션 풀, querydsl-sql SQLQueryFactory, 트랜잭션 매니저를 따로 가진다 (스프링 빈이 아님 -> 기본 DataSource와 무관).
+ * - 기동 시 샤드마다 테이블이 없으면 만든다.
+ * - scatter는 샤드마다 읽기 전용 트랜잭션으로 동시에 실행하고 샤드 순서대로 결과를 돌려준다.
+ * - 읽기는 요청의 QueryDeadline(작업 스레드로 넘겨서 statement 타임아웃)과 SlowQueryLog(kind=shard)를 거친다.
+ */
+@Component
+@ConditionalOnProperty(name = "querydsl.shards.enabled", havingValue = "true")
+public class MemberShards {
+    private static final String[] SCHEMA = {
+            "create table if not exists team (id bigint primary key, name varchar(255),"
+                    + " created_version bigint default 0 not null, change_version bigint default 0 not null)",
+            "create table if not exists member (member_id bigint primary key, username varchar(255),"
+                    + " username_normalized varchar(255), age integer not null, team_id bigint,"
+                    + " created_version bigint default 0 not null, change_version bigint default 0 not null)",
+            "create index if not exists idx_member_team_id on member (team_id, member_id)",
+            "create index if not exists idx_member_username on member (username)",
+            "create index if not exists idx_member_username_normalized on member (username_normalized)",
+            "create index if not exists idx_team_name on team (name)",
+            "create sequence if not exists member_seq",
+            "create sequence if not exists team_seq"
+    };
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final ExecutorService executor;
+    private final SlowQueryLog slowQueryLog;
+
+    public MemberShards(MeterRegistry meterRegistry,
+                        SlowQueryLog slowQueryLog,
+                        @Value("${querydsl.shards.urls}") List<String> urls,
+                        @Value("${querydsl.shards.username:sa}") String username,
+                        @Value("${querydsl.shards.password:}") String password,
+                        @Value("${querydsl.shards.pool-size:4}") int poolSize) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("querydsl.shards.urls is empty");
+        }
+        this.slowQueryLog = slowQueryLog;
+        ShardQueryListener listener = new ShardQueryListener(slowQueryLog);
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("member-shard-" + i);
+            dataSource.setJdbcUrl(urls.get(i).trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            shards.add(new Shard(i, dataSource, listener,
+                    Counter.builder("member.shard.queries").tag("shard", String.valueOf(i)).register(meterRegistry)));
+        }
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(urls.size() * Math.max(1, poolSize), runnable -> {
+            Thread thread = new Thread(runnable, "member-shard-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    // 팀 없는 회원은 0번 샤드
+    public int shardOf(Long teamId) {
+        return teamId == null ? 0 : Math.floorMod(teamId, shards.size());
+    }
+
+    // 샤드 하나에서 쓰기 트랜잭션
+    public <T> T write(int shard, Function<SQLQueryFactory, T> work) {
+        Shard target = shards.get(shard);
+        return target.writeTx.execute(status -> work.apply(target.queryFactory));
+    }
+
+    // 샤드 하나에서 읽기
+    public <T> T read(int shard, Function<SQLQueryFactory, T> work) {
+        Shard target = shards.get(shard);
+        target.queries.increment();
+        return slowQueryLog.observe("shard",
+                () -> target.readTx.execute(status -> work.apply(target.queryFactory)),
+                result -> result instanceof Collection<?> rows ? rows.size() : 1,
+                () -> null,
+                () -> work.getClass().getName()); // 람다 클래스 = 호출 위치
+    }
+
+    // 여러 샤드에 동시에 읽기. 결과는 shardIndexes 순서. 하나라도 실패하면 예외.
+    public <T> List<T> scatter(Collection<Integer> shardIndexes, Function<SQLQueryFactory, T> work) {
+        if (shardIndexes.size() == 1) {
+            return List.of(read(shardIndexes.iterator().next(), work));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shardIndexes.size());
+        for (int shard : shardIndexes) {
+            futures.add(CompletableFuture.supplyAsync(QueryDeadline.inheriting(() -> read(shard, work)), executor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    public List<Integer> all() {
+        List<Integer> all = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            all.add(i);
+        }
+        return all;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+        shards.forEach(shard -> shard.dataSource.close());
+    }
+
+    private static final class Shard {
+        private final HikariDataSource dataSource;
+        private final SQLQueryFactory queryFactory;
+        private final TransactionTemplate readTx;
+        private final TransactionTemplate writeTx;
+        private final Counter queries;
+
+        Shard(int index, HikariDataSource dataSource, ShardQueryListener listener, Counter queries) {
+            this.dataSource = dataSource;
+            this.queries = queries;
+            SQLTemplates templates;
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+                templates = new SQLTemplatesRegistry().getTemplates(connection.getMetaData());
+            } catch (SQLException e) {
+                dataSource.close();
+                throw new IllegalStateException("member shard " + index + " init failed", e);
+            }
+            com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(templates);
+            configuration.setExceptionTranslator(new SpringExceptionTranslator());
+            configuration.addListener(listener);
+            // 트랜잭션에 묶인 커넥션 사용 (QuerydslSqlConfig와 같은 방식, 샤드 전용 트랜잭션 매니저)
+            this.queryFactory = new SQLQueryFactory(configuration, new SpringConnectionProvider(dataSource));
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            this.writeTx = new TransactionTemplate(transactionManager);
+            this.readTx = new TransactionTemplate(transactionManager);
+            this.readTx.setReadOnly(true);
+        }
+    }
+
+    // 요청 마감을 statement 타임아웃으로 걸고, 느린 쿼리 로그에 실제 SQL을 남긴다
+    private static final class ShardQueryListener extends SQLBaseListener {
+        private final SlowQueryLog slowQueryLog;
+
+        ShardQueryListener(SlowQueryLog slowQueryLog) {
+            this.slowQueryLog = slowQueryLog;
+        }
+
+        @Override
+        public void preExecute(SQLListenerContext context) {
+            slowQueryLog.captureSql(context.getSQL());
+            QueryDeadline.markQueried();
+            QueryDeadline deadline = QueryDeadline.current();
+            if (deadline == null || context.getPreparedStatement() == null) {
+                return;
+            }
+            try {
+                context.getPreparedStatement().setQueryTimeout(deadline.timeoutSeconds());
+            } catch (SQLException e) {
+                throw new IllegalStateException("statement timeout not applied", e);
+            }
+        }
+    }
+}
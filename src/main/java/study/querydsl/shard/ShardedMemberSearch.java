@@ -0,0 +1,220 @@
+package study.querydsl.shard;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepositoryCustom;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+import static study.querydsl.sql.MemberSqlConditions.memberTeamDto;
+import static study.querydsl.sql.MemberSqlConditions.where;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * 샤드 검색 (scatter-gather). 실험용 읽기 전용 경로 - ShardedMemberStore로 넣은 샤드 데이터만 본다.
+ * 기본 DB 검색(MemberRepository, /v1~/v3)은 이쪽으로 넘어오지 않는다.
+ * - teamName 조건이 있으면 그 팀이 있는 샤드에만, 없으면 모든 샤드에 동시에 보낸다.
+ * - 결과는 member_id 순. 샤드마다 member_id 순으로 offset + size건을 받아 병합 정렬하고 offset만큼 건너뛴다.
+ *   offset이 크면 샤드마다 그만큼 읽어야 하므로 깊은 페이지는 searchAfter(keyset)로.
+ * - 전체 개수는 샤드별 개수의 합.
+ * - 샤드에는 보관 테이블(member_archive)이 없으므로 includeArchived 조건은 받지 않는다.
+ */
+@Repository
+@ConditionalOnProperty(name = "querydsl.shards.enabled", havingValue = "true")
+public class ShardedMemberSearch implements MemberRepositoryCustom {
+    private static final Comparator<MemberTeamDto> BY_MEMBER_ID = Comparator.comparing(MemberTeamDto::getMemberId);
+
+    private final MemberShards shards;
+
+    public ShardedMemberSearch(MemberShards shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<List<MemberTeamDto>> parts = shards.scatter(targetShards(condition),
+                queryFactory -> contentQuery(queryFactory, condition).fetch());
+        return merge(parts, 0, Integer.MAX_VALUE);
+    }
+
+    // 내용과 개수를 샤드 안에서 같이 조회
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        List<Part> parts = shards.scatter(targetShards(condition), queryFactory -> new Part(
+                contentQuery(queryFactory, condition).limit(pageable.getOffset() + pageable.getPageSize()).fetch(),
+                countQuery(queryFactory, condition).fetchOne()));
+        List<List<MemberTeamDto>> contents = new ArrayList<>(parts.size());
+        long total = 0;
+        for (Part part : parts) {
+            contents.add(part.content());
+            total += part.count();
+        }
+        return new PageImpl<>(merge(contents, pageable.getOffset(), pageable.getPageSize()), pageable, total);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageComplex2(condition, pageable);
+    }
+
+    // 첫 페이지가 덜 찼거나 마지막 페이지면 개수 조회 생략
+    @Override
+    public Page<MemberTeamDto> searchPageComplex2(MemberSearchCondition condition, Pageable pageable) {
+        List<Integer> targets = targetShards(condition);
+        List<List<MemberTeamDto>> parts = shards.scatter(targets, queryFactory -> contentQuery(queryFactory, condition)
+                .limit(pageable.getOffset() + pageable.getPageSize())
+                .fetch());
+        return PageableExecutionUtils.getPage(merge(parts, pageable.getOffset(), pageable.getPageSize()), pageable,
+                () -> count(targets, condition));
+    }
+
+    // 샤드마다 offset 없이 읽으므로 결과가 있는 샤드는 반드시 한 행 이상 돌려준다 -> count(*) over() 합이 곧 전체 개수
+    @Override
+    public Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable) {
+        List<List<Tuple>> parts = shards.scatter(targetShards(condition), queryFactory -> queryFactory
+                .select(memberTeamDto(), SQLExpressions.count().over())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id))
+                .where(where(condition))
+                .orderBy(member.memberId.asc())
+                .limit(pageable.getOffset() + pageable.getPageSize())
+                .fetch());
+        List<List<MemberTeamDto>> contents = new ArrayList<>(parts.size());
+        long total = 0;
+        for (List<Tuple> rows : parts) {
+            List<MemberTeamDto> content = new ArrayList<>(rows.size());
+            for (Tuple row : rows) {
+                content.add(row.get(0, MemberTeamDto.class));
+            }
+            contents.add(content);
+            if (!rows.isEmpty()) {
+                total += rows.get(0).get(1, Long.class);
+            }
+        }
+        return new PageImpl<>(merge(contents, pageable.getOffset(), pageable.getPageSize()), pageable, total);
+    }
+
+    /**
+     * keyset 페이징 - afterMemberId보다 큰 member_id에서 size건 (null이면 처음부터).
+     * 샤드마다 size건만 읽으므로 깊이와 상관없이 비용이 같다. 다음 페이지는 마지막 행의 memberId로.
+     */
+    public List<MemberTeamDto> searchAfter(MemberSearchCondition condition, Long afterMemberId, int size) {
+        List<List<MemberTeamDto>> parts = shards.scatter(targetShards(condition), queryFactory -> {
+            SQLQuery<MemberTeamDto> query = contentQuery(queryFactory, condition);
+            if (afterMemberId != null) {
+                query.where(member.memberId.gt(afterMemberId));
+            }
+            return query.limit(size).fetch();
+        });
+        return merge(parts, 0, size);
+    }
+
+    public long count(MemberSearchCondition condition) {
+        return count(targetShards(condition), condition);
+    }
+
+    private long count(List<Integer> targets, MemberSearchCondition condition) {
+        long total = 0;
+        for (Long count : shards.scatter(targets, queryFactory -> countQuery(queryFactory, condition).fetchOne())) {
+            total += count;
+        }
+        return total;
+    }
+
+    // 팀은 모든 샤드에 복제돼 있으므로 이름 -> id는 아무 샤드에서나
+    private List<Integer> targetShards(MemberSearchCondition condition) {
+        if (condition.isIncludeArchived()) {
+            throw new IllegalArgumentException("includeArchived is not supported on shards");
+        }
+        if (!StringUtils.hasText(condition.getTeamName())) {
+            return shards.all();
+        }
+        List<Long> teamIds = shards.read(0, queryFactory -> queryFactory
+                .select(team.id)
+                .from(team)
+                .where(team.name.eq(condition.getTeamName()))
+                .fetch());
+        TreeSet<Integer> targets = new TreeSet<>();
+        for (Long teamId : teamIds) {
+            targets.add(shards.shardOf(teamId));
+        }
+        return List.copyOf(targets);
+    }
+
+    private static SQLQuery<MemberTeamDto> contentQuery(SQLQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
+                .select(memberTeamDto())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id))
+                .where(where(condition))
+                .orderBy(member.memberId.asc());
+    }
+
+    private static SQLQuery<Long> countQuery(SQLQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
+                .select(member.memberId.count())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id))
+                .where(where(condition));
+    }
+
+    // member_id 순으로 정렬된 샤드별 결과를 병합해서 [offset, offset + limit) 구간만
+    static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sortedParts, long offset, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> BY_MEMBER_ID.compare(a.head(), b.head()));
+        for (List<MemberTeamDto> part : sortedParts) {
+            if (!part.isEmpty()) {
+                heads.add(new Cursor(part));
+            }
+        }
+        List<MemberTeamDto> merged = new ArrayList<>();
+        long skipped = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Cursor cursor = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                merged.add(cursor.head());
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private record Part(List<MemberTeamDto> content, long count) {
+    }
+
+    private static final class Cursor {
+        private final List<MemberTeamDto> rows;
+        private int position;
+
+        Cursor(List<MemberTeamDto> rows) {
+            this.rows = rows;
+        }
+
+        MemberTeamDto head() {
+            return rows.get(position);
+        }
+
+        boolean advance() {
+            return ++position < rows.size();
+        }
+    }
+}
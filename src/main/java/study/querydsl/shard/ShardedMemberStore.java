@@ -0,0 +1,66 @@
+package study.querydsl.shard;
+
+import com.querydsl.sql.SQLExpressions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import study.querydsl.change.DataVersion;
+import study.querydsl.entity.Usernames;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * 샤드에 회원/팀 쓰기. 샤드 실험 데이터를 채우는 유일한 경로 - 기본 DB의 쓰기(JPA 저장, ingest, 보관 등)는 샤드로 오지 않는다.
+ * - 팀: id는 0번 샤드의 team_seq에서 받고 모든 샤드에 같은 행을 넣는다. 샤드 간 원자성은 없다 (중간에 실패하면 일부 샤드에만 남음).
+ * - 회원: 팀 id로 정한 샤드 하나에만 넣는다. id = 샤드 member_seq * 샤드 수 + 샤드 번호 라서 샤드끼리 겹치지 않는다.
+ *   샤드 수를 바꾸면 기존 회원의 위치가 달라지므로 재배치가 필요하다.
+ * 커밋되면 DataVersion을 올려서 검색 ETag가 바뀌게 한다.
+ */
+@Component
+@ConditionalOnProperty(name = "querydsl.shards.enabled", havingValue = "true")
+public class ShardedMemberStore {
+    private final MemberShards shards;
+    private final DataVersion dataVersion;
+
+    public ShardedMemberStore(MemberShards shards, DataVersion dataVersion) {
+        this.shards = shards;
+        this.dataVersion = dataVersion;
+    }
+
+    public long saveTeam(String name) {
+        long teamId = shards.write(0, queryFactory -> queryFactory
+                .select(SQLExpressions.nextval("team_seq"))
+                .fetchOne());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            shards.write(shard, queryFactory -> {
+                queryFactory.insert(team)
+                        .set(team.id, teamId)
+                        .set(team.name, name)
+                        .execute();
+                dataVersion.touch();
+                return null;
+            });
+        }
+        return teamId;
+    }
+
+    public long saveMember(String username, int age, Long teamId) {
+        int shard = shards.shardOf(teamId);
+        return shards.write(shard, queryFactory -> {
+            if (teamId != null && queryFactory.selectOne().from(team).where(team.id.eq(teamId)).fetchFirst() == null) {
+                throw new IllegalArgumentException("unknown team: " + teamId);
+            }
+            long sequence = queryFactory.select(SQLExpressions.nextval("member_seq")).fetchOne();
+            long memberId = sequence * shards.size() + shard;
+            queryFactory.insert(member)
+                    .set(member.memberId, memberId)
+                    .set(member.username, username)
+                    .set(member.usernameNormalized, Usernames.normalize(username))
+                    .set(member.age, age)
+                    .set(member.teamId, teamId)
+                    .execute();
+            dataVersion.touch();
+            return memberId;
+        });
+    }
+}
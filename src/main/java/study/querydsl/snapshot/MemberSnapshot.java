@@ -0,0 +1,188 @@
+package study.querydsl.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 회원/팀 스냅샷 파일 읽기 (메모리 매핑). 파일 전체를 한 번 매핑하고 열은 그 위의 뷰라서 복사가 없다.
+ * 분석용 스캔은 memberIds()/ages()/teamIds() 버퍼를 그대로 돌면 된다 (문자열은 필요할 때만 디코딩).
+ *
+ * <pre>
+ * 헤더 64바이트 (little-endian)
+ *   magic "MSN1", version, 회원 수, 팀 수, 절 시작 위치 8개 (아래 순서)
+ * 회원 열 (고정 폭, 행 번호 = 배열 인덱스)
+ *   member_id long[n] | age int[n] | team_id long[n] (팀 없으면 NO_TEAM)
+ *   username (offset int, length int)[n] | username UTF-8 바이트
+ * 팀 표 (id 순)
+ *   id long[t] | name (offset int, length int)[t] | name UTF-8 바이트
+ * </pre>
+ * 문자열 length가 -1이면 null. 절은 8바이트 경계에서 시작. 한 번에 매핑하므로 파일은 2GB 미만.
+ */
+public final class MemberSnapshot implements AutoCloseable {
+    public static final long NO_TEAM = -1L;
+
+    static final int MAGIC = 'M' | 'S' << 8 | 'N' << 16 | '1' << 24;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int SECTIONS = 8;
+    static final int MEMBER_IDS = 0, AGES = 1, TEAM_IDS = 2, USERNAME_INDEX = 3, USERNAME_BYTES = 4,
+            TEAM_TABLE_IDS = 5, TEAM_NAME_INDEX = 6, TEAM_NAME_BYTES = 7;
+
+    private final FileChannel channel;
+    private final ByteBuffer file;
+    private final int memberCount;
+    private final int teamCount;
+    private final LongBuffer memberIds;
+    private final IntBuffer ages;
+    private final LongBuffer teamIds;
+    private final IntBuffer usernameIndex;
+    private final ByteBuffer usernameBytes;
+    private final LongBuffer teamTableIds;
+    private final IntBuffer teamNameIndex;
+    private final ByteBuffer teamNameBytes;
+
+    private MemberSnapshot(FileChannel channel, MappedByteBuffer mapped) {
+        this.channel = channel;
+        this.file = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (file.limit() < HEADER_BYTES || file.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not a member snapshot");
+        }
+        if (file.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("unsupported snapshot version: " + file.getInt(4));
+        }
+        this.memberCount = file.getInt(8);
+        this.teamCount = file.getInt(12);
+        this.memberIds = section(MEMBER_IDS, memberCount * 8L).asLongBuffer();
+        this.ages = section(AGES, memberCount * 4L).asIntBuffer();
+        this.teamIds = section(TEAM_IDS, memberCount * 8L).asLongBuffer();
+        this.usernameIndex = section(USERNAME_INDEX, memberCount * 8L).asIntBuffer();
+        this.usernameBytes = section(USERNAME_BYTES, -1);
+        this.teamTableIds = section(TEAM_TABLE_IDS, teamCount * 8L).asLongBuffer();
+        this.teamNameIndex = section(TEAM_NAME_INDEX, teamCount * 8L).asIntBuffer();
+        this.teamNameBytes = section(TEAM_NAME_BYTES, -1);
+    }
+
+    public static MemberSnapshot open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() >= Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("snapshot too large to map: " + channel.size());
+            }
+            return new MemberSnapshot(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int memberCount() {
+        return memberCount;
+    }
+
+    public int teamCount() {
+        return teamCount;
+    }
+
+    // 열 전체 뷰 (읽기 전용, 복사 없음). 위치/한계는 호출자 것이므로 매번 새 뷰.
+    public LongBuffer memberIds() {
+        return memberIds.duplicate();
+    }
+
+    public IntBuffer ages() {
+        return ages.duplicate();
+    }
+
+    public LongBuffer teamIds() {
+        return teamIds.duplicate();
+    }
+
+    public long memberId(int row) {
+        return memberIds.get(row);
+    }
+
+    public int age(int row) {
+        return ages.get(row);
+    }
+
+    public long teamId(int row) {
+        return teamIds.get(row);
+    }
+
+    public String username(int row) {
+        return string(usernameIndex, usernameBytes, row);
+    }
+
+    // 디코딩 없이 UTF-8 바이트 그대로 (null이면 null)
+    public ByteBuffer usernameBytes(int row) {
+        return slice(usernameIndex, usernameBytes, row);
+    }
+
+    public long teamIdAt(int team) {
+        return teamTableIds.get(team);
+    }
+
+    public String teamNameAt(int team) {
+        return string(teamNameIndex, teamNameBytes, team);
+    }
+
+    // 팀 표에서의 위치, 없으면 -1 (id 순이라 이진 탐색)
+    public int teamIndexOf(long teamId) {
+        int low = 0;
+        int high = teamCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long id = teamTableIds.get(mid);
+            if (id < teamId) {
+                low = mid + 1;
+            } else if (id > teamId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public String teamName(int row) {
+        int team = teamIndexOf(teamId(row));
+        return team < 0 ? null : teamNameAt(team);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 매핑은 GC가 풀 때까지 남는다. 채널만 닫음.
+        channel.close();
+    }
+
+    private ByteBuffer section(int section, long expectedBytes) {
+        int start = file.getInt(16 + section * 4);
+        int end = section + 1 < SECTIONS ? file.getInt(16 + (section + 1) * 4) : file.limit();
+        if (start < HEADER_BYTES || end > file.limit() || start > end || (expectedBytes >= 0 && end - start < expectedBytes)) {
+            throw new IllegalArgumentException("corrupt member snapshot: section " + section);
+        }
+        return file.slice(start, end - start).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String string(IntBuffer index, ByteBuffer bytes, int row) {
+        int length = index.get(row * 2 + 1);
+        if (length < 0) {
+            return null;
+        }
+        byte[] copy = new byte[length];
+        bytes.get(index.get(row * 2), copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer slice(IntBuffer index, ByteBuffer bytes, int row) {
+        int length = index.get(row * 2 + 1);
+        return length < 0 ? null : bytes.slice(index.get(row * 2), length).asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.snapshot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 기동 인자로 스냅샷 import/export.
+ *   --snapshot.import=members.snap   기동 시 파일의 팀/회원을 추가 (warm-up/readiness 전)
+ *   --snapshot.export=members.snap   기동 시 현재 팀/회원을 파일로 (import가 같이 있으면 그 뒤에)
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1) // 읽기 모델 rebuild 다음, QueryWarmup 전
+@RequiredArgsConstructor
+public class MemberSnapshotCommand implements ApplicationRunner {
+    static final String IMPORT = "snapshot.import";
+    static final String EXPORT = "snapshot.export";
+
+    private final MemberSnapshotService memberSnapshotService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String file : values(args, IMPORT)) {
+            MemberSnapshotService.Summary summary = memberSnapshotService.importFrom(Path.of(file));
+            log.info("snapshot imported from {}: {} teams, {} members in {} ms", file, summary.teams(), summary.members(), summary.millis());
+        }
+        for (String file : values(args, EXPORT)) {
+            MemberSnapshotService.Summary summary = memberSnapshotService.exportTo(Path.of(file));
+            log.info("snapshot exported to {}: {} teams, {} members, {} bytes in {} ms",
+                    file, summary.teams(), summary.members(), summary.bytes(), summary.millis());
+        }
+    }
+
+    private static List<String> values(ApplicationArguments args, String option) {
+        return args.containsOption(option) ? args.getOptionValues(option) : List.of();
+    }
+}
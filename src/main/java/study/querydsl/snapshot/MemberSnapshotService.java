@@ -0,0 +1,176 @@
+package study.querydsl.snapshot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.change.ChangeEvent;
+import study.querydsl.change.ChangeEventCapture;
+import study.querydsl.change.ChangeVersions;
+import study.querydsl.change.DataVersion;
+import study.querydsl.entity.Usernames;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * DB <-> 스냅샷 파일 (MemberSnapshot). JPA를 거치지 않고 JDBC로 직접.
+ * - export: 읽기 전용 트랜잭션 하나에서 팀/회원을 fetch-size 단위로 스트리밍해서 열 배열에 모은 뒤 파일로.
+ * - import: 새 id로 추가한다 (스냅샷의 id는 팀-회원 관계에만 사용). id는 시퀀스에서 한 번에 예약하므로
+ *   Hibernate가 이미 받아 둔 id 구간이나 기존 행과 겹치지 않는다. insert는 batch-size건씩 묶고 전체가 한 트랜잭션.
+ *   엔티티 콜백/이벤트를 타지 않으므로 버전 컬럼, username_normalized, DataVersion, 변경 이벤트는 여기서 직접 맞춘다.
+ *   읽기 모델은 변경 이벤트(벌크 insert)를 보고 MemberTeamReadModel이 커밋 직전에 새 회원 행을 넣는다.
+ */
+@Service
+public class MemberSnapshotService {
+    private static final String INSERT_TEAM = "insert into team (id, name, created_version, change_version) values (?, ?, ?, ?)";
+    private static final String INSERT_MEMBER = "insert into member"
+            + " (member_id, username, username_normalized, age, team_id, created_version, change_version)"
+            + " values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate exportTransaction;
+    private final TransactionTemplate importTransaction;
+    private final DataVersion dataVersion;
+    private final ChangeEventCapture changeEvents;
+    private final int batchSize;
+
+    public MemberSnapshotService(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 DataVersion dataVersion,
+                                 ChangeEventCapture changeEvents,
+                                 @Value("${querydsl.snapshot.batch-size:1000}") int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(this.batchSize);
+        // 팀과 회원을 같은 시점으로
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setReadOnly(true);
+        this.exportTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.exportTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.importTransaction = new TransactionTemplate(transactionManager);
+        this.dataVersion = dataVersion;
+        this.changeEvents = changeEvents;
+    }
+
+    public Summary exportTo(Path path) {
+        long start = System.nanoTime();
+        MemberSnapshotWriter writer = new MemberSnapshotWriter();
+        exportTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.query("select id, name from team order by id",
+                    (RowCallbackHandler) rs -> writer.addTeam(rs.getLong(1), rs.getString(2)));
+            jdbcTemplate.query("select member_id, username, age, team_id from member order by member_id",
+                    (RowCallbackHandler) rs -> writer.addMember(rs.getLong(1), rs.getString(2), rs.getInt(3),
+                            rs.getObject(4, Long.class)));
+        });
+        try {
+            long bytes = writer.writeTo(path);
+            return new Summary(writer.teamCount(), writer.memberCount(), bytes, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Summary importFrom(Path path) {
+        long start = System.nanoTime();
+        try (MemberSnapshot snapshot = MemberSnapshot.open(path)) {
+            int teams = snapshot.teamCount();
+            int members = snapshot.memberCount();
+            long teamBase = reserveIds("team_seq", teams);
+            long memberBase = reserveIds("member_seq", members);
+            importTransaction.executeWithoutResult(status -> {
+                long version = ChangeVersions.next();
+                batches(INSERT_TEAM, teams, (ps, team) -> {
+                    ps.setLong(1, teamBase + team);
+                    ps.setString(2, snapshot.teamNameAt(team));
+                    ps.setLong(3, version);
+                    ps.setLong(4, version);
+                });
+                batches(INSERT_MEMBER, members, (ps, row) -> {
+                    String username = snapshot.username(row);
+                    int team = snapshot.teamIndexOf(snapshot.teamId(row));
+                    ps.setLong(1, memberBase + row);
+                    ps.setString(2, username);
+                    ps.setString(3, Usernames.normalize(username));
+                    ps.setInt(4, snapshot.age(row));
+                    if (team < 0) {
+                        ps.setNull(5, Types.BIGINT);
+                    } else {
+                        ps.setLong(5, teamBase + team);
+                    }
+                    ps.setLong(6, version);
+                    ps.setLong(7, version);
+                });
+                dataVersion.touch();
+                if (teams > 0) {
+                    changeEvents.bulk(ChangeEvent.EntityKind.TEAM, INSERT_TEAM);
+                }
+                if (members > 0) {
+                    changeEvents.bulk(ChangeEvent.EntityKind.MEMBER, INSERT_MEMBER);
+                }
+            });
+            return new Summary(teams, members, -1, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void batches(String sql, int rows, RowSetter setter) {
+        for (int from = 0; from < rows; from += batchSize) {
+            int offset = from;
+            int size = Math.min(batchSize, rows - from);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setter.set(ps, offset + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    /**
+     * 시퀀스에서 연속된 id count개를 예약하고 첫 id를 돌려준다.
+     * Hibernate(pooled 최적화기, 증가폭 inc)는 시퀀스 값 v를 받으면 (v - inc, v] 구간을 쓴다 (첫 값 1이면 1부터).
+     * 증가폭을 잠깐 count + inc로 바꿔서 값 v를 받으면 다음 값은 v + count + inc -> 그 구간은 v + count 초과이므로
+     * (v - inc, v - inc + count]는 아무도 쓰지 않는다. 사이에 끼어든 다른 호출은 구간이 커질 뿐 겹치지 않는다.
+     * H2는 DDL마다 커밋하므로 import 트랜잭션 밖에서.
+     */
+    private long reserveIds(String sequence, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        Long increment = jdbcTemplate.queryForObject(
+                "select increment from information_schema.sequences where sequence_schema = current_schema and sequence_name = ?",
+                Long.class, sequence.toUpperCase());
+        jdbcTemplate.execute("alter sequence " + sequence + " increment by " + (count + increment));
+        try {
+            Long value = jdbcTemplate.queryForObject("select next value for " + sequence, Long.class);
+            return Math.max(1, value - increment + 1);
+        } finally {
+            jdbcTemplate.execute("alter sequence " + sequence + " increment by " + increment);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void set(PreparedStatement ps, int row) throws SQLException;
+    }
+
+    // bytes는 export만 (import는 -1)
+    public record Summary(int teams, int members, long bytes, long millis) {
+    }
+}
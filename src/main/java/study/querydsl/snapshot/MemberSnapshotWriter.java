@@ -0,0 +1,146 @@
+package study.querydsl.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static study.querydsl.snapshot.MemberSnapshot.*;
+
+/**
+ * 스냅샷 파일 쓰기. 팀/회원을 열 배열에 모은 뒤 writeTo에서 파일 크기를 정하고 매핑해서 한 번에 채운다.
+ * 같은 디렉터리의 임시 파일에 쓰고 옮기므로 기존 파일을 읽는 쪽은 반쯤 쓴 파일을 보지 않는다.
+ * 팀은 id 순으로 넣어야 한다 (리더가 이진 탐색).
+ */
+public class MemberSnapshotWriter {
+    private long[] memberIds = new long[1024];
+    private int[] ages = new int[1024];
+    private long[] teamIds = new long[1024];
+    private final Strings usernames = new Strings();
+    private int memberCount;
+
+    private long[] teamTableIds = new long[16];
+    private final Strings teamNames = new Strings();
+    private int teamCount;
+
+    public void addTeam(long id, String name) {
+        if (teamCount > 0 && teamTableIds[teamCount - 1] >= id) {
+            throw new IllegalArgumentException("teams must be added in id order: " + id);
+        }
+        if (teamCount == teamTableIds.length) {
+            teamTableIds = Arrays.copyOf(teamTableIds, teamCount * 2);
+        }
+        teamTableIds[teamCount++] = id;
+        teamNames.add(name);
+    }
+
+    public void addMember(long id, String username, int age, Long teamId) {
+        if (memberCount == memberIds.length) {
+            int capacity = memberCount * 2;
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamIds = Arrays.copyOf(teamIds, capacity);
+        }
+        memberIds[memberCount] = id;
+        ages[memberCount] = age;
+        teamIds[memberCount] = teamId != null ? teamId : NO_TEAM;
+        memberCount++;
+        usernames.add(username);
+    }
+
+    public int memberCount() {
+        return memberCount;
+    }
+
+    public int teamCount() {
+        return teamCount;
+    }
+
+    // 쓴 바이트 수
+    public long writeTo(Path path) throws IOException {
+        long[] sizes = {
+                memberCount * 8L, memberCount * 4L, memberCount * 8L, memberCount * 8L, usernames.length,
+                teamCount * 8L, teamCount * 8L, teamNames.length};
+        long[] starts = new long[SECTIONS];
+        long position = HEADER_BYTES;
+        for (int i = 0; i < SECTIONS; i++) {
+            starts[i] = position;
+            position = align(position + sizes[i]);
+        }
+        if (position >= Integer.MAX_VALUE) {
+            throw new IllegalStateException("snapshot too large: " + position + " bytes");
+        }
+
+        Path absolute = path.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, position);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                mapped.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, memberCount).putInt(12, teamCount);
+                for (int i = 0; i < SECTIONS; i++) {
+                    mapped.putInt(16 + i * 4, (int) starts[i]);
+                }
+                mapped.slice((int) starts[MEMBER_IDS], (int) sizes[MEMBER_IDS]).order(ByteOrder.LITTLE_ENDIAN)
+                        .asLongBuffer().put(memberIds, 0, memberCount);
+                mapped.slice((int) starts[AGES], (int) sizes[AGES]).order(ByteOrder.LITTLE_ENDIAN)
+                        .asIntBuffer().put(ages, 0, memberCount);
+                mapped.slice((int) starts[TEAM_IDS], (int) sizes[TEAM_IDS]).order(ByteOrder.LITTLE_ENDIAN)
+                        .asLongBuffer().put(teamIds, 0, memberCount);
+                mapped.slice((int) starts[USERNAME_INDEX], (int) sizes[USERNAME_INDEX]).order(ByteOrder.LITTLE_ENDIAN)
+                        .asIntBuffer().put(usernames.index, 0, memberCount * 2);
+                mapped.put((int) starts[USERNAME_BYTES], usernames.bytes, 0, usernames.length);
+                mapped.slice((int) starts[TEAM_TABLE_IDS], (int) sizes[TEAM_TABLE_IDS]).order(ByteOrder.LITTLE_ENDIAN)
+                        .asLongBuffer().put(teamTableIds, 0, teamCount);
+                mapped.slice((int) starts[TEAM_NAME_INDEX], (int) sizes[TEAM_NAME_INDEX]).order(ByteOrder.LITTLE_ENDIAN)
+                        .asIntBuffer().put(teamNames.index, 0, teamCount * 2);
+                mapped.put((int) starts[TEAM_NAME_BYTES], teamNames.bytes, 0, teamNames.length);
+                mapped.force();
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return position;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    // (offset, length) 쌍 + UTF-8 바이트. null은 length -1.
+    private static final class Strings {
+        int[] index = new int[2048];
+        byte[] bytes = new byte[16 * 1024];
+        int length;
+        int count;
+
+        void add(String value) {
+            if (count * 2 == index.length) {
+                index = Arrays.copyOf(index, index.length * 2);
+            }
+            if (value == null) {
+                index[count * 2] = length;
+                index[count * 2 + 1] = -1;
+                count++;
+                return;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            if (length + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + encoded.length));
+            }
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            index[count * 2] = length;
+            index[count * 2 + 1] = encoded.length;
+            length += encoded.length;
+            count++;
+        }
+    }
+}
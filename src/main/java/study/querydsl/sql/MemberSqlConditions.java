@@ -0,0 +1,59 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Usernames;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * querydsl-sql 회원 검색의 select 대상과 where 조건.
+ * member m left join team t on m.team_id = t.id 를 전제로 한다 (MemberSqlRepository, 샤드 검색 공용).
+ */
+public final class MemberSqlConditions {
+    private MemberSqlConditions() {
+    }
+
+    public static QMemberTeamDto memberTeamDto() {
+        return new QMemberTeamDto(
+                member.memberId,
+                member.username,
+                member.age,
+                team.id,
+                team.name);
+    }
+
+    public static Predicate[] where(MemberSearchCondition condition) {
+        return new Predicate[]{
+                usernameEq(condition),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    private static BooleanExpression usernameEq(MemberSearchCondition condition) {
+        if (!StringUtils.hasText(condition.getUsername())) {
+            return null;
+        }
+        return condition.isUsernameIgnoreCase()
+                ? member.usernameNormalized.eq(Usernames.normalize(condition.getUsername()))
+                : member.username.eq(condition.getUsername());
+    }
+
+    private static BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.sql;
+
+import com.querydsl.sql.SQLBaseListener;
+import com.querydsl.sql.SQLListenerContext;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
+import com.querydsl.sql.SQLTemplatesRegistry;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.query.QueryDeadline;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@Configuration
+public class QuerydslSqlConfig {
+
+    @Bean
+    public com.querydsl.sql.Configuration querydslSqlConfiguration(DataSource dataSource) throws SQLException {
+        SQLTemplates templates;
+        try (Connection connection = dataSource.getConnection()) {
+            templates = new SQLTemplatesRegistry().getTemplates(connection.getMetaData());
+        }
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(templates);
+        configuration.setExceptionTranslator(new SpringExceptionTranslator());
+        // Hibernate를 거치지 않으므로 StatementInspector 대신 여기서 DB를 탄 요청으로 표시
+        configuration.addListener(new SQLBaseListener() {
+            @Override
+            public void preExecute(SQLListenerContext context) {
+                QueryDeadline.markQueried();
+            }
+        });
+        return configuration;
+    }
+
+    // SpringConnectionProvider는 현재 트랜잭션에 묶인 커넥션을 쓴다.
+    // JpaTransactionManager가 JPA와 같은 커넥션을 DataSource에 묶어주므로 JPA와 같은 트랜잭션 안에서 실행된다.
+    @Bean
+    public SQLQueryFactory sqlQueryFactory(com.querydsl.sql.Configuration querydslSqlConfiguration, DataSource dataSource) {
+        return new SQLQueryFactory(querydslSqlConfiguration, new SpringConnectionProvider(dataSource));
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * member 테이블 메타데이터 (querydsl-sql-codegen MetaDataExporter 출력 형식).
+ * 스키마는 JPA ddl-auto로 만들어지므로(빌드 시점에 codegen을 돌릴 DB가 없음) 엔티티를 바꾸면 여기도 같이 맞춰야 한다.
+ * 어긋나면 SqlMetadataTest가 실제 스키마(컬럼 순서/타입/크기/null, 기본 키)와 비교해서 잡는다.
+ */
+public class SMember extends RelationalPathBase<SMember> {
+    private static final long serialVersionUID = 1L;
+
+    public static final SMember member = new SMember("m");
+
+    public final NumberPath<Long> memberId = createNumber("memberId", Long.class);
+
+    public final StringPath username = createString("username");
+
+    public final StringPath usernameNormalized = createString("usernameNormalized");
+
+    public final NumberPath<Integer> age = createNumber("age", Integer.class);
+
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+    public final NumberPath<Long> createdVersion = createNumber("createdVersion", Long.class);
+
+    public final NumberPath<Long> changeVersion = createNumber("changeVersion", Long.class);
+
+    public final PrimaryKey<SMember> primary = createPrimaryKey(memberId);
+
+    public SMember(String variable) {
+        super(SMember.class, forVariable(variable), "PUBLIC", "member");
+        addMetadata();
+    }
+
+    public SMember(Path<? extends SMember> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "member");
+        addMetadata();
+    }
+
+    public SMember(PathMetadata metadata) {
+        super(SMember.class, metadata, "PUBLIC", "member");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(age, ColumnMetadata.named("age").withIndex(1).ofType(Types.INTEGER).withSize(32).notNull());
+        addMetadata(changeVersion, ColumnMetadata.named("change_version").withIndex(2).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(createdVersion, ColumnMetadata.named("created_version").withIndex(3).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(memberId, ColumnMetadata.named("member_id").withIndex(4).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(teamId, ColumnMetadata.named("team_id").withIndex(5).ofType(Types.BIGINT).withSize(64));
+        addMetadata(username, ColumnMetadata.named("username").withIndex(6).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(usernameNormalized, ColumnMetadata.named("username_normalized").withIndex(7).ofType(Types.VARCHAR).withSize(255));
+    }
+}
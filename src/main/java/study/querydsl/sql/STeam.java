@@ -0,0 +1,54 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * team 테이블 메타데이터 (querydsl-sql-codegen MetaDataExporter 출력 형식). SMember와 같이 SqlMetadataTest로 확인.
+ */
+public class STeam extends RelationalPathBase<STeam> {
+    private static final long serialVersionUID = 1L;
+
+    public static final STeam team = new STeam("t");
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    public final StringPath name = createString("name");
+
+    public final NumberPath<Long> createdVersion = createNumber("createdVersion", Long.class);
+
+    public final NumberPath<Long> changeVersion = createNumber("changeVersion", Long.class);
+
+    public final PrimaryKey<STeam> primary = createPrimaryKey(id);
+
+    public STeam(String variable) {
+        super(STeam.class, forVariable(variable), "PUBLIC", "team");
+        addMetadata();
+    }
+
+    public STeam(Path<? extends STeam> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "team");
+        addMetadata();
+    }
+
+    public STeam(PathMetadata metadata) {
+        super(STeam.class, metadata, "PUBLIC", "team");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(changeVersion, ColumnMetadata.named("change_version").withIndex(1).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(createdVersion, ColumnMetadata.named("created_version").withIndex(2).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(id, ColumnMetadata.named("id").withIndex(3).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(name, ColumnMetadata.named("name").withIndex(4).ofType(Types.VARCHAR).withSize(255));
+    }
+}
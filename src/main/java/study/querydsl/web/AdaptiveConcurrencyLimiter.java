@@ -0,0 +1,150 @@
+package study.querydsl.web;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 지연시간을 보고 동시 실행 한도를 조절하는 리미터 (AIMD).
+ * - 지연이 기준(기준 지연 * tolerance) 이내이고 한도를 거의 다 쓰고 있으면 한도를 조금씩 올리고
+ * - 기준을 넘거나 실패하면 한도를 곱으로 줄인다.
+ * - 기준 지연은 최근 WINDOW개 표본의 하위 BASELINE_PERCENTILE 값. 전체 기간 최솟값이 아니므로
+ *   유난히 빠른 몇 건이 기준을 계속 끌어내리지 않고, 실제 지연이 바뀌면 한 창 안에 따라간다.
+ *   첫 창이 차기 전에는 지금까지의 최솟값.
+ * 한도가 차 있으면 잠깐(maxQueueWait) 줄을 세우고, 그래도 안 되면 거절한다.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double BACKOFF = 0.9;
+    private static final double TOLERANCE = 2.0;
+    private static final int WINDOW = 128;
+    private static final double BASELINE_PERCENTILE = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final long maxQueueWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private final long[] window = new long[WINDOW];
+    private final long[] sorted = new long[WINDOW];
+    private int windowSize;
+    private long baselineRttNanos = Long.MAX_VALUE;
+    private boolean baselineFromWindow;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueued, long maxQueueWaitMillis) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = maxQueued;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMillis);
+    }
+
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (queued >= maxQueued) {
+                return false;
+            }
+            queued++;
+            try {
+                long remaining = maxQueueWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 줄 서지 않고 자리가 있을 때만 (prefetch처럼 미뤄도 되는 작업)
+    public boolean tryAcquireNow() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long rttNanos, boolean failed) {
+        release(rttNanos, failed, true);
+    }
+
+    // sample=false면 자리만 돌려주고 한도/기준 지연은 그대로 (DB를 안 탄 요청)
+    public void release(long rttNanos, boolean failed, boolean sample) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+            if (sample) {
+                onSample(rttNanos, failed, saturated);
+            }
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSample(long rttNanos, boolean failed, boolean saturated) {
+        if (!failed) {
+            updateBaseline(rttNanos);
+        }
+        if (failed || rttNanos > baselineRttNanos * TOLERANCE) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+        } else if (saturated) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private void updateBaseline(long rttNanos) {
+        window[windowSize++] = rttNanos;
+        if (!baselineFromWindow) {
+            baselineRttNanos = Math.min(baselineRttNanos, rttNanos);
+        }
+        if (windowSize == WINDOW) {
+            System.arraycopy(window, 0, sorted, 0, WINDOW);
+            Arrays.sort(sorted);
+            baselineRttNanos = sorted[(int) (WINDOW * BASELINE_PERCENTILE)];
+            baselineFromWindow = true;
+            windowSize = 0;
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public long getBaselineRttMicros() {
+        return baselineRttNanos == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMicros(baselineRttNanos);
+    }
+}
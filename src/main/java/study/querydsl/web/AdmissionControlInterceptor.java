@@ -0,0 +1,96 @@
+package study.querydsl.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DB를 쓰는 컨트롤러 앞단의 입장 제어. 엔드포인트(핸들러 메서드)마다 리미터를 따로 둔다.
+ * 한도를 넘으면 톰캣 스레드가 커넥션 풀 앞에서 줄 서지 않도록 바로 503 + Retry-After로 돌려보낸다.
+ */
+@RequiredArgsConstructor
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+    private static final String LIMITER = AdmissionControlInterceptor.class.getName() + ".limiter";
+    private static final String START = AdmissionControlInterceptor.class.getName() + ".start";
+
+    private final MeterRegistry meterRegistry;
+    private final LimiterSettings settings;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public record LimiterSettings(int initialLimit, int minLimit, int maxLimit, int maxQueued,
+                                  long maxQueueWaitMillis, int retryAfterSeconds) {
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true; // 비동기 핸들러는 처음 들어올 때 받은 자리를 끝날 때(afterCompletion) 돌려준다
+        }
+        String endpoint = handlerMethod.getMethod().getName();
+        AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(endpoint, this::newLimiter);
+        boolean acquired;
+        try {
+            acquired = limiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.computeIfAbsent(endpoint, e -> Counter.builder("member.limiter.rejected")
+                    .tag("endpoint", e)
+                    .register(meterRegistry)).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(settings.retryAfterSeconds()));
+            return false;
+        }
+        request.setAttribute(LIMITER, limiter);
+        request.setAttribute(START, System.nanoTime());
+        return true;
+    }
+
+    // 이 요청이 받은 엔드포인트 리미터. 입장 제어를 안 거쳤으면 null.
+    static AdaptiveConcurrencyLimiter limiterOf(HttpServletRequest request) {
+        return (AdaptiveConcurrencyLimiter) request.getAttribute(LIMITER);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        AdaptiveConcurrencyLimiter limiter = (AdaptiveConcurrencyLimiter) request.getAttribute(LIMITER);
+        if (limiter == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - (long) request.getAttribute(START);
+        boolean failed = ex != null || response.getStatus() >= 500;
+        // 304, 프리페치 적중처럼 DB를 안 탄 요청은 지연 기준을 끌어내리므로 표본에서 뺀다. 실패(커넥션 대기 초과 등)는 포함.
+        limiter.release(elapsed, failed, failed || QueryDeadlineInterceptor.reachedDatabase(request));
+    }
+
+    private AdaptiveConcurrencyLimiter newLimiter(String endpoint) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(settings.initialLimit(), settings.minLimit(),
+                settings.maxLimit(), settings.maxQueued(), settings.maxQueueWaitMillis());
+        Gauge.builder("member.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("endpoint", endpoint).register(meterRegistry);
+        Gauge.builder("member.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("endpoint", endpoint).register(meterRegistry);
+        Gauge.builder("member.limiter.queued", limiter, AdaptiveConcurrencyLimiter::getQueued)
+                .tag("endpoint", endpoint).register(meterRegistry);
+        Gauge.builder("member.limiter.rtt.baseline", limiter, AdaptiveConcurrencyLimiter::getBaselineRttMicros)
+                .tag("endpoint", endpoint).baseUnit("microseconds").register(meterRegistry);
+        return limiter;
+    }
+}
@@ -0,0 +1,206 @@
+package study.querydsl.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import study.querydsl.change.DataVersion;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.query.QueryDeadline;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * 페이지 N을 응답하면서 같은 조건의 N+1 페이지를 백그라운드로 미리 조회해 둔다 (opt-in).
+ * - 키에 데이터 버전을 넣어서 쓰기가 커밋되면 미리 읽은 페이지는 더 이상 쓰이지 않는다.
+ * - 캐시는 짧은 TTL + 최대 개수 제한. 쓰이지 않고 버려진 prefetch는 wasted로 집계.
+ * - 아직 조회 중인 prefetch에 요청이 오면 새로 조회하지 않고 그 결과를 기다린다. 기다리는 건 요청의 남은 마감
+ *   (마감이 없으면 TTL)까지만이고, 넘으면 직접 조회한다.
+ * - prefetch 조회는 그 요청의 마감 시각을 물려받고, 요청 엔드포인트의 동시성 리미터 자리를 하나 잡고 돈다.
+ *   자리가 바로 없으면(줄 서지 않음) prefetch는 하지 않는다.
+ * - 비동기 엔드포인트는 {@link #deferred}로 요청 스레드에서 리미터를 잡아 두고 작업 스레드에서 조회한다.
+ */
+@Component
+public class MemberPagePrefetcher {
+    private final DataVersion dataVersion;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Prefetched> cache = new LinkedHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter wasted;
+    private final Counter scheduled;
+
+    public MemberPagePrefetcher(DataVersion dataVersion,
+                                MeterRegistry meterRegistry,
+                                @Value("${querydsl.prefetch.enabled:false}") boolean enabled,
+                                @Value("${querydsl.prefetch.ttl-ms:5000}") long ttlMillis,
+                                @Value("${querydsl.prefetch.max-entries:500}") int maxEntries) {
+        this.dataVersion = dataVersion;
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("member.prefetch").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("member.prefetch").tag("result", "miss").register(meterRegistry);
+        this.wasted = Counter.builder("member.prefetch").tag("result", "wasted").register(meterRegistry);
+        this.scheduled = Counter.builder("member.prefetch").tag("result", "scheduled").register(meterRegistry);
+        AtomicInteger seq = new AtomicInteger();
+        // 밀리면 prefetch는 그냥 포기 (큐가 차면 거절)
+        this.executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(100), runnable -> {
+            Thread thread = new Thread(runnable, "member-page-prefetch-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Page<MemberTeamDto> page(String api, MemberSearchCondition condition, Pageable pageable,
+                                    BiFunction<MemberSearchCondition, Pageable, Page<MemberTeamDto>> loader) {
+        return page(api, condition, pageable, loader, currentLimiter());
+    }
+
+    // Callable 안에서 부를 page. 작업 스레드에는 요청 컨텍스트(RequestContextHolder)가 없어서 리미터를 미리 찾아 둔다.
+    public Supplier<Page<MemberTeamDto>> deferred(String api, MemberSearchCondition condition, Pageable pageable,
+                                                  BiFunction<MemberSearchCondition, Pageable, Page<MemberTeamDto>> loader) {
+        AdaptiveConcurrencyLimiter limiter = currentLimiter();
+        return () -> page(api, condition, pageable, loader, limiter);
+    }
+
+    private Page<MemberTeamDto> page(String api, MemberSearchCondition condition, Pageable pageable,
+                                     BiFunction<MemberSearchCondition, Pageable, Page<MemberTeamDto>> loader,
+                                     AdaptiveConcurrencyLimiter limiter) {
+        if (!enabled) {
+            return loader.apply(condition, pageable);
+        }
+        String conditionKey = api + "|" + condition;
+        Page<MemberTeamDto> page = take(key(conditionKey, pageable, dataVersion.current()));
+        if (page != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            page = loader.apply(condition, pageable);
+        }
+        if (page.hasNext()) {
+            prefetch(conditionKey, condition, page.nextPageable(), loader, limiter);
+        }
+        return page;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void prefetch(String conditionKey, MemberSearchCondition condition, Pageable next,
+                          BiFunction<MemberSearchCondition, Pageable, Page<MemberTeamDto>> loader,
+                          AdaptiveConcurrencyLimiter limiter) {
+        // 조회 시작 전 버전으로 키를 만든다. 조회 중에 쓰기가 커밋되면 이 결과는 쓰이지 않음.
+        String key = key(conditionKey, next, dataVersion.current());
+        synchronized (cache) {
+            purgeExpired(System.nanoTime());
+            if (cache.containsKey(key)) {
+                return;
+            }
+        }
+        if (limiter != null && !limiter.tryAcquireNow()) {
+            return;
+        }
+        CompletableFuture<Page<MemberTeamDto>> future;
+        try {
+            future = CompletableFuture.supplyAsync(QueryDeadline.inheritingDeadlineOnly(() -> {
+                try {
+                    return loader.apply(condition, next);
+                } finally {
+                    release(limiter);
+                }
+            }), executor);
+        } catch (RejectedExecutionException e) {
+            release(limiter);
+            return;
+        }
+        scheduled.increment();
+        synchronized (cache) {
+            cache.put(key, new Prefetched(future, System.nanoTime() + ttlNanos));
+            while (cache.size() > maxEntries) {
+                Iterator<Prefetched> eldest = cache.values().iterator();
+                eldest.next();
+                eldest.remove();
+                wasted.increment();
+            }
+        }
+    }
+
+    private Page<MemberTeamDto> take(String key) {
+        Prefetched prefetched;
+        synchronized (cache) {
+            purgeExpired(System.nanoTime());
+            prefetched = cache.remove(key);
+        }
+        if (prefetched == null) {
+            return null;
+        }
+        QueryDeadline deadline = QueryDeadline.current();
+        long waitMillis = deadline != null ? deadline.remainingMillis() : TimeUnit.NANOSECONDS.toMillis(ttlNanos);
+        try {
+            return prefetched.future().get(Math.max(0, waitMillis), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException | RuntimeException e) {
+            return null; // 늦거나 실패했으면 직접 조회
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // 자리만 돌려준다. prefetch 지연은 요청 지연이 아니므로 한도/기준 지연에는 넣지 않음.
+    private static void release(AdaptiveConcurrencyLimiter limiter) {
+        if (limiter != null) {
+            limiter.release(0, false, false);
+        }
+    }
+
+    private static AdaptiveConcurrencyLimiter currentLimiter() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet
+                ? AdmissionControlInterceptor.limiterOf(servlet.getRequest())
+                : null;
+    }
+
+    // 넣은 순서 = 만료 순서 (TTL이 모두 같음)
+    private void purgeExpired(long now) {
+        Iterator<Prefetched> it = cache.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiresAt() - now > 0) {
+                return;
+            }
+            it.remove();
+            wasted.increment();
+        }
+    }
+
+    private static String key(String conditionKey, Pageable pageable, long version) {
+        return version + "|" + conditionKey + "|" + pageable;
+    }
+
+    private record Prefetched(CompletableFuture<Page<MemberTeamDto>> future, long expiresAt) {
+    }
+}
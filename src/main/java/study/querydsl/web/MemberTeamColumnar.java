@@ -0,0 +1,266 @@
+package study.querydsl.web;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원 검색 결과의 컬럼 단위 바이너리 형식 (application/x-member-columnar).
+ * <pre>
+ * "MTC1" kind(1B: 0=목록, 1=페이지, 2=묶음 검색)
+ *   페이지면 varint page, varint size, varint totalElements
+ *   묶음이면 varint 블록 수
+ * 블록: varint n
+ *   팀 사전: varint 팀 수, (varint teamId, 문자열 name) ...   - 반복되는 팀 이름은 한 번만
+ *   memberId 열: zigzag varint (앞 행과의 차이)
+ *   username 열: 문자열
+ *   age 열: zigzag varint
+ *   team 열: varint 사전 번호 + 1 (0 = 팀 없음)
+ * 문자열: varint (UTF-8 길이 + 1, 0 = null) + 바이트
+ * </pre>
+ */
+public final class MemberTeamColumnar {
+    public static final MediaType MEDIA_TYPE = new MediaType("application", "x-member-columnar");
+    static final byte[] MAGIC = {'M', 'T', 'C', '1'};
+    static final byte LIST = 0;
+    static final byte PAGE = 1;
+    static final byte BATCH = 2;
+
+    private MemberTeamColumnar() {
+    }
+
+    public static void writeList(List<MemberTeamDto> rows, OutputStream out) throws IOException {
+        Sink sink = header(LIST, rows.size());
+        writeBlock(rows, sink);
+        sink.writeTo(out);
+    }
+
+    public static void writePage(Page<MemberTeamDto> page, OutputStream out) throws IOException {
+        Sink sink = header(PAGE, page.getNumberOfElements());
+        sink.varint(page.getNumber());
+        sink.varint(page.getSize());
+        sink.varint(page.getTotalElements());
+        writeBlock(page.getContent(), sink);
+        sink.writeTo(out);
+    }
+
+    public static void writeBatch(List<List<MemberTeamDto>> blocks, OutputStream out) throws IOException {
+        int rows = 0;
+        for (List<MemberTeamDto> block : blocks) {
+            rows += block.size();
+        }
+        Sink sink = header(BATCH, rows);
+        sink.varint(blocks.size());
+        for (List<MemberTeamDto> block : blocks) {
+            writeBlock(block, sink);
+        }
+        sink.writeTo(out);
+    }
+
+    public static Decoded read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("not a member columnar stream");
+        }
+        byte kind = data.readByte();
+        int page = 0;
+        int size = 0;
+        long total = 0;
+        int blockCount = 1;
+        if (kind == PAGE) {
+            page = (int) readVarint(data);
+            size = (int) readVarint(data);
+            total = readVarint(data);
+        } else if (kind == BATCH) {
+            blockCount = (int) readVarint(data);
+        }
+        List<List<MemberTeamDto>> blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            blocks.add(readBlock(data));
+        }
+        return new Decoded(kind, page, size, total, blocks);
+    }
+
+    // 행당 대략 16바이트로 잡고 시작 (모자라면 늘림)
+    private static Sink header(byte kind, int rows) {
+        Sink sink = new Sink(64 + rows * 16);
+        sink.bytes(MAGIC);
+        sink.raw(kind);
+        return sink;
+    }
+
+    private static void writeBlock(List<MemberTeamDto> rows, Sink out) {
+        Map<Long, Integer> teamIndex = new HashMap<>();
+        List<MemberTeamDto> teams = new ArrayList<>();
+        int[] teamRefs = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            MemberTeamDto row = rows.get(i);
+            if (row.getTeamId() == null) {
+                continue;
+            }
+            Integer index = teamIndex.putIfAbsent(row.getTeamId(), teams.size());
+            if (index == null) {
+                index = teams.size();
+                teams.add(row);
+            }
+            teamRefs[i] = index + 1;
+        }
+
+        out.varint(rows.size());
+        out.varint(teams.size());
+        for (MemberTeamDto team : teams) {
+            out.varint(team.getTeamId());
+            out.string(team.getTeamName());
+        }
+        long previousId = 0;
+        for (MemberTeamDto row : rows) {
+            out.varint(zigzag(row.getMemberId() - previousId));
+            previousId = row.getMemberId();
+        }
+        for (MemberTeamDto row : rows) {
+            out.string(row.getUsername());
+        }
+        for (MemberTeamDto row : rows) {
+            out.varint(zigzag(row.getAge()));
+        }
+        for (int teamRef : teamRefs) {
+            out.varint(teamRef);
+        }
+    }
+
+    private static List<MemberTeamDto> readBlock(DataInputStream in) throws IOException {
+        int n = (int) readVarint(in);
+        int teamCount = (int) readVarint(in);
+        long[] teamIds = new long[teamCount];
+        String[] teamNames = new String[teamCount];
+        for (int i = 0; i < teamCount; i++) {
+            teamIds[i] = readVarint(in);
+            teamNames[i] = readString(in);
+        }
+        long[] memberIds = new long[n];
+        long previousId = 0;
+        for (int i = 0; i < n; i++) {
+            previousId += unzigzag(readVarint(in));
+            memberIds[i] = previousId;
+        }
+        String[] usernames = new String[n];
+        for (int i = 0; i < n; i++) {
+            usernames[i] = readString(in);
+        }
+        int[] ages = new int[n];
+        for (int i = 0; i < n; i++) {
+            ages[i] = (int) unzigzag(readVarint(in));
+        }
+        List<MemberTeamDto> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int teamRef = (int) readVarint(in);
+            Long teamId = teamRef == 0 ? null : teamIds[teamRef - 1];
+            String teamName = teamRef == 0 ? null : teamNames[teamRef - 1];
+            rows.add(new MemberTeamDto(memberIds[i], usernames[i], ages[i], teamId, teamName));
+        }
+        return rows;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("varint too long");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // 바이트 단위 쓰기가 많아서 스트림 대신 배열에 직접 쓰고 마지막에 한 번에 내보낸다
+    private static final class Sink {
+        private byte[] buf;
+        private int length;
+
+        Sink(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        void raw(int b) {
+            ensure(1);
+            buf[length++] = (byte) b;
+        }
+
+        void bytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, length, bytes.length);
+            length += bytes.length;
+        }
+
+        // LEB128 부호 없는 varint
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[length++] = (byte) value;
+        }
+
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            bytes(bytes);
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(buf, 0, length);
+            out.flush();
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, length + extra));
+            }
+        }
+    }
+
+    // kind가 LIST/BATCH면 page 관련 값은 0
+    public record Decoded(byte kind, int page, int size, long totalElements, List<List<MemberTeamDto>> blocks) {
+    }
+}
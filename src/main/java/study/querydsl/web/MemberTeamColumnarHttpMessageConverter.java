@@ -0,0 +1,90 @@
+package study.querydsl.web;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * 검색 응답(List / Page / 묶음 검색의 List&lt;List&gt; of MemberTeamDto)을 MemberTeamColumnar 형식으로 쓴다.
+ * Accept: application/x-member-columnar 일 때만 선택된다. 읽기는 지원하지 않음.
+ */
+public class MemberTeamColumnarHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public MemberTeamColumnarHttpMessageConverter() {
+        super(MemberTeamColumnar.MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz) || Page.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return shapeOf(type != null ? type : clazz) != null && canWrite(mediaType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Shape shape = shapeOf(type != null ? type : body.getClass());
+        if (shape == null) {
+            throw new IllegalArgumentException("unsupported body type: " + type);
+        }
+        switch (shape) {
+            case LIST -> MemberTeamColumnar.writeList((List<MemberTeamDto>) body, outputMessage.getBody());
+            case PAGE -> MemberTeamColumnar.writePage((Page<MemberTeamDto>) body, outputMessage.getBody());
+            case BATCH -> MemberTeamColumnar.writeBatch((List<List<MemberTeamDto>>) body, outputMessage.getBody());
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("member columnar format is write-only", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("member columnar format is write-only", inputMessage);
+    }
+
+    // 원소 타입까지 봐야 빈 목록도 구분된다 (List<MemberTeamDto> vs List<List<MemberTeamDto>>)
+    private static Shape shapeOf(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        if (Page.class.isAssignableFrom(resolved.toClass())) {
+            return isMemberTeamDto(resolved.as(Page.class).getGeneric(0)) ? Shape.PAGE : null;
+        }
+        if (List.class.isAssignableFrom(resolved.toClass())) {
+            ResolvableType element = resolved.as(List.class).getGeneric(0);
+            if (isMemberTeamDto(element)) {
+                return Shape.LIST;
+            }
+            if (List.class.isAssignableFrom(element.toClass()) && isMemberTeamDto(element.as(List.class).getGeneric(0))) {
+                return Shape.BATCH;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isMemberTeamDto(ResolvableType type) {
+        return type.resolve() == MemberTeamDto.class;
+    }
+
+    private enum Shape {
+        LIST, PAGE, BATCH
+    }
+}
@@ -0,0 +1,146 @@
+package study.querydsl.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import study.querydsl.query.QueryDeadline;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청마다 쿼리 마감 시각을 정하고, 마감이 지나도 쿼리가 돌고 있으면 statement를 취소한다.
+ * 마감 = min(엔드포인트 @QueryTimeout 또는 기본값, X-Request-Timeout-Ms 헤더)
+ * 비동기(Callable) 핸들러는 요청 스레드가 풀려서 컨테이너가 연결 끊김을 AsyncListener로 알려준다 - 그때도 바로 취소.
+ * 동기 핸들러는 요청 스레드가 JDBC에 묶여 있는 동안 끊김을 알 방법이 없어 마감 취소만 된다.
+ */
+public class QueryDeadlineInterceptor implements AsyncHandlerInterceptor {
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+    private static final String WATCHDOG = QueryDeadlineInterceptor.class.getName() + ".watchdog";
+    private static final String DEADLINE = QueryDeadlineInterceptor.class.getName() + ".deadline";
+
+    private final long defaultTimeoutMillis;
+    private final Counter deadlineCancellations;
+    private final Counter disconnectCancellations;
+    private final ScheduledThreadPoolExecutor watchdog;
+
+    public QueryDeadlineInterceptor(long defaultTimeoutMillis, MeterRegistry meterRegistry) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.deadlineCancellations = Counter.builder("member.query.cancellations").tag("reason", "deadline").register(meterRegistry);
+        this.disconnectCancellations = Counter.builder("member.query.cancellations").tag("reason", "disconnect").register(meterRegistry);
+        this.watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "query-deadline-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true; // 비동기 결과를 쓰러 다시 들어온 것 - 마감은 처음 들어올 때 정한 그대로
+        }
+        long timeout = timeoutOf(handlerMethod, request.getHeader(TIMEOUT_HEADER));
+        QueryDeadline deadline = QueryDeadline.start(timeout);
+        ScheduledFuture<?> future = watchdog.schedule(() -> {
+            if (deadline.cancel()) {
+                deadlineCancellations.increment();
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+        request.setAttribute(WATCHDOG, future);
+        request.setAttribute(DEADLINE, deadline);
+        return true;
+    }
+
+    // 요청이 DB에 SQL을 보냈는지. 스레드 로컬이 지워진 뒤(다른 인터셉터의 afterCompletion)에도 볼 수 있게 요청 속성으로.
+    static boolean reachedDatabase(HttpServletRequest request) {
+        QueryDeadline deadline = (QueryDeadline) request.getAttribute(DEADLINE);
+        return deadline != null && deadline.hasQueried();
+    }
+
+    // 요청 스레드는 여기서 풀린다. 작업 스레드에는 핸들러가 QueryDeadline.inheriting으로 마감을 넘긴다.
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryDeadline.clear();
+        QueryDeadline deadline = (QueryDeadline) request.getAttribute(DEADLINE);
+        if (deadline != null) {
+            ScheduledFuture<?> future = (ScheduledFuture<?>) request.getAttribute(WATCHDOG);
+            request.getAsyncContext().addListener(new DisconnectListener(deadline, future));
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ScheduledFuture<?> future = (ScheduledFuture<?>) request.getAttribute(WATCHDOG);
+        if (future != null) {
+            future.cancel(false);
+        }
+        QueryDeadline.clear();
+    }
+
+    private long timeoutOf(HandlerMethod handlerMethod, String header) {
+        QueryTimeout annotation = handlerMethod.getMethodAnnotation(QueryTimeout.class);
+        long timeout = annotation != null ? annotation.millis() : defaultTimeoutMillis;
+        if (header != null) {
+            try {
+                long requested = Long.parseLong(header.trim());
+                if (requested > 0) {
+                    timeout = Math.min(timeout, requested);
+                }
+            } catch (NumberFormatException ignored) {
+                // 잘못된 헤더는 무시하고 엔드포인트 값 사용
+            }
+        }
+        return timeout;
+    }
+
+    // 클라이언트가 끊으면 onError, 비동기 요청 타임아웃이면 onTimeout. 어느 쪽이든 더 돌 이유가 없다.
+    // 끊긴 요청은 다시 디스패치되지 않아 afterCompletion이 없으므로 watchdog은 onComplete에서 정리.
+    private class DisconnectListener implements AsyncListener {
+        private final QueryDeadline deadline;
+        private final ScheduledFuture<?> watchdog;
+
+        DisconnectListener(QueryDeadline deadline, ScheduledFuture<?> watchdog) {
+            this.deadline = deadline;
+            this.watchdog = watchdog;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            cancel();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            cancel();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void cancel() {
+            if (deadline.cancel()) {
+                disconnectCancellations.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package study.querydsl.web;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 엔드포인트별 쿼리 마감 시간. 요청 헤더(X-Request-Timeout-Ms)로 더 짧게만 줄일 수 있다.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryTimeout {
+    long millis();
+}
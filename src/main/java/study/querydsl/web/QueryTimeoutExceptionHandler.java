@@ -0,0 +1,30 @@
+package study.querydsl.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// 마감 초과(타임아웃/취소)는 500이 아니라 503으로. @Repository 예외 변환 전후 타입 모두 처리.
+@RestControllerAdvice
+public class QueryTimeoutExceptionHandler {
+    private final Counter timeouts;
+
+    public QueryTimeoutExceptionHandler(MeterRegistry meterRegistry) {
+        this.timeouts = Counter.builder("member.query.timeouts").register(meterRegistry);
+    }
+
+    @ExceptionHandler({
+            org.springframework.dao.QueryTimeoutException.class,
+            jakarta.persistence.QueryTimeoutException.class,
+            org.hibernate.QueryTimeoutException.class})
+    public ResponseEntity<Void> queryTimeout() {
+        timeouts.increment();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+}
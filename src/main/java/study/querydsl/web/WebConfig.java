@@ -0,0 +1,51 @@
+package study.querydsl.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${querydsl.limiter.initial-limit:20}")
+    private int initialLimit;
+    @Value("${querydsl.limiter.min-limit:2}")
+    private int minLimit;
+    @Value("${querydsl.limiter.max-limit:200}")
+    private int maxLimit;
+    @Value("${querydsl.limiter.max-queued:50}")
+    private int maxQueued;
+    @Value("${querydsl.limiter.max-queue-wait-ms:50}")
+    private long maxQueueWaitMillis;
+    @Value("${querydsl.limiter.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+    @Value("${querydsl.deadline.default-ms:5000}")
+    private long defaultQueryTimeoutMillis;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 회원 조회 API는 모두 DB를 타므로 입장 제어 대상
+        registry.addInterceptor(new AdmissionControlInterceptor(meterRegistry,
+                        new AdmissionControlInterceptor.LimiterSettings(initialLimit, minLimit, maxLimit, maxQueued,
+                                maxQueueWaitMillis, retryAfterSeconds)))
+                .addPathPatterns("/v*/members", "/v*/members/**");
+        // 입장 후부터 마감 시간 계산
+        registry.addInterceptor(new QueryDeadlineInterceptor(defaultQueryTimeoutMillis, meterRegistry))
+                .addPathPatterns("/v*/members", "/v*/members/**");
+    }
+
+    // 맨 뒤에 추가 - Accept가 없거나 */*면 기존대로 JSON, application/x-member-columnar를 명시했을 때만 선택
+    // (application/cbor는 jackson-dataformat-cbor가 있으면 스프링이 자동 등록)
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MemberTeamColumnarHttpMessageConverter());
+    }
+}
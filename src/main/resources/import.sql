@@ -0,0 +1,4 @@
+-- ddl-auto=create 뒤에 Hibernate가 실행 (hibernate.hbm2ddl.import_files 기본값). 한 줄에 한 문장.
+create trigger member_username_normalized before insert, update on member for each row call 'study.querydsl.entity.UsernameNormalizedTrigger';
+alter table member_team add constraint fk_member_team_member foreign key (member_id) references member (member_id) on delete cascade;
+create trigger member_tombstone_on_delete after delete on member for each row call 'study.querydsl.change.MemberTombstoneTrigger';
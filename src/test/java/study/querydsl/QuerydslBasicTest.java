@@ -28,8 +28,10 @@ import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
-import study.querydsl.entity.Team;
+import study.querydsl.fixture.Dataset;
+import study.querydsl.fixture.Fixtures;
 
+import javax.sql.DataSource;
 import java.util.List;
 
 import static study.querydsl.entity.QMember.*;
@@ -42,27 +44,16 @@ public class QuerydslBasicTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    DataSource dataSource;
+
     JPAQueryFactory queryFactory;
 
     @BeforeEach
     public void before(){
         queryFactory = new JPAQueryFactory(em);
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
-        em.persist(teamA);
-        em.persist(teamB);
-
-        Member member1 = new Member("member1",10,teamA);
-        Member member2 = new Member("member2",20,teamA);
-
-        Member member3 = new Member("member3",30,teamB);
-        Member member4 = new Member("member4",40,teamB);
-
-        em.persist(member1);
-        em.persist(member2);
-        em.persist(member3);
-        em.persist(member4);
-
+        // teamA(member1 10살, member2 20살), teamB(member3 30살, member4 40살)
+        Fixtures.restore(dataSource, Dataset.BASIC);
     }
 
     @Test
@@ -0,0 +1,189 @@
+package study.querydsl.archive;
+
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberArchiveResultDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 청크마다 커밋하므로 데이터를 커밋하고 DB를 따로 씀
+@SpringBootTest(properties = {
+        "querydsl.archive.chunk-size=7",
+        "querydsl.archive.pause-ms=20",
+        "querydsl.archive.max-pause-ms=100",
+        "spring.datasource.url=jdbc:h2:mem:archive"})
+@AutoConfigureMockMvc
+class MemberArchiverTest {
+    @Autowired
+    MemberArchiver memberArchiver;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 40; i++) {
+                em.persist(new Member("member" + i, i, i % 5 == 4 ? null : i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createNativeQuery("delete from member_archive").executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+            em.createNativeQuery("delete from member_tombstone").executeUpdate();
+        });
+    }
+
+    // 20명을 7건씩 3청크로. 옮긴 회원은 member에 없고 archive에 그대로, 삭제 기록도 남음
+    @Test
+    public void movesMatchingMembersInChunks() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        MemberArchiveResultDto result = memberArchiver.archive(condition);
+
+        Assertions.assertThat(result.getArchived()).isEqualTo(20);
+        Assertions.assertThat(result.getChunks()).isEqualTo(3);
+        Assertions.assertThat(result.getError()).isNull();
+        tx.executeWithoutResult(status -> {
+            Assertions.assertThat(em.createQuery("select max(m.age) from Member m", Integer.class).getSingleResult())
+                    .isEqualTo(19);
+            List<?> rows = em.createNativeQuery(
+                            "select a.username, a.age, t.name from member_archive a left join team t on t.id = a.team_id order by a.age")
+                    .getResultList();
+            List<Object[]> archived = rows.stream().map(Object[].class::cast).toList();
+            Assertions.assertThat(archived).hasSize(20);
+            Assertions.assertThat(archived.get(0)).containsExactly("member20", 20, "teamA");
+            Assertions.assertThat(archived.get(4)).containsExactly("member24", 24, null);
+            Assertions.assertThat(((Number) em.createNativeQuery("select count(*) from member_tombstone").getSingleResult()).longValue())
+                    .isEqualTo(20);
+        });
+
+        // 다시 돌려도 옮길 게 없음
+        Assertions.assertThat(memberArchiver.archive(condition).getArchived()).isZero();
+    }
+
+    // includeArchived면 옮기기 전과 같은 결과 (member id 순), 아니면 남은 회원만
+    @Test
+    public void searchIncludesArchived() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setIncludeArchived(true);
+        List<MemberTeamDto> before = memberJpaRepository.search(condition);
+
+        MemberSearchCondition old = new MemberSearchCondition();
+        old.setAgeGoe(15);
+        memberArchiver.archive(old);
+
+        List<MemberTeamDto> after = memberJpaRepository.search(condition);
+        Assertions.assertThat(after).extracting(MemberTeamDto::getMemberId)
+                .containsExactlyElementsOf(before.stream().map(MemberTeamDto::getMemberId).sorted().toList());
+        Assertions.assertThat(after).extracting(MemberTeamDto::getTeamName).containsOnly("teamA");
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 5));
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(after.size());
+        Assertions.assertThat(page.getContent()).containsExactlyElementsOf(after.subList(5, 10));
+
+        condition.setIncludeArchived(false);
+        Assertions.assertThat(memberJpaRepository.search(condition)).extracting(MemberTeamDto::getAge)
+                .allMatch(age -> age < 15);
+    }
+
+    // 리미터에 대기 중인 요청이 있으면 max-pause-ms까지 기다렸다가 진행
+    @Test
+    public void yieldsToWaitingRequests() {
+        AtomicInteger queued = new AtomicInteger(1);
+        Gauge gauge = Gauge.builder("member.limiter.queued", queued, AtomicInteger::get)
+                .tag("endpoint", "archive-test")
+                .register(meterRegistry);
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeLoe(3);
+
+            MemberArchiveResultDto result = memberArchiver.archive(condition);
+
+            Assertions.assertThat(result.getArchived()).isEqualTo(4);
+            Assertions.assertThat(result.getThrottledMillis()).isGreaterThanOrEqualTo(100);
+        } finally {
+            meterRegistry.remove(gauge);
+        }
+    }
+
+    // 요청은 작업만 넣고 바로 202, 결과는 작업 상태로
+    @Test
+    public void endpoint() throws Exception {
+        mockMvc.perform(post("/v1/members/archive"))
+                .andExpect(status().isBadRequest());
+        String location = mockMvc.perform(post("/v1/members/archive").param("ageLoe", "5").param("teamName", "teamB"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").exists())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!"done".equals(JsonPath.read(mockMvc.perform(get(location)).andReturn().getResponse().getContentAsString(), "$.status"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("done"))
+                .andExpect(jsonPath("$.result.archived").value(3))
+                .andExpect(jsonPath("$.result.chunks").value(1));
+        mockMvc.perform(get("/v1/members/archive/999999"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.benchmark;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.function.Supplier;
+
+// 벤치마크 공용 - 데이터 적재와 측정
+final class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    static void insertMembers(EntityManager em, int members, int teamCount) {
+        Team[] teams = new Team[teamCount];
+        for (int i = 0; i < teams.length; i++) {
+            teams[i] = new Team("team" + i);
+            em.persist(teams[i]);
+        }
+        for (int i = 0; i < members; i++) {
+            em.persist(new Member("member" + i, i % 100, teams[i % teams.length]));
+            if (i % 1000 == 0) {
+                em.flush();
+                em.clear();
+                // merge하면 association management의 contains()가 team.members를 통째로 읽는다 -> 초기화 안 된 참조로
+                for (int t = 0; t < teams.length; t++) {
+                    teams[t] = em.getReference(Team.class, teams[t].getId());
+                }
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    // 워밍업 후 iterations 번 실행한 평균(us/op) 출력
+    static double report(EntityManager em, String name, int warmup, int iterations, Supplier<?> call) {
+        for (int i = 0; i < warmup; i++) {
+            call.get();
+            em.clear();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            call.get();
+            em.clear();
+        }
+        double micros = (System.nanoTime() - start) / 1000.0 / iterations;
+        System.out.printf("%-50s %10.1f us/op%n", name, micros);
+        return micros;
+    }
+}
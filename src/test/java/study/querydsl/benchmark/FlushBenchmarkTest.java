@@ -0,0 +1,75 @@
+package study.querydsl.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+
+import java.util.List;
+
+// ./gradlew benchmark                      바이트코드 향상 적용
+// ./gradlew benchmark -PnoEnhancement      미적용 (스냅샷 비교 dirty checking)
+// 관리 중인 회원 10만 명의 flush 시간과 영속성 컨텍스트 힙
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class FlushBenchmarkTest {
+    private static final int MEMBERS = 100_000;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void flushManagedMembers() {
+        BenchmarkSupport.insertMembers(em, MEMBERS, 10);
+
+        long heapBefore = usedHeap();
+        List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+        long heapAfter = usedHeap();
+        Assertions.assertThat(members).hasSize(MEMBERS);
+        System.out.printf("enhanced=%s, %d managed members, persistence context heap %.1f MB%n",
+                members.get(0) instanceof SelfDirtinessTracker, members.size(), (heapAfter - heapBefore) / 1024.0 / 1024.0);
+
+        // 바뀐 게 없을 때 - 향상 없이는 10만 건 스냅샷을 모두 비교
+        flush("flush 100k managed, no changes", () -> {
+        });
+        // 1%만 변경
+        int[] round = {0};
+        flush("flush 100k managed, 1% changed", () -> {
+            round[0]++;
+            for (int i = 0; i < MEMBERS; i += 100) {
+                members.get(i).setAge(round[0]);
+            }
+        });
+    }
+
+    private void flush(String name, Runnable change) {
+        for (int i = 0; i < WARMUP; i++) {
+            change.run();
+            em.flush();
+        }
+        long nanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            change.run();
+            long start = System.nanoTime();
+            em.flush();
+            nanos += System.nanoTime() - start;
+        }
+        System.out.printf("%-50s %10.1f us/op%n", name, nanos / 1000.0 / ITERATIONS);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
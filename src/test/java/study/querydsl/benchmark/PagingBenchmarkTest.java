@@ -0,0 +1,55 @@
+package study.querydsl.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+// ./gradlew benchmark
+// 두 번 쿼리(searchPageComplex) vs 윈도우 함수 한 번(searchPageWindow)
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class PagingBenchmarkTest {
+    private static final int MEMBERS = 20_000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        BenchmarkSupport.insertMembers(em, MEMBERS, 10);
+    }
+
+    @Test
+    public void twoQueriesVsWindow() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+        condition.setAgeGoe(20);
+        PageRequest pageable = PageRequest.of(3, 20);
+
+        Page<MemberTeamDto> complex = memberRepository.searchPageComplex(condition, pageable);
+        Page<MemberTeamDto> window = memberRepository.searchPageWindow(condition, pageable);
+        Assertions.assertThat(window.getTotalElements()).isEqualTo(complex.getTotalElements());
+        Assertions.assertThat(window.getContent()).isEqualTo(complex.getContent());
+
+        BenchmarkSupport.report(em, "searchPageComplex (content + count)", WARMUP, ITERATIONS,
+                () -> memberRepository.searchPageComplex(condition, pageable));
+        BenchmarkSupport.report(em, "searchPageWindow (count(*) over())", WARMUP, ITERATIONS,
+                () -> memberRepository.searchPageWindow(condition, pageable));
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.MemberRankingRepository;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+// ./gradlew benchmark
+// 팀 최고령자: 상관 서브쿼리(JPAExpressions max) vs 윈도우 함수(RANK), 팀 수를 바꿔가며
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class RankingBenchmarkTest {
+    private static final int MEMBERS = 20_000;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 100;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberRankingRepository memberRankingRepository;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 1_000})
+    public void oldestInEachTeam(int teams) {
+        BenchmarkSupport.insertMembers(em, MEMBERS, teams);
+        QMember memberSub = new QMember("memberSub");
+
+        List<Member> correlated = correlated(memberSub);
+        Assertions.assertThat(memberRankingRepository.findOldestInEachTeam()).hasSize(correlated.size());
+
+        BenchmarkSupport.report(em, "teams=" + teams + " correlated subquery", WARMUP, ITERATIONS,
+                () -> correlated(memberSub));
+        BenchmarkSupport.report(em, "teams=" + teams + " window rank()", WARMUP, ITERATIONS,
+                () -> memberRankingRepository.findOldestInEachTeam());
+    }
+
+    private List<Member> correlated(QMember memberSub) {
+        return queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(
+                        JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team))
+                ))
+                .fetch();
+    }
+}
@@ -0,0 +1,78 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.web.MemberTeamColumnar;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// ./gradlew benchmark
+// 검색 응답 1000건(팀 10개) 직렬화 - JSON vs CBOR vs 컬럼 형식, 시간과 크기
+@Tag("benchmark")
+@SpringBootTest
+class SerializationBenchmarkTest {
+    private static final int ROWS = 1_000;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 5_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    public void encode() throws IOException {
+        // 스프링 MVC의 CBOR 컨버터와 같은 설정
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        List<MemberTeamDto> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new MemberTeamDto(1_000L + i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+        byte[] json = objectMapper.writeValueAsBytes(rows);
+        byte[] cbor = cborMapper.writeValueAsBytes(rows);
+        byte[] columnar = columnar(rows);
+        Assertions.assertThat(MemberTeamColumnar.read(new ByteArrayInputStream(columnar)).blocks())
+                .containsExactly(rows);
+        System.out.printf("size - json %d B, cbor %d B, columnar %d B%n", json.length, cbor.length, columnar.length);
+
+        BenchmarkSupport.report(em, "encode 1000 rows - JSON", WARMUP, ITERATIONS,
+                () -> write(() -> objectMapper.writeValueAsBytes(rows)));
+        BenchmarkSupport.report(em, "encode 1000 rows - CBOR", WARMUP, ITERATIONS,
+                () -> write(() -> cborMapper.writeValueAsBytes(rows)));
+        BenchmarkSupport.report(em, "encode 1000 rows - columnar", WARMUP, ITERATIONS,
+                () -> columnar(rows));
+    }
+
+    private static byte[] columnar(List<MemberTeamDto> rows) {
+        return write(() -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            MemberTeamColumnar.writeList(rows, out);
+            return out.toByteArray();
+        });
+    }
+
+    private static byte[] write(IoSupplier call) {
+        try {
+            return call.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface IoSupplier {
+        byte[] get() throws IOException;
+    }
+}
@@ -0,0 +1,113 @@
+package study.querydsl.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.fixture.Dataset;
+import study.querydsl.fixture.Fixtures;
+import study.querydsl.snapshot.MemberSnapshot;
+import study.querydsl.snapshot.MemberSnapshotService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// ./gradlew benchmark
+// 회원 10만 명(팀 10개) 내보내기/가져오기/전체 스캔 - JPA 엔티티 vs 스냅샷 파일 (한 번씩, ms)
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:snapshot-benchmark")
+class SnapshotBenchmarkTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    MemberSnapshotService memberSnapshotService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void exportImportScan() throws IOException {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> Fixtures.restore(dataSource, Dataset.MEMBERS_100K));
+        Path file = dir.resolve("members.snap");
+
+        // 내보내기: 엔티티로 전부 읽기 vs 스냅샷 파일
+        int exported = time("export 100k - JPA entities", () -> tx.execute(status -> {
+            int count = 0;
+            try (var stream = em.createQuery("select m from Member m left join fetch m.team order by m.id", Member.class)
+                    .getResultStream()) {
+                for (var iterator = stream.iterator(); iterator.hasNext(); count++) {
+                    iterator.next();
+                    if (count % 1000 == 0) {
+                        em.clear();
+                    }
+                }
+            }
+            return count;
+        }));
+        MemberSnapshotService.Summary summary = time("export 100k - snapshot file", () -> memberSnapshotService.exportTo(file));
+        Assertions.assertThat(summary.members()).isEqualTo(exported);
+        System.out.printf("snapshot file %d bytes%n", summary.bytes());
+
+        // 분석 스캔 (팀별 나이 합): 엔티티 목록 vs 매핑된 열
+        Map<Long, Long> fromEntities = time("scan 100k - JPA entities", () -> tx.execute(status -> {
+            Map<Long, Long> sums = new HashMap<>();
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+            for (Member member : members) {
+                sums.merge(member.getTeam().getId(), (long) member.getAge(), Long::sum);
+            }
+            em.clear();
+            return sums;
+        }));
+        Map<Long, Long> fromSnapshot;
+        try (MemberSnapshot snapshot = MemberSnapshot.open(file)) {
+            fromSnapshot = time("scan 100k - mapped snapshot", () -> {
+                Map<Long, Long> sums = new HashMap<>();
+                IntBuffer ages = snapshot.ages();
+                LongBuffer teamIds = snapshot.teamIds();
+                while (ages.hasRemaining()) {
+                    sums.merge(teamIds.get(), (long) ages.get(), Long::sum);
+                }
+                return sums;
+            });
+        }
+        Assertions.assertThat(fromSnapshot).isEqualTo(fromEntities);
+
+        // 가져오기: persist + flush/clear vs 배치 JDBC
+        tx.executeWithoutResult(status -> Fixtures.restore(dataSource, Dataset.EMPTY));
+        time("import 100k - JPA persist", () -> tx.execute(status -> {
+            BenchmarkSupport.insertMembers(em, Dataset.MEMBERS_100K.members(), 10);
+            return null;
+        }));
+        tx.executeWithoutResult(status -> Fixtures.restore(dataSource, Dataset.EMPTY));
+        MemberSnapshotService.Summary imported = time("import 100k - snapshot file", () -> memberSnapshotService.importFrom(file));
+        Assertions.assertThat(imported.members()).isEqualTo(Dataset.MEMBERS_100K.members());
+    }
+
+    private static <T> T time(String name, Supplier<T> call) {
+        long start = System.nanoTime();
+        T result = call.get();
+        System.out.printf("%-50s %10.1f ms%n", name, (System.nanoTime() - start) / 1_000_000.0);
+        return result;
+    }
+}
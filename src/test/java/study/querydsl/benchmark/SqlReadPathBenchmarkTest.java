@@ -0,0 +1,66 @@
+package study.querydsl.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSqlRepository;
+
+// ./gradlew benchmark
+// JPQL + Hibernate(MemberRepositoryImpl) vs querydsl-sql JDBC(MemberSqlRepository)
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class SqlReadPathBenchmarkTest {
+    private static final int MEMBERS = 20_000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @BeforeEach
+    public void before() {
+        BenchmarkSupport.insertMembers(em, MEMBERS, 10);
+    }
+
+    @Test
+    public void search() {
+        // 결과 200건 정도
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(20);
+        Assertions.assertThat(memberSqlRepository.search(condition)).isEqualTo(memberRepository.search(condition));
+
+        BenchmarkSupport.report(em, "search - JPA", WARMUP, ITERATIONS, () -> memberRepository.search(condition));
+        BenchmarkSupport.report(em, "search - querydsl-sql", WARMUP, ITERATIONS, () -> memberSqlRepository.search(condition));
+    }
+
+    @Test
+    public void searchPageComplex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        PageRequest pageable = PageRequest.of(2, 20);
+        Assertions.assertThat(memberSqlRepository.searchPageComplex(condition, pageable).getContent())
+                .isEqualTo(memberRepository.searchPageComplex(condition, pageable).getContent());
+
+        BenchmarkSupport.report(em, "searchPageComplex - JPA", WARMUP, ITERATIONS,
+                () -> memberRepository.searchPageComplex(condition, pageable));
+        BenchmarkSupport.report(em, "searchPageComplex - querydsl-sql", WARMUP, ITERATIONS,
+                () -> memberSqlRepository.searchPageComplex(condition, pageable));
+    }
+}
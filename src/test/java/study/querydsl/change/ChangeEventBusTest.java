@@ -0,0 +1,300 @@
+package study.querydsl.change;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.change.ChangeEvent.EntityKind;
+import study.querydsl.change.ChangeEvent.Operation;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// 커밋 후에만 발행되므로 데이터를 커밋하고 DB를 따로 씀
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:change-events")
+class ChangeEventBusTest {
+    @Autowired
+    ChangeEventBus bus;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    Recorder recorder;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        recorder = new Recorder();
+        bus.register(recorder);
+    }
+
+    @AfterEach
+    public void after() {
+        bus.unregister(recorder);
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        // 정리 이벤트가 다음 테스트의 recorder로 넘어가지 않게 다 넘길 때까지
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("change.events.backlog").gauge().value() > 0 && System.currentTimeMillis() < deadline) {
+            sleep(5);
+        }
+    }
+
+    // insert/update/delete가 커밋 뒤에 쓰기 순서대로
+    @Test
+    public void entityWritesAfterCommit() {
+        Long[] ids = tx.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            Member member = new Member("member1", 10, team);
+            em.persist(member);
+            em.flush();
+            sleep(20);
+            Assertions.assertThat(recorder.events()).isEmpty();
+            return new Long[]{team.getId(), member.getId()};
+        });
+        tx.executeWithoutResult(status -> em.find(Member.class, ids[1]).setAge(11));
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, ids[1])));
+
+        Assertions.assertThat(awaitEvents(4)).containsExactly(
+                "INSERT TEAM#" + ids[0],
+                "INSERT MEMBER#" + ids[1],
+                "UPDATE MEMBER#" + ids[1],
+                "DELETE MEMBER#" + ids[1]);
+    }
+
+    @Test
+    public void rollbackPublishesNothing() {
+        tx.executeWithoutResult(status -> {
+            em.persist(new Team("rolledBack"));
+            em.flush();
+            em.createQuery("update Team t set t.name = 'x'").executeUpdate();
+            status.setRollbackOnly();
+        });
+        Long marker = tx.execute(status -> {
+            Team team = new Team("marker");
+            em.persist(team);
+            return team.getId();
+        });
+
+        Assertions.assertThat(awaitEvents(1)).containsExactly("INSERT TEAM#" + marker);
+    }
+
+    // JPQL 벌크는 BULK 하나. 그 전에 auto flush로 나가는 엔티티 update는 BULK로 세지 않음
+    @Test
+    public void bulkStatementIsOneBulkEvent() {
+        Long memberId = tx.execute(status -> {
+            Member member = new Member("member1", 10);
+            em.persist(member);
+            return member.getId();
+        });
+        awaitEvents(1);
+        recorder.clear();
+
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, memberId).setAge(20);
+            em.createQuery("update Member m set m.age = m.age + 1 where m.age >= 20").executeUpdate();
+        });
+
+        Assertions.assertThat(awaitEvents(2)).containsExactly("UPDATE MEMBER#" + memberId, "BULK MEMBER");
+        Assertions.assertThat(recorder.statements()).singleElement().asString().containsIgnoringCase("update member");
+    }
+
+    // REQUIRES_NEW 안쪽은 자기 커밋에 발행되고 바깥 롤백과 섞이지 않음
+    @Test
+    public void innerTransactionIsSeparate() {
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Long[] innerId = new Long[1];
+        tx.executeWithoutResult(status -> {
+            em.persist(new Team("outer"));
+            em.flush();
+            innerId[0] = inner.execute(innerStatus -> {
+                Team team = new Team("inner");
+                em.persist(team);
+                return team.getId();
+            });
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertThat(awaitEvents(1)).containsExactly("INSERT TEAM#" + innerId[0]);
+    }
+
+    // 링(4칸)이 차면 기다렸다가 버리고, 다음 묶음에 버린 개수를 알림
+    @Test
+    public void dropsWhenFullAndReportsLost() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Recorder slow = new Recorder();
+        ChangeEventBus small = new ChangeEventBus(registry, List.of(slow), 4, 2, 1);
+        Assertions.assertThat(small.capacity()).isEqualTo(4);
+
+        List<Boolean> accepted = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            accepted.add(small.publish(EntityKind.MEMBER, Operation.UPDATE, i, null));
+        }
+        Assertions.assertThat(accepted).containsExactly(true, true, true, true, false, false);
+        Assertions.assertThat(registry.get("change.events.dropped").counter().count()).isEqualTo(2);
+        Assertions.assertThat(registry.get("change.events.producer.waits").counter().count()).isEqualTo(2);
+        Assertions.assertThat(registry.get("change.events.backlog").gauge().value()).isEqualTo(4);
+
+        small.start();
+        try {
+            Assertions.assertThat(awaitEvents(slow, 4)).containsExactly(
+                    "UPDATE MEMBER#0", "UPDATE MEMBER#1", "UPDATE MEMBER#2", "UPDATE MEMBER#3");
+            Assertions.assertThat(slow.lost()).isEqualTo(2);
+            Assertions.assertThat(slow.batchSizes()).containsExactly(2, 2);
+            Assertions.assertThat(registry.get("change.events.backlog").gauge().value()).isZero();
+        } finally {
+            small.stop();
+        }
+    }
+
+    // 트랜잭션의 나머지는 기다리지 않고 drop: 대기는 한 번만 세고 lost에는 전부
+    @Test
+    public void dropCountsWithoutWaiting() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Recorder slow = new Recorder();
+        ChangeEventBus small = new ChangeEventBus(registry, List.of(slow), 4, 4, 1);
+        for (int i = 0; i < 5; i++) {
+            small.publish(EntityKind.MEMBER, Operation.UPDATE, i, null);
+        }
+        small.drop(3);
+
+        Assertions.assertThat(registry.get("change.events.dropped").counter().count()).isEqualTo(4);
+        Assertions.assertThat(registry.get("change.events.producer.waits").counter().count()).isEqualTo(1);
+
+        small.start();
+        try {
+            Assertions.assertThat(awaitEvents(slow, 4)).hasSize(4);
+            Assertions.assertThat(slow.lost()).isEqualTo(4);
+        } finally {
+            small.stop();
+        }
+    }
+
+    // 한참 쉬어서 잠든 디스패처도 발행하면 바로 깨어남
+    @Test
+    public void idleDispatcherWakesOnPublish() {
+        Recorder recorder = new Recorder();
+        ChangeEventBus small = new ChangeEventBus(new SimpleMeterRegistry(), List.of(recorder), 4, 4, 1);
+        small.start();
+        try {
+            sleep(50);
+            long start = System.nanoTime();
+            small.publish(EntityKind.TEAM, Operation.INSERT, 1, null);
+            while (recorder.events().isEmpty() && System.nanoTime() - start < 5_000_000_000L) {
+                Thread.onSpinWait();
+            }
+            Assertions.assertThat(recorder.events()).containsExactly("INSERT TEAM#1");
+            Assertions.assertThat(System.nanoTime() - start).isLessThan(1_000_000_000L);
+        } finally {
+            small.stop();
+        }
+    }
+
+    // 실패하는 consumer가 있어도 다른 consumer는 계속 받음
+    @Test
+    public void failingConsumerIsIsolated() {
+        ChangeEventConsumer failing = batch -> {
+            throw new IllegalStateException("boom");
+        };
+        bus.register(failing);
+        try {
+            Long teamId = tx.execute(status -> {
+                Team team = new Team("teamA");
+                em.persist(team);
+                return team.getId();
+            });
+            Assertions.assertThat(awaitEvents(1)).containsExactly("INSERT TEAM#" + teamId);
+            Assertions.assertThat(meterRegistry.get("change.events.consumer.failures").counter().count()).isPositive();
+        } finally {
+            bus.unregister(failing);
+        }
+    }
+
+    private List<String> awaitEvents(int count) {
+        return awaitEvents(recorder, count);
+    }
+
+    // count개가 올 때까지 (최대 5초), 그 뒤로 더 오는지 잠깐 확인
+    private static List<String> awaitEvents(Recorder recorder, int count) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recorder.events().size() < count && System.currentTimeMillis() < deadline) {
+            sleep(5);
+        }
+        sleep(50);
+        return recorder.events();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 슬롯은 재사용되므로 값을 복사해 둔다
+    static class Recorder implements ChangeEventConsumer {
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        private volatile long lost;
+
+        @Override
+        public void onEvents(ChangeEventBatch batch) {
+            lost += batch.lost();
+            batchSizes.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                ChangeEvent event = batch.get(i);
+                events.add(event.getOperation() + " " + event.getEntity()
+                        + (event.getEntityId() != ChangeEvent.NO_ID ? "#" + event.getEntityId() : ""));
+                if (event.getStatement() != null) {
+                    statements.add(event.getStatement());
+                }
+            }
+        }
+
+        List<String> events() {
+            return List.copyOf(events);
+        }
+
+        List<String> statements() {
+            return List.copyOf(statements);
+        }
+
+        List<Integer> batchSizes() {
+            return List.copyOf(batchSizes);
+        }
+
+        long lost() {
+            return lost;
+        }
+
+        void clear() {
+            events.clear();
+            statements.clear();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.change;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import study.querydsl.change.ChangeEvent.EntityKind;
+import study.querydsl.change.ChangeEvent.Operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class ChangeEventRingTest {
+
+    @Test
+    public void capacityIsPowerOfTwo() {
+        Assertions.assertThat(new ChangeEventRing(1000).capacity()).isEqualTo(1024);
+        Assertions.assertThat(new ChangeEventRing(8).capacity()).isEqualTo(8);
+    }
+
+    // 가득 차면 claim 실패, 읽고 돌려주면 같은 슬롯 객체를 다시 씀
+    @Test
+    public void fullAndWrapAround() {
+        ChangeEventRing ring = new ChangeEventRing(4);
+        ChangeEvent first = publish(ring, 1);
+        for (int i = 2; i <= 4; i++) {
+            publish(ring, i);
+        }
+        Assertions.assertThat(ring.tryClaim()).isEqualTo(-1);
+        Assertions.assertThat(ring.available(10)).isEqualTo(4);
+
+        ring.release(1);
+        Assertions.assertThat(ring.peek(0).getEntityId()).isEqualTo(2);
+        Assertions.assertThat(publish(ring, 5)).isSameAs(first);
+        Assertions.assertThat(ring.available(10)).isEqualTo(4);
+        Assertions.assertThat(ring.peek(3).getEntityId()).isEqualTo(5);
+        Assertions.assertThat(ring.peek(3).getSequence()).isEqualTo(4);
+    }
+
+    // 순번을 받고 아직 발행하지 않은 슬롯이 있으면 그 앞까지만 보인다
+    @Test
+    public void stopsAtUnpublishedSlot() {
+        ChangeEventRing ring = new ChangeEventRing(8);
+        publish(ring, 1);
+        long claimed = ring.tryClaim();
+        publish(ring, 3);
+
+        Assertions.assertThat(ring.available(10)).isEqualTo(1);
+        ring.slot(claimed).set(claimed, EntityKind.MEMBER, Operation.INSERT, 2, null);
+        ring.publish(claimed);
+        Assertions.assertThat(ring.available(10)).isEqualTo(3);
+        Assertions.assertThat(ring.backlog()).isEqualTo(3);
+    }
+
+    // 생산자 4개 x 50000건을 소비자 하나가 빠짐없이, 생산자별 순서대로 받음
+    @Test
+    public void concurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        ChangeEventRing ring = new ChangeEventRing(256);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long base = (long) p * perProducer;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        long sequence;
+                        while ((sequence = ring.tryClaim()) < 0) {
+                            Thread.onSpinWait();
+                        }
+                        ring.slot(sequence).set(sequence, EntityKind.MEMBER, Operation.UPDATE, base + i, null);
+                        ring.publish(sequence);
+                    }
+                }));
+            }
+            long[] lastSeen = new long[producers];
+            Arrays.fill(lastSeen, -1);
+            long expectedSequence = 0;
+            int received = 0;
+            while (received < producers * perProducer) {
+                int count = ring.available(64);
+                for (int i = 0; i < count; i++) {
+                    ChangeEvent event = ring.peek(i);
+                    Assertions.assertThat(event.getSequence()).isEqualTo(expectedSequence++);
+                    int producer = (int) (event.getEntityId() / perProducer);
+                    Assertions.assertThat(event.getEntityId()).isGreaterThan(lastSeen[producer]);
+                    lastSeen[producer] = event.getEntityId();
+                }
+                ring.release(count);
+                received += count;
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            Assertions.assertThat(ring.backlog()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ChangeEvent publish(ChangeEventRing ring, long id) {
+        long sequence = ring.tryClaim();
+        ChangeEvent slot = ring.slot(sequence);
+        slot.set(sequence, EntityKind.TEAM, Operation.INSERT, id, null);
+        ring.publish(sequence);
+        return slot;
+    }
+}
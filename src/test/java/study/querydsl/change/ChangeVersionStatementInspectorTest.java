@@ -0,0 +1,30 @@
+package study.querydsl.change;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ChangeVersionStatementInspectorTest {
+
+    // 찍지 않은 member/team 벌크 update는 경고만 하고 SQL은 그대로 (statement 캐시)
+    @Test
+    public void detectsUnstampedBulkUpdate() {
+        String jpql = "/* update Member member1 set member1.age = member1.age + ?1 */ update member m1_0 set age=(m1_0.age+?) where m1_0.age<?";
+        Assertions.assertThat(ChangeVersionStatementInspector.isUnstamped(jpql)).isTrue();
+        Assertions.assertThat(ChangeVersionStatementInspector.isUnstamped("UPDATE TEAM SET name='x'")).isTrue();
+        // where 절의 change_version은 찍은 게 아님
+        Assertions.assertThat(ChangeVersionStatementInspector.isUnstamped("update member set age=? where change_version=?")).isTrue();
+        Assertions.assertThat(new ChangeVersionStatementInspector().inspect(jpql)).isSameAs(jpql);
+    }
+
+    // 이미 찍었거나(ChangeVersions.stamp) 다른 테이블/구문이면 해당 없음
+    @Test
+    public void leavesOthersAlone() {
+        for (String sql : new String[]{
+                "update member m1_0 set age=?,change_version=? where m1_0.member_id in (?)",
+                "update member_archive set age=?",
+                "delete from member where age>?",
+                "select m1_0.member_id from member m1_0"}) {
+            Assertions.assertThat(ChangeVersionStatementInspector.isUnstamped(sql)).isFalse();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.change;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+class ChangeVersionsTest {
+
+    // 트랜잭션이 끝나기 전에는 그 트랜잭션이 받은 버전 아래까지만 확정. 늦게 받은 버전도 마찬가지.
+    @Test
+    public void safeVersionWaitsForInFlightTransaction() {
+        long first;
+        long later;
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            first = ChangeVersions.next();
+            later = ChangeVersions.next();
+            Assertions.assertThat(ChangeVersions.safeVersion()).isLessThan(first);
+            Assertions.assertThat(ChangeVersions.next()).isGreaterThan(later);
+            Assertions.assertThat(ChangeVersions.safeVersion()).isLessThan(first);
+        } finally {
+            complete();
+        }
+        Assertions.assertThat(ChangeVersions.safeVersion()).isGreaterThan(later);
+    }
+
+    private static void complete() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.change;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DataVersionStatementInspectorTest {
+
+    @Test
+    public void memberTeamWrite() {
+        Assertions.assertThat(DataVersionStatementInspector.isMemberOrTeamWrite(
+                "/* insert for study.querydsl.entity.Member */insert into member (age,team_id,username,member_id) values (?,?,?,?)")).isTrue();
+        Assertions.assertThat(DataVersionStatementInspector.isMemberOrTeamWrite(
+                "/* update Member member1 set member1.age = member1.age + ?1 */ update member m1_0 set age=(m1_0.age+?)")).isTrue();
+        Assertions.assertThat(DataVersionStatementInspector.isMemberOrTeamWrite("delete from team where id=?")).isTrue();
+    }
+
+    @Test
+    public void otherStatements() {
+        Assertions.assertThat(DataVersionStatementInspector.isMemberOrTeamWrite(
+                "select m1_0.member_id from member m1_0")).isFalse();
+        Assertions.assertThat(DataVersionStatementInspector.isMemberOrTeamWrite("insert into hello (id) values (?)")).isFalse();
+        Assertions.assertThat(DataVersionStatementInspector.isMemberOrTeamWrite("update team_archive set x=1")).isFalse();
+    }
+
+    @Test
+    public void writtenTable() {
+        Assertions.assertThat(DataVersionStatementInspector.writtenTable(
+                "/* delete from Member */ DELETE FROM MEMBER m1_0 where m1_0.age>?")).isEqualTo("member");
+        Assertions.assertThat(DataVersionStatementInspector.writtenTable("update team set name=? where id=?")).isEqualTo("team");
+        Assertions.assertThat(DataVersionStatementInspector.writtenTable("insert into member_tombstone values (?, ?)")).isNull();
+    }
+}
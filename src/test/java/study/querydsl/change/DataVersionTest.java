@@ -0,0 +1,50 @@
+package study.querydsl.change;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// 커밋/롤백을 실제로 거쳐야 하므로 DB를 따로 씀
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:data-version")
+class DataVersionTest {
+    @Autowired
+    DataVersion dataVersion;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    // 바깥에서 이미 touch했어도 REQUIRES_NEW 안쪽은 자기 커밋에 올리고, 바깥 롤백과 무관
+    @Test
+    public void innerTransactionTouchesOnItsOwnCommit() {
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        long before = dataVersion.current();
+
+        outer.executeWithoutResult(status -> {
+            dataVersion.touch();
+            inner.executeWithoutResult(innerStatus -> dataVersion.touch());
+            Assertions.assertThat(dataVersion.current()).isEqualTo(before + 1);
+            dataVersion.touch();
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertThat(dataVersion.current()).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void oncePerTransaction() {
+        long before = dataVersion.current();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            dataVersion.touch();
+            dataVersion.touch();
+        });
+
+        Assertions.assertThat(dataVersion.current()).isEqualTo(before + 1);
+    }
+}
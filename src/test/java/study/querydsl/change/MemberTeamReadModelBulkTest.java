@@ -0,0 +1,154 @@
+package study.querydsl.change;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberTeamView;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// 벌크 쓰기는 커밋 직전에 반영되므로 데이터를 커밋하고 DB를 따로 씀
+@SpringBootTest(properties = {
+        "querydsl.read-model.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:readmodel-bulk"})
+class MemberTeamReadModelBulkTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberTeamReadModel readModel;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    Long teamId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamId = tx.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            em.persist(new Member("member1", 10, team));
+            em.persist(new Member("member2", 20, team));
+            em.persist(new Member("member3", 30));
+            return team.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void bulkMemberUpdate() {
+        tx.executeWithoutResult(status -> ChangeVersions.stamp(queryFactory.update(member), member.changeVersion)
+                .set(member.age, member.age.add(100))
+                .where(member.team.isNotNull())
+                .execute());
+
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getUsername, MemberTeamView::getAge)
+                .containsExactly(
+                        Assertions.tuple("member1", 110),
+                        Assertions.tuple("member2", 120),
+                        Assertions.tuple("member3", 30));
+    }
+
+    // 팀 이름 벌크 변경은 소속 회원 행 전체로
+    @Test
+    public void bulkTeamRename() {
+        tx.executeWithoutResult(status -> ChangeVersions.stamp(queryFactory.update(team), team.changeVersion)
+                .set(team.name, "renamed")
+                .where(team.id.eq(teamId))
+                .execute());
+
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getTeamName).containsExactly("renamed", "renamed", null);
+    }
+
+    // ChangeVersions.stamp 없이 나간 update는 어느 행인지 모르므로 커밋 때 전체 rebuild로 맞춘다
+    @Test
+    public void unstampedUpdateRebuilds() {
+        tx.executeWithoutResult(status ->
+                em.createQuery("update Member m set m.age = m.age + 100 where m.team is not null").executeUpdate());
+
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getAge).containsExactly(110, 120, 30);
+    }
+
+    // 벌크 insert는 이 트랜잭션이 찍은 버전 이상의 행만 맞춘다 (member 전체를 훑지 않음)
+    @Test
+    public void nativeInsertAndBulkDelete() {
+        tx.executeWithoutResult(status -> em.createNativeQuery("insert into member"
+                        + " (member_id, username, username_normalized, age, team_id, created_version, change_version)"
+                        + " values (1000, 'native', 'native', 40, :team, :version, :version)")
+                .setParameter("team", teamId)
+                .setParameter("version", ChangeVersions.next())
+                .executeUpdate());
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getUsername).contains("native");
+
+        tx.executeWithoutResult(status -> em.createQuery("delete from Member m where m.age >= 30").executeUpdate());
+
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getUsername).containsExactly("member1", "member2");
+    }
+
+    // 버전 없이 넣은 행은 범위를 모르므로 member_team에 없는 행을 찾아 넣는다
+    @Test
+    public void unversionedInsert() {
+        tx.executeWithoutResult(status -> em.createNativeQuery("insert into member"
+                        + " (member_id, username, username_normalized, age, team_id, created_version, change_version)"
+                        + " values (1000, 'native', 'native', 40, :team, 0, 0)")
+                .setParameter("team", teamId)
+                .executeUpdate());
+
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getUsername).contains("native");
+    }
+
+    // 롤백하면 member와 같이 member_team도 그대로
+    @Test
+    public void rollbackLeavesReadModel() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("update Member m set m.age = 0").executeUpdate();
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getAge).containsExactly(10, 20, 30);
+    }
+
+    // 이미 맞으면 rebuild는 아무 행도 바꾸지 않음 (지우고 다시 넣지 않으므로 동시 insert와 PK가 겹치지 않음)
+    @Test
+    public void rebuildOnlyTouchesDrift() {
+        Assertions.assertThat(readModel.rebuild()).isZero();
+
+        tx.executeWithoutResult(status -> em.createNativeQuery("update member_team set age = 99").executeUpdate());
+
+        Assertions.assertThat(readModel.rebuild()).isEqualTo(3);
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getAge).containsExactly(10, 20, 30);
+    }
+
+    private List<MemberTeamView> rows() {
+        return tx.execute(status -> {
+            em.clear();
+            return em.createQuery("select v from MemberTeamView v order by v.memberId", MemberTeamView.class).getResultList();
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package study.querydsl.change;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberTeamView;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+
+// 스키마를 새로 만드는 별도 컨텍스트라 다른 테스트와 DB를 나눠 씀
+@SpringBootTest(properties = {
+        "querydsl.read-model.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:readmodel"})
+@Transactional
+class MemberTeamReadModelTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberTeamReadModel readModel;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    Team teamA;
+    Team teamB;
+    Member member1;
+    Member member3;
+
+    @BeforeEach
+    public void before() {
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        member3 = new Member("member3", 30, teamB);
+        em.persist(member3);
+        em.persist(new Member("member4", 40));
+        em.flush();
+    }
+
+    @Test
+    public void maintainedOnWrite() {
+        Assertions.assertThat(view(member1.getId()).getTeamName()).isEqualTo("teamA");
+        Assertions.assertThat(view(member1.getId()).getUsernameNormalized()).isEqualTo("member1");
+
+        // 팀 이름 변경은 소속 회원 전체로 전파
+        em.find(Team.class, teamA.getId()).setName("teamA2");
+        Member found = em.find(Member.class, member3.getId());
+        found.setAge(31);
+        found.setUsername("Member3");
+        em.remove(em.find(Member.class, member1.getId()));
+        em.flush();
+        em.clear();
+
+        Assertions.assertThat(em.find(MemberTeamView.class, member1.getId())).isNull();
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getTeamName).containsExactlyInAnyOrder("teamA2", "teamB", null);
+        MemberTeamView updated = view(member3.getId());
+        Assertions.assertThat(updated.getAge()).isEqualTo(31);
+        Assertions.assertThat(updated.getUsername()).isEqualTo("Member3");
+        Assertions.assertThat(updated.getUsernameNormalized()).isEqualTo("member3");
+    }
+
+    @Test
+    public void searchFromReadModel() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+
+        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+
+        Assertions.assertThat(result).extracting(MemberTeamDto::getUsername).containsExactly("member2");
+        Assertions.assertThat(memberRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 3)).getTotalElements())
+                .isEqualTo(4);
+        Assertions.assertThat(memberRepository.searchPageWindow(new MemberSearchCondition(), PageRequest.of(0, 3)).getTotalElements())
+                .isEqualTo(4);
+    }
+
+    @Test
+    public void rebuildAndRefresh() {
+        em.createNativeQuery("delete from member_team").executeUpdate();
+        // 벌크 update는 커밋 직전에야 반영됨 -> 트랜잭션 안에서는 refresh로 맞춤
+        em.createQuery("update Member m set m.age = m.age + 100").executeUpdate();
+        readModel.refresh(List.of(member1.getId()));
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getAge).containsExactly(110);
+
+        // 이미 맞는 member1은 건드리지 않고 빠진 3건만
+        int rebuilt = readModel.rebuild();
+
+        Assertions.assertThat(rebuilt).isEqualTo(3);
+        Assertions.assertThat(rows()).extracting(MemberTeamView::getAge).containsExactlyInAnyOrder(110, 120, 130, 140);
+    }
+
+    private MemberTeamView view(Long memberId) {
+        em.clear();
+        return em.find(MemberTeamView.class, memberId);
+    }
+
+    private List<MemberTeamView> rows() {
+        em.clear();
+        return em.createQuery("select v from MemberTeamView v", MemberTeamView.class).getResultList();
+    }
+}
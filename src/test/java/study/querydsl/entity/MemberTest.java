@@ -47,6 +47,23 @@ public class MemberTest {
         }
     }
 
+    // 양방향 연관관계는 바이트코드 향상 없이도(-PnoEnhancement) 맞춰진다
+    @Test
+    public void teamMembersKeptInSync() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Member member1 = new Member("member1", 10, teamA);
+
+        Assertions.assertThat(teamA.getMembers()).containsExactly(member1);
+
+        member1.setTeam(teamB);
 
+        Assertions.assertThat(teamA.getMembers()).isEmpty();
+        Assertions.assertThat(teamB.getMembers()).containsExactly(member1);
+
+        // 같은 팀을 다시 넣어도 한 번만
+        member1.setTeam(teamB);
+        Assertions.assertThat(teamB.getMembers()).containsExactly(member1);
+    }
 }
 
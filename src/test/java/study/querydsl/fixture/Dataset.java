@@ -0,0 +1,64 @@
+package study.querydsl.fixture;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 이름 붙은 테스트 데이터. Fixtures가 처음 쓸 때 한 번만 만들어 두고 테스트마다 복사(restore)하거나 그대로(mount) 쓴다.
+ * id는 FIXTURE_ID_BASE부터 - 테스트에서 persist하는 엔티티의 시퀀스 id와 겹치지 않게.
+ * 만드는 쪽은 "{schema}.team", "{schema}.member"에 SQL로 직접 넣는다 (JPA를 거치지 않아서 100만 건도 몇 초).
+ */
+public enum Dataset {
+    // 회원/팀 없음
+    EMPTY(0, 0),
+    // teamA(member1 10살, member2 20살), teamB(member3 30살, member4 40살) - 강의 예제 기본 데이터
+    BASIC(0, 0) {
+        @Override
+        void build(Statement statement, String schema) throws SQLException {
+            statement.execute("insert into " + schema + ".team (id, name, created_version, change_version) values"
+                    + " (" + id(1) + ", 'teamA', 0, 0), (" + id(2) + ", 'teamB', 0, 0)");
+            statement.execute("insert into " + schema + ".member"
+                    + " (member_id, username, username_normalized, age, team_id, created_version, change_version) values"
+                    + " (" + id(1) + ", 'member1', 'member1', 10, " + id(1) + ", 0, 0),"
+                    + " (" + id(2) + ", 'member2', 'member2', 20, " + id(1) + ", 0, 0),"
+                    + " (" + id(3) + ", 'member3', 'member3', 30, " + id(2) + ", 0, 0),"
+                    + " (" + id(4) + ", 'member4', 'member4', 40, " + id(2) + ", 0, 0)");
+        }
+    },
+    // member{i}: 나이 i % 100, 팀 team{i % 10} - BenchmarkSupport.insertMembers와 같은 모양
+    MEMBERS_10K(10_000, 10),
+    MEMBERS_100K(100_000, 10),
+    MEMBERS_1M(1_000_000, 10);
+
+    public static final long FIXTURE_ID_BASE = 1_000_000_000L;
+
+    private final int members;
+    private final int teams;
+
+    Dataset(int members, int teams) {
+        this.members = members;
+        this.teams = teams;
+    }
+
+    public int members() {
+        return members;
+    }
+
+    // 데이터셋의 n번째(0부터) 회원/팀 id
+    public static long id(long n) {
+        return FIXTURE_ID_BASE + n;
+    }
+
+    void build(Statement statement, String schema) throws SQLException {
+        if (members == 0) {
+            return;
+        }
+        statement.execute("insert into " + schema + ".team (id, name, created_version, change_version)"
+                + " select " + FIXTURE_ID_BASE + " + x, 'team' || x, 0, 0 from system_range(0, " + (teams - 1) + ")");
+        statement.execute("insert into " + schema + ".member"
+                + " (member_id, username, username_normalized, age, team_id, created_version, change_version)"
+                + " select " + FIXTURE_ID_BASE + " + x, 'member' || x, 'member' || x, mod(x, 100),"
+                + " " + FIXTURE_ID_BASE + " + mod(x, " + teams + "), 0, 0"
+                + " from system_range(0, " + (members - 1) + ")");
+    }
+}
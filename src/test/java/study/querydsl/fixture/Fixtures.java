@@ -0,0 +1,157 @@
+package study.querydsl.fixture;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 테스트 데이터 스냅샷 (인메모리 H2).
+ * - 데이터셋마다 처음 한 번 같은 DB의 FIXTURE_{이름} 스키마에 member/team 복사본(인덱스 포함)을 만들어 커밋해 둔다.
+ *   스키마는 DB에 남으므로 같은 DB를 쓰는 다른 컨텍스트/테스트 클래스도 다시 만들지 않는다.
+ * - restore: 현재 트랜잭션 안에서 member/team과 거기서 파생된 테이블(member_team 읽기 모델, member_tombstone,
+ *   member_archive)을 비우고 스냅샷을 insert-select로 복사한 뒤 member_team을 다시 채운다. 작은 데이터셋용.
+ *   @Transactional 테스트면 끝날 때 롤백되므로 다른 테스트에 남지 않고, 이전 테스트가 커밋한 데이터에도 영향받지 않는다.
+ * - mount: 복사하지 않고 현재 트랜잭션의 커넥션이 스냅샷 스키마를 보게 한다. 큰 데이터셋용 (100만 건도 즉시).
+ *   쓰기는 스냅샷에 직접 일어나므로 반드시 롤백되는 트랜잭션에서만 (@Commit 금지).
+ *   스냅샷에는 member/team만 있으므로 파생 테이블은 PUBLIC 것이 보인다 (읽기 모델을 쓰는 테스트는 restore로).
+ * - 둘 다 EntityManager로 아무것도 읽기 전에 (보통 @BeforeEach 맨 앞에서) 호출할 것.
+ */
+public final class Fixtures {
+    private static final String[] TABLES = {"team", "member"}; // FK 순서
+    // member에서 파생된 테이블. 스냅샷 없이 비우기만 (member_team은 아래에서 다시 채움)
+    private static final String[] DERIVED_TABLES = {"member_team", "member_tombstone", "member_archive"};
+    private static final String FILL_MEMBER_TEAM = "insert into public.member_team"
+            + " (member_id, username, username_normalized, age, team_id, team_name)"
+            + " select m.member_id, m.username, m.username_normalized, m.age, m.team_id, t.name"
+            + " from public.member m left join public.team t on t.id = m.team_id";
+
+    private Fixtures() {
+    }
+
+    public static void restore(DataSource dataSource, Dataset dataset) {
+        String schema = snapshot(dataSource, dataset);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (int i = TABLES.length - 1; i >= 0; i--) {
+            jdbc.execute("delete from public." + TABLES[i]);
+        }
+        // member를 지우면 삭제 트리거가 tombstone을 남기므로 파생 테이블은 그 뒤에
+        for (String table : DERIVED_TABLES) {
+            jdbc.execute("delete from public." + table);
+        }
+        for (String table : TABLES) {
+            String columns = String.join(", ", jdbc.queryForList(
+                    "select column_name from information_schema.columns"
+                            + " where table_schema = ? and table_name = ? order by ordinal_position",
+                    String.class, schema, table.toUpperCase()));
+            jdbc.execute("insert into public." + table + " (" + columns + ") select " + columns + " from " + schema + "." + table);
+        }
+        jdbc.execute(FILL_MEMBER_TEAM);
+    }
+
+    // 이름 없는 테이블은 현재 스키마(스냅샷) -> 검색 경로(PUBLIC) 순으로 찾는다. 시퀀스와 다른 테이블은 PUBLIC 것 그대로.
+    public static void mount(DataSource dataSource, Dataset dataset) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("mount needs a transaction that rolls back");
+        }
+        String schema = snapshot(dataSource, dataset);
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("set schema_search_path public");
+            connection.setSchema(schema);
+        } catch (SQLException e) {
+            throw new IllegalStateException("fixture " + dataset + " mount failed", e);
+        }
+        // 풀에 돌아가기 전에 원래대로
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    connection.setSchema("PUBLIC");
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    // 스냅샷 스키마가 없으면 만든다. 테스트 트랜잭션과 별개인 커넥션에서 만들고 커밋.
+    static synchronized String snapshot(DataSource dataSource, Dataset dataset) {
+        String schema = "FIXTURE_" + dataset.name();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            try (ResultSet existing = statement.executeQuery(
+                    "select 1 from information_schema.schemata where schema_name = '" + schema + "'")) {
+                if (existing.next()) {
+                    return schema;
+                }
+            }
+            try {
+                statement.execute("create schema " + schema);
+                for (String table : TABLES) {
+                    // 현재 엔티티 스키마와 같은 컬럼으로
+                    statement.execute("create table " + schema + "." + table + " as select * from public." + table + " where 1 = 0");
+                }
+                dataset.build(statement, schema);
+                // 인덱스는 다 넣은 뒤에 (mount로 바로 조회할 때 PUBLIC과 같은 실행 계획이 나오게)
+                for (String ddl : indexes(statement, schema)) {
+                    statement.execute(ddl);
+                }
+            } catch (SQLException e) {
+                // 반쯤 만든 스냅샷이 남으면 다음부터 그걸 쓰게 되므로 지운다
+                statement.execute("drop schema if exists " + schema + " cascade");
+                throw e;
+            }
+            return schema;
+        } catch (SQLException e) {
+            throw new IllegalStateException("fixture " + dataset + " build failed", e);
+        }
+    }
+
+    // PUBLIC.member/team의 기본 키와 인덱스를 스냅샷 스키마에 똑같이
+    private static List<String> indexes(Statement statement, String schema) throws SQLException {
+        Map<String, String> tables = new LinkedHashMap<>();
+        Map<String, String> types = new LinkedHashMap<>();
+        Map<String, List<String>> columns = new LinkedHashMap<>();
+        try (ResultSet rows = statement.executeQuery(
+                "select i.index_name, i.table_name, i.index_type_name, c.column_name"
+                        + " from information_schema.indexes i"
+                        + " join information_schema.index_columns c on c.index_schema = i.index_schema and c.index_name = i.index_name"
+                        + " where i.table_schema = 'PUBLIC' and i.table_name in ('MEMBER', 'TEAM')"
+                        + " order by i.index_name, c.ordinal_position")) {
+            while (rows.next()) {
+                String index = rows.getString(1);
+                tables.put(index, rows.getString(2));
+                types.put(index, rows.getString(3));
+                columns.computeIfAbsent(index, name -> new ArrayList<>()).add(rows.getString(4));
+            }
+        }
+        List<String> ddl = new ArrayList<>();
+        for (String index : tables.keySet()) {
+            String table = schema + "." + tables.get(index);
+            String columnList = String.join(", ", columns.get(index));
+            switch (types.get(index)) {
+                case "PRIMARY KEY" -> {
+                    // create table as select는 not null을 옮기지 않는다
+                    for (String column : columns.get(index)) {
+                        ddl.add("alter table " + table + " alter column " + column + " set not null");
+                    }
+                    ddl.add("alter table " + table + " add primary key (" + columnList + ")");
+                }
+                case "UNIQUE INDEX" -> ddl.add("create unique index " + schema + "." + index + " on " + table + " (" + columnList + ")");
+                default -> ddl.add("create index " + schema + "." + index + " on " + table + " (" + columnList + ")");
+            }
+        }
+        return ddl;
+    }
+}
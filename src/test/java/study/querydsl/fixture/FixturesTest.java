@@ -0,0 +1,142 @@
+package study.querydsl.fixture;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+
+import javax.sql.DataSource;
+
+@SpringBootTest
+@Transactional
+class FixturesTest {
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    // 복사본은 테이블을 통째로 바꾼다 - 이전 데이터가 섞이지 않음
+    @Test
+    public void restoreReplacesTables() {
+        em.persist(new Member("leftover", 1));
+        em.flush();
+        em.clear();
+
+        Fixtures.restore(dataSource, Dataset.BASIC);
+
+        Assertions.assertThat(memberRepository.findAll())
+                .extracting(Member::getUsername, member -> member.getTeam().getName())
+                .containsExactlyInAnyOrder(
+                        Assertions.tuple("member1", "teamA"),
+                        Assertions.tuple("member2", "teamA"),
+                        Assertions.tuple("member3", "teamB"),
+                        Assertions.tuple("member4", "teamB"));
+
+        Fixtures.restore(dataSource, Dataset.EMPTY);
+
+        Assertions.assertThat(memberRepository.count()).isZero();
+    }
+
+    // 파생 테이블(읽기 모델, 삭제 기록, 보관)도 이전 데이터 없이 스냅샷에 맞춤
+    @Test
+    public void restoreResetsDerivedTables() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Fixtures.restore(dataSource, Dataset.BASIC);
+        jdbc.update("insert into member_tombstone (member_id, change_version) values (1, 1)");
+        jdbc.update("insert into member_archive (member_id, username, age, archived_version) values (1, 'archived', 1, 1)");
+        jdbc.update("delete from member_team");
+
+        Fixtures.restore(dataSource, Dataset.BASIC);
+
+        Assertions.assertThat(jdbc.queryForObject("select count(*) from member_tombstone", Long.class)).isZero();
+        Assertions.assertThat(jdbc.queryForObject("select count(*) from member_archive", Long.class)).isZero();
+        Assertions.assertThat(jdbc.queryForList("select team_name from member_team order by age", String.class))
+                .containsExactly("teamA", "teamA", "teamB", "teamB");
+    }
+
+    // 새로 persist하는 엔티티의 시퀀스 id와 겹치지 않음
+    @Test
+    public void persistAfterRestore() {
+        Fixtures.restore(dataSource, Dataset.BASIC);
+
+        Member member = new Member("member5", 50);
+        em.persist(member);
+        em.flush();
+
+        Assertions.assertThat(member.getId()).isLessThan(Dataset.FIXTURE_ID_BASE);
+        Assertions.assertThat(memberRepository.count()).isEqualTo(5);
+    }
+
+    // 100만 건: 처음 한 번 만들고 나면 복사 없이 바로. 만드는 데 20초 가까이, 힙 2g가 필요해서 벤치마크와 같이 따로 (./gradlew benchmark)
+    @Test
+    @Tag("benchmark")
+    public void millionMembers() {
+        long start = System.nanoTime();
+        Fixtures.snapshot(dataSource, Dataset.MEMBERS_1M);
+        long built = System.nanoTime();
+        Fixtures.mount(dataSource, Dataset.MEMBERS_1M);
+        System.out.printf("snapshot %s: %d ms, mount: %d ms%n", Dataset.MEMBERS_1M,
+                (built - start) / 1_000_000, (System.nanoTime() - built) / 1_000_000);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(20);
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 20));
+
+        // team3 = i % 10 == 3, 나이 10~20 = i % 100 == 13 -> 100명 중 1명
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(Dataset.MEMBERS_1M.members() / 100);
+        Assertions.assertThat(page.getContent()).allMatch(row -> row.getAge() == 13 && row.getTeamName().equals("team3"));
+    }
+
+    // mount한 스냅샷에 쓴 것은 롤백되고, 끝나면 커넥션은 다시 PUBLIC
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void mountedWritesRollBack() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Fixtures.mount(dataSource, Dataset.MEMBERS_10K);
+            memberRepository.deleteAllInBatch();
+            Assertions.assertThat(memberRepository.count()).isZero();
+            status.setRollbackOnly();
+        });
+
+        transaction.executeWithoutResult(status -> {
+            Fixtures.mount(dataSource, Dataset.MEMBERS_10K);
+            Assertions.assertThat(memberRepository.count()).isEqualTo(Dataset.MEMBERS_10K.members());
+            status.setRollbackOnly();
+        });
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertThat(jdbc.queryForObject("select current_schema", String.class)).isEqualTo("PUBLIC");
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void mountNeedsTransaction() {
+        Assertions.assertThatThrownBy(() -> Fixtures.mount(dataSource, Dataset.BASIC))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
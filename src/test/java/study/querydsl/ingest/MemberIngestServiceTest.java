@@ -0,0 +1,105 @@
+package study.querydsl.ingest;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberIngestChunkDto;
+import study.querydsl.dto.MemberIngestResultDto;
+import study.querydsl.entity.Team;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+// 청크마다 커밋되므로 다른 테스트와 DB를 나눠 씀
+@SpringBootTest(properties = {
+        "querydsl.ingest.chunk-size=2",
+        "spring.datasource.url=jdbc:h2:mem:ingest"})
+class MemberIngestServiceTest {
+    @Autowired
+    MemberIngestService memberIngestService;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> em.persist(new Team("teamA")));
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void jsonArrayInChunks() {
+        String body = """
+                [{"username":"member1","age":10,"teamName":"teamA"},
+                 {"username":"member2","age":20},
+                 {"username":"","age":30},
+                 {"username":"member4","age":40,"teamName":"teamZ"},
+                 {"username":"member5","age":"old"}]
+                """;
+
+        MemberIngestResultDto result = ingest(body);
+
+        Assertions.assertThat(result.getReceived()).isEqualTo(5);
+        Assertions.assertThat(result.getInserted()).isEqualTo(2);
+        Assertions.assertThat(result.getRejected()).isEqualTo(3);
+        Assertions.assertThat(result.getError()).isNull();
+        Assertions.assertThat(result.getChunks()).extracting(MemberIngestChunkDto::getRows).containsExactly(2, 2, 1);
+        Assertions.assertThat(result.getChunks()).allMatch(MemberIngestChunkDto::isCommitted);
+        Assertions.assertThat(result.getChunks().get(1).getRejected()).containsOnlyKeys(2L, 3L);
+        Assertions.assertThat(result.getChunks().get(1).getRejected().get(3L)).contains("unknown team");
+        List<String> inTeamA = tx.execute(status -> queryFactory
+                .select(member.username)
+                .from(member)
+                .where(member.team.name.eq("teamA"))
+                .fetch());
+        Assertions.assertThat(inTeamA).containsExactly("member1");
+    }
+
+    @Test
+    public void ndjsonStopsAtMalformedInput() {
+        String body = """
+                {"username":"member1","age":10}
+                {"username":"member2","age":20,"teamName":"teamA"}
+                {"username":"member3","age":30}
+                {"username":"member4",
+                """;
+
+        MemberIngestResultDto result = ingest(body);
+
+        // 깨진 지점 전까지 읽은 행은 모두 커밋
+        Assertions.assertThat(result.getInserted()).isEqualTo(3);
+        Assertions.assertThat(result.getError()).startsWith("row 3:");
+        Long count = tx.execute(status -> queryFactory.select(member.count()).from(member).fetchOne());
+        Assertions.assertThat(count).isEqualTo(3);
+    }
+
+    private MemberIngestResultDto ingest(String body) {
+        return memberIngestService.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
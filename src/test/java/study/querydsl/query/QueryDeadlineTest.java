@@ -0,0 +1,42 @@
+package study.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.QueryTimeoutException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class QueryDeadlineTest {
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @AfterEach
+    public void clear() {
+        QueryDeadline.clear();
+    }
+
+    @Test
+    public void expiredDeadlineSkipsQuery() throws InterruptedException {
+        QueryDeadline.start(1);
+        Thread.sleep(5);
+
+        Assertions.assertThatThrownBy(() -> queryFactory.selectFrom(member).fetch())
+                .isInstanceOf(QueryTimeoutException.class);
+        Assertions.assertThatThrownBy(() -> queryFactory.select(member.count()).from(member).fetch())
+                .isInstanceOf(QueryTimeoutException.class);
+    }
+
+    @Test
+    public void withinDeadline() {
+        QueryDeadline.start(10_000);
+
+        Assertions.assertThat(queryFactory.selectFrom(member).fetch()).isNotNull();
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.query;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydsl.change.DataVersion;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.MemberRepository;
+
+@SpringBootTest
+class QueryWarmupTest {
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    DataVersion dataVersion;
+
+    @Test
+    public void warmUpWithoutSideEffects() {
+        // 테스트에서는 기본으로 꺼져 있음 (querydsl.warmup.enabled)
+        QueryWarmup warmup = new QueryWarmup(memberJpaRepository, memberRepository, memberQueryRepository,
+                transactionManager, 3, 10_000);
+        long versionBefore = dataVersion.current();
+
+        QueryWarmup.WarmupReport report = warmup.warmUp();
+
+        Assertions.assertThat(report.rounds()).isEqualTo(3);
+        Assertions.assertThat(report.callsPerRound()).isEqualTo(24 * 10 + 1);
+        Assertions.assertThat(dataVersion.current()).isEqualTo(versionBefore);
+    }
+
+    @Test
+    public void allShapes() {
+        // 조건 필드 4개 조합 16가지 + username이 있는 8가지의 대소문자 무시 버전
+        Assertions.assertThat(QueryWarmup.allShapes()).hasSize(24).doesNotHaveDuplicates();
+    }
+}
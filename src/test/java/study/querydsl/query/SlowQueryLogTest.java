@@ -0,0 +1,72 @@
+package study.querydsl.query;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+@SpringBootTest(properties = {
+        "querydsl.slow-query.threshold-ms=0",
+        "logging.level.study.querydsl.query.SlowQueryLog=debug"})
+@Transactional
+@ExtendWith(OutputCaptureExtension.class)
+class SlowQueryLogTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void logAndHistogram(CapturedOutput output) {
+        em.persist(new Member("private-name", 10));
+
+        memberJpaRepository.findByUsername_Querydsl("private-name");
+
+        // WARN에는 쿼리 모양만 (SQL이 여러 줄이라 DEBUG 줄 앞까지), 바인딩 값은 DEBUG에만
+        String out = output.getOut();
+        int warn = out.indexOf("slow query origin=MemberJpaRepository.findByUsername_Querydsl kind=fetch");
+        int debug = out.indexOf("slow query params", warn);
+        Assertions.assertThat(warn).isNotNegative();
+        Assertions.assertThat(debug).isGreaterThan(warn);
+        Assertions.assertThat(out.substring(warn, debug))
+                .contains("rows=1")
+                .contains("from member")
+                .doesNotContain("private-name");
+        Assertions.assertThat(out.substring(debug)).contains("params=[private-name]");
+        Assertions.assertThat(meterRegistry.find("member.query")
+                .tag("origin", "MemberJpaRepository.findByUsername_Querydsl")
+                .timer()).isNotNull();
+    }
+
+    // 스택은 호출 위치(키)마다 처음 한 번만 훑는다. 다른 스레드(다른 스택)에서 같은 키로 불러도 처음 구한 origin.
+    @Test
+    public void originResolvedOncePerCallSite() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SlowQueryLog slowQueryLog = new SlowQueryLog(registry, 60_000);
+        Thread other = new Thread(() -> slowQueryLog.observe("fetch", () -> 1, r -> 1, () -> null, () -> "select m from Member m"));
+        other.start();
+        other.join();
+
+        slowQueryLog.observe("fetch", () -> 1, r -> 1, () -> null, () -> "select m from Member m");
+        Assertions.assertThat(registry.get("member.query").timers()).singleElement()
+                .extracting(Timer::count).isEqualTo(2L);
+
+        // 키가 없으면 매번 훑으므로 이 스레드의 호출자로 따로 잡힌다
+        slowQueryLog.observe("fetch", () -> 1, r -> 1, () -> null, () -> null);
+        Assertions.assertThat(registry.get("member.query").timers()).hasSize(2);
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+@SpringBootTest
+class BulkIdLoaderTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    BulkIdLoader bulkIdLoader;
+
+    @Test
+    public void paddedChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, 21).boxed().toList();
+
+        List<List<Long>> chunks = BulkIdLoader.paddedChunks(ids, 8);
+
+        Assertions.assertThat(chunks).extracting(List::size).containsExactly(8, 8, 8);
+        Assertions.assertThat(chunks.get(2)).containsExactly(17L, 18L, 19L, 20L, 21L, 21L, 21L, 21L);
+        Assertions.assertThat(BulkIdLoader.paddedChunks(ids.subList(0, 9), 256).get(0)).hasSize(16);
+        Assertions.assertThat(BulkIdLoader.paddedChunks(ids.subList(0, 1), 256).get(0)).hasSize(8);
+        Assertions.assertThat(BulkIdLoader.paddedChunks(List.of(), 256)).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    public void inputOrder() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Member m = new Member("member" + i, i, teamA);
+            em.persist(m);
+            ids.add(m.getId());
+        }
+        em.flush();
+        em.clear();
+
+        List<Long> request = new ArrayList<>();
+        request.add(ids.get(29));
+        request.add(-1L); // 없는 id는 빠짐
+        request.add(ids.get(3));
+        request.add(ids.get(29)); // 중복은 그대로
+        request.addAll(ids.subList(10, 20));
+
+        List<Member> result = bulkIdLoader.findMembers(request);
+
+        List<Long> expected = new ArrayList<>(List.of(ids.get(29), ids.get(3), ids.get(29)));
+        expected.addAll(ids.subList(10, 20));
+        Assertions.assertThat(result).extracting(Member::getId).containsExactlyElementsOf(expected);
+        Assertions.assertThat(bulkIdLoader.findTeams(List.of(teamA.getId())))
+                .extracting(Team::getName).containsExactly("teamA");
+    }
+
+    @Test
+    @Transactional
+    public void managedEntitiesSkipDatabase() {
+        Member member1 = new Member("member1", 10);
+        em.persist(member1);
+        em.flush();
+        // DB에서는 지웠지만 영속성 컨텍스트에는 남아있음 -> DB를 안 보면 그대로 나와야 함
+        em.createQuery("delete from Member m where m.id = :id").setParameter("id", member1.getId()).executeUpdate();
+
+        List<Member> result = bulkIdLoader.findMembers(List.of(member1.getId()));
+
+        Assertions.assertThat(result).containsExactly(member1);
+    }
+
+    // 조각 여러 개여도 호출자 영속성 컨텍스트로: 커밋 안 된 행도 보이고 결과는 영속 상태(지연 로딩 가능)
+    @Test
+    @Transactional
+    public void manyChunksInCallerContext() {
+        // 같은 DB를 쓰는 다른 컨텍스트가 스키마를 다시 만들면 시퀀스가 처음부터라 id는 직접 지정
+        em.createNativeQuery("insert into team (id, name, created_version, change_version) values (1000000, 'teamA', 0, 0)")
+                .executeUpdate();
+        List<Long> ids = LongStream.range(1_000_000, 1_000_700).boxed().toList();
+        for (Long id : ids) {
+            em.createNativeQuery("insert into member (member_id, username, age, team_id, created_version, change_version)"
+                            + " values (?, ?, ?, 1000000, 0, 0)")
+                    .setParameter(1, id)
+                    .setParameter(2, "bulk" + id)
+                    .setParameter(3, (int) (id % 100))
+                    .executeUpdate();
+        }
+        List<Long> request = new ArrayList<>(ids);
+        Collections.reverse(request);
+
+        List<Member> result = bulkIdLoader.findMembers(request);
+
+        Assertions.assertThat(result).extracting(Member::getId).containsExactlyElementsOf(request);
+        Assertions.assertThat(result).allMatch(em::contains);
+        Assertions.assertThat(result.get(0).getTeam().getName()).isEqualTo("teamA");
+    }
+}
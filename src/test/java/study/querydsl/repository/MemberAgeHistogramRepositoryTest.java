@@ -0,0 +1,158 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberAgeBucketDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 캐시는 커밋된 쓰기로만 무효화되므로 데이터를 커밋하고 DB를 따로 씀
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:age-histogram")
+@AutoConfigureMockMvc
+class MemberAgeHistogramRepositoryTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberAgeHistogramRepository memberAgeHistogramRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    TransactionTemplate tx;
+
+    List<Member> members = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team[] teams = {new Team("teamA"), new Team("teamB"), new Team("teamC")};
+            for (Team t : teams) {
+                em.persist(t);
+            }
+            Random random = new Random(48L);
+            for (int i = 0; i < 200; i++) {
+                Member member = new Member("member" + i, random.nextInt(90), i % 7 == 6 ? null : teams[random.nextInt(2)]);
+                em.persist(member);
+                members.add(member);
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    // 앱에서 회원을 하나씩 세는 것과 같은 결과 (teamC처럼 회원 없는 팀은 안 나옴)
+    @Test
+    public void sameCountsAsCountingInApp() {
+        List<Integer> bounds = List.of(18, 30, 45, 65);
+
+        List<MemberAgeBucketDto> histogram = memberAgeHistogramRepository.histogram(bounds, null);
+
+        Assertions.assertThat(histogram).extracting(MemberAgeBucketDto::getTeamName)
+                .containsExactly("teamA", "teamA", "teamA", "teamA", "teamA",
+                        "teamB", "teamB", "teamB", "teamB", "teamB",
+                        null, null, null, null, null);
+        for (MemberAgeBucketDto bucket : histogram) {
+            long expected = members.stream()
+                    .filter(m -> bucket.getTeamName() == null ? m.getTeam() == null
+                            : m.getTeam() != null && m.getTeam().getName().equals(bucket.getTeamName()))
+                    .filter(m -> bucket.getFromAge() == null || m.getAge() >= bucket.getFromAge())
+                    .filter(m -> bucket.getToAge() == null || m.getAge() < bucket.getToAge())
+                    .count();
+            Assertions.assertThat(bucket.getCount()).as("%s", bucket).isEqualTo(expected);
+        }
+        Assertions.assertThat(histogram).extracting(MemberAgeBucketDto::getFromAge)
+                .containsSequence(null, 18, 30, 45, 65);
+        Assertions.assertThat(histogram.stream().mapToLong(MemberAgeBucketDto::getCount).sum()).isEqualTo(members.size());
+    }
+
+    @Test
+    public void teamFilterKeepsEmptyBuckets() {
+        List<MemberAgeBucketDto> histogram = memberAgeHistogramRepository.histogram(List.of(0, 200), "teamB");
+
+        Assertions.assertThat(histogram).extracting(MemberAgeBucketDto::getCount)
+                .containsExactly(0L, members.stream().filter(m -> m.getTeam() != null && m.getTeam().getName().equals("teamB")).count(), 0L);
+        Assertions.assertThat(memberAgeHistogramRepository.histogram(List.of(30), "teamZ")).isEmpty();
+    }
+
+    @Test
+    public void rejectsBadBounds() {
+        Assertions.assertThatThrownBy(() -> memberAgeHistogramRepository.histogram(List.of(), null))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+        Assertions.assertThatThrownBy(() -> memberAgeHistogramRepository.histogram(List.of(30, 30), null))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+        Assertions.assertThatThrownBy(() -> memberAgeHistogramRepository.histogram(List.of(40, 20), null))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+    }
+
+    // 같은 요청은 쿼리 없이 캐시에서, 회원 쓰기가 커밋되면 다시 조회
+    @Test
+    public void cachedUntilMembersChange() {
+        List<Integer> bounds = List.of(20, 40);
+        double missesBefore = count("miss");
+
+        List<MemberAgeBucketDto> first = memberAgeHistogramRepository.histogram(bounds, "teamA");
+        List<MemberAgeBucketDto> second = memberAgeHistogramRepository.histogram(bounds, "teamA");
+
+        Assertions.assertThat(second).isSameAs(first);
+        Assertions.assertThat(count("miss") - missesBefore).isEqualTo(1);
+
+        Member young = members.stream()
+                .filter(m -> m.getTeam() != null && m.getTeam().getName().equals("teamA") && m.getAge() < 20)
+                .findFirst().orElseThrow();
+        tx.executeWithoutResult(status -> em.find(Member.class, young.getId()).setAge(50));
+
+        List<MemberAgeBucketDto> third = memberAgeHistogramRepository.histogram(bounds, "teamA");
+        Assertions.assertThat(count("miss") - missesBefore).isEqualTo(2);
+        Assertions.assertThat(third.get(0).getCount()).isEqualTo(first.get(0).getCount() - 1);
+        Assertions.assertThat(third.get(2).getCount()).isEqualTo(first.get(2).getCount() + 1);
+    }
+
+    // 기본 경계 10,20,...,60 -> 팀마다 7구간
+    @Test
+    public void endpoint() throws Exception {
+        mockMvc.perform(get("/v1/members/age-histogram").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(7))
+                .andExpect(jsonPath("$[0].toAge").value(10))
+                .andExpect(jsonPath("$[6].fromAge").value(60));
+        mockMvc.perform(get("/v1/members/age-histogram").param("bounds", "30,20"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("member.age-histogram.cache").tag("result", result).counter().count();
+    }
+}
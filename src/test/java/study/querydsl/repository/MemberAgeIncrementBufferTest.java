@@ -0,0 +1,112 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+@SpringBootTest
+class MemberAgeIncrementBufferTest {
+    // 별도 트랜잭션에서 flush되므로 커밋된 행이 필요. 시퀀스와 겹치지 않게 id는 직접 지정.
+    static final List<Long> IDS = LongStream.range(2_000_000, 2_000_010).boxed().toList();
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberAgeIncrementBuffer buffer;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            for (Long id : IDS) {
+                em.createNativeQuery("insert into member (member_id, username, age, created_version, change_version) values (?, ?, 0, 0, 0)")
+                        .setParameter(1, id)
+                        .setParameter(2, "counter" + id)
+                        .executeUpdate();
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        buffer.flush();
+        tx.executeWithoutResult(status -> em.createQuery("delete from Member m where m.id in :ids")
+                .setParameter("ids", IDS)
+                .executeUpdate());
+    }
+
+    @Test
+    public void readThroughAndFlush() {
+        Long id = IDS.get(0);
+        buffer.increment(id, 3);
+        buffer.increment(id, 2);
+
+        // 백그라운드 flush와 겹쳐도 항상 DB + 대기분
+        Assertions.assertThat(buffer.currentAge(id)).contains(5);
+
+        buffer.flush();
+
+        Assertions.assertThat(ageInDb(id)).isEqualTo(5);
+        Assertions.assertThat(buffer.pendingDelta(id)).isZero();
+        Assertions.assertThat(buffer.currentAge(id)).contains(5);
+        Assertions.assertThat(buffer.currentAge(-1L)).isEmpty();
+    }
+
+    @Test
+    public void concurrentIncrementsWhileFlushing() throws Exception {
+        int threads = 8;
+        int perThread = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    buffer.increment(IDS.get(i % IDS.size()), 1);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < 5; i++) {
+            buffer.flush(); // 증가 도중 flush가 끼어들어도 잃어버리면 안 됨
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        buffer.flush();
+
+        int expectedEach = threads * perThread / IDS.size();
+        for (Long id : IDS) {
+            Assertions.assertThat(ageInDb(id)).isEqualTo(expectedEach);
+        }
+    }
+
+    private int ageInDb(Long id) {
+        return tx.execute(status -> ((Number) em.createNativeQuery("select age from member where member_id = ?")
+                .setParameter(1, id)
+                .getSingleResult()).intValue());
+    }
+}
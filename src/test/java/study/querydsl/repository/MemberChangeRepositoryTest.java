@@ -0,0 +1,122 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.change.ChangeVersions;
+import study.querydsl.dto.MemberChangesDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberChangeRepositoryTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberChangeRepository memberChangeRepository;
+
+    @Test
+    public void changesSince() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+
+        long since = ChangeVersions.next();
+        member1.setAge(11);
+        Member member4 = new Member("member4", 40, teamA);
+        em.persist(member4);
+        em.remove(member3);
+        em.flush();
+
+        MemberChangesDto changes = memberChangeRepository.findChangesSince(since, ChangeVersions.next(), 100);
+
+        Assertions.assertThat(changes.getUpdated()).containsExactly(member1.getId());
+        Assertions.assertThat(changes.getInserted()).containsExactly(member4.getId());
+        Assertions.assertThat(changes.getDeleted()).containsExactly(member3.getId());
+        Assertions.assertThat(changes.getMembers()).extracting("username").containsExactly("member4", "member1");
+        Assertions.assertThat(changes.isHasMore()).isFalse();
+    }
+
+    @Test
+    public void teamRenameAndLimit() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+        em.flush();
+
+        long since = ChangeVersions.next();
+        teamA.setName("teamA2");
+        em.flush();
+
+        MemberChangesDto all = memberChangeRepository.findChangesSince(since, ChangeVersions.next(), 100);
+        Assertions.assertThat(all.getUpdated()).hasSize(5);
+        Assertions.assertThat(all.getMembers()).extracting("teamName").containsOnly("teamA2");
+
+        // 팀 변경 한 번에 5명이 같은 버전으로 묶여 있으므로 limit보다 많아도 한 번에 받는다.
+        MemberChangesDto limited = memberChangeRepository.findChangesSince(since, ChangeVersions.next(), 2);
+        Assertions.assertThat(limited.getMembers()).hasSize(5);
+        Assertions.assertThat(limited.isHasMore()).isTrue();
+    }
+
+    // 엔티티를 거치지 않는 삭제(JPQL 벌크, 네이티브)도 삭제 트리거가 tombstone을 남긴다
+    @Test
+    public void bulkDeleteIsTombstoned() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+
+        long since = ChangeVersions.next();
+        em.createQuery("delete from Member m where m.age = 20").executeUpdate();
+        em.createNativeQuery("delete from member where member_id = :id").setParameter("id", member3.getId()).executeUpdate();
+
+        MemberChangesDto changes = memberChangeRepository.findChangesSince(since, ChangeVersions.next(), 100);
+        Assertions.assertThat(changes.getDeleted()).containsExactlyInAnyOrder(member2.getId(), member3.getId());
+        Assertions.assertThat(changes.getUpdated()).isEmpty();
+    }
+
+    // 벌크 update는 ChangeVersions.stamp로 찍어야 변경 피드에 나온다
+    @Test
+    public void stampedBulkUpdate() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.flush();
+
+        long since = ChangeVersions.next();
+        ChangeVersions.stamp(queryFactory.update(member), member.changeVersion)
+                .set(member.age, member.age.add(1))
+                .where(member.age.goe(20))
+                .execute();
+
+        MemberChangesDto changes = memberChangeRepository.findChangesSince(since, ChangeVersions.next(), 100);
+        Assertions.assertThat(changes.getUpdated()).containsExactly(member2.getId());
+    }
+}
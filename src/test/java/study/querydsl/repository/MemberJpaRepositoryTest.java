@@ -9,8 +9,10 @@ import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
+import study.querydsl.fixture.Dataset;
+import study.querydsl.fixture.Fixtures;
 
+import javax.sql.DataSource;
 import java.util.List;
 
 
@@ -20,10 +22,14 @@ class MemberJpaRepositoryTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    DataSource dataSource;
+
     @Autowired MemberJpaRepository memberJpaRepository;
 
     @Test
     public void basicTest(){
+        Fixtures.restore(dataSource, Dataset.EMPTY);
         Member member = new Member("member1",10);
         memberJpaRepository.save(member);
 
@@ -40,6 +46,7 @@ class MemberJpaRepositoryTest {
 
     @Test
     public void basicQuerydslTest(){
+        Fixtures.restore(dataSource, Dataset.EMPTY);
         Member member = new Member("member1",10);
         memberJpaRepository.save(member);
 
@@ -52,21 +59,7 @@ class MemberJpaRepositoryTest {
 
     @Test
     public void searchTest(){
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
-        em.persist(teamA);
-        em.persist(teamB);
-
-        Member member1 = new Member("member1",10,teamA);
-        Member member2 = new Member("member2",20,teamA);
-
-        Member member3 = new Member("member3",30,teamB);
-        Member member4 = new Member("member4",40,teamB);
-
-        em.persist(member1);
-        em.persist(member2);
-        em.persist(member3);
-        em.persist(member4);
+        Fixtures.restore(dataSource, Dataset.BASIC);
 
         MemberSearchCondition condition = new MemberSearchCondition();
         condition.setAgeGoe(35);
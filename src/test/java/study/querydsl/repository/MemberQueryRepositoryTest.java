@@ -0,0 +1,113 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Transactional
+class MemberQueryRepositoryTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    WebApplicationContext context;
+
+    @BeforeEach
+    public void before() {
+        Team[] teams = {new Team("teamA"), new Team("teamB"), new Team("teamC")};
+        for (Team t : teams) {
+            em.persist(t);
+        }
+        for (int i = 0; i < 60; i++) {
+            em.persist(new Member("member" + (i % 15), i, i % 5 == 4 ? null : teams[i % 3]));
+        }
+    }
+
+    @Test
+    public void searchBatchSameAsSearchEach() {
+        Random random = new Random(35L);
+        String[] usernames = {null, "member1", "member3", "member14", "nobody"};
+        String[] teamNames = {null, "teamA", "teamB", "teamZ"};
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername(usernames[random.nextInt(usernames.length)]);
+            condition.setTeamName(teamNames[random.nextInt(teamNames.length)]);
+            condition.setAgeGoe(random.nextInt(3) == 0 ? random.nextInt(60) : null);
+            condition.setAgeLoe(random.nextInt(3) == 0 ? random.nextInt(60) : null);
+            // 대소문자 무시는 username이 있을 때만 shape가 갈린다 (최대 24 shape)
+            condition.setUsernameIgnoreCase(random.nextBoolean());
+            if (condition.isUsernameIgnoreCase() && condition.getUsername() != null) {
+                condition.setUsername(condition.getUsername().toUpperCase());
+            }
+            conditions.add(condition);
+        }
+
+        List<List<MemberTeamDto>> batch = memberQueryRepository.searchBatch(conditions);
+
+        Assertions.assertThat(batch).hasSize(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            List<MemberTeamDto> each = memberQueryRepository.search(conditions.get(i)).stream()
+                    .sorted(Comparator.comparing(MemberTeamDto::getMemberId))
+                    .toList();
+            Assertions.assertThat(batch.get(i)).as("%s", conditions.get(i)).isEqualTo(each);
+        }
+    }
+
+    @Test
+    public void searchBatchEmpty() {
+        Assertions.assertThat(memberQueryRepository.searchBatch(List.of())).isEmpty();
+    }
+
+    // 조건 개수는 querydsl.search-batch.max-conditions(500)까지, null 조건은 500이 아니라 400
+    @Test
+    public void searchBatchEndpointLimits() throws Exception {
+        // @AutoConfigureMockMvc를 붙이면 컨텍스트가 하나 더 떠서 같은 DB의 스키마를 다시 만든다
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        // 검증은 비동기로 넘기기 전에 요청 스레드에서
+        mockMvc.perform(post("/v1/members/search-batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.join(",", Collections.nCopies(501, "{}")) + "]"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/v1/members/search-batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"teamName\":\"teamA\"},null]"))
+                .andExpect(status().isBadRequest());
+        MvcResult result = mockMvc.perform(post("/v1/members/search-batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.join(",", Collections.nCopies(500, "{\"username\":\"nobody\"}")) + "]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(500));
+    }
+}
@@ -0,0 +1,91 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Transactional
+class MemberRankingRepositoryTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRankingRepository memberRankingRepository;
+
+    @Autowired
+    WebApplicationContext context;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 40, teamB));
+        em.persist(new Member("member6", 99)); // 팀 없음 - 순위 대상 아님
+        em.flush();
+    }
+
+    @Test
+    public void oldestPerTeam() {
+        List<MemberRankDto> result = memberRankingRepository.findOldestPerTeam(2);
+
+        Assertions.assertThat(result).extracting("username")
+                .containsExactly("member2", "member1", "member4", "member5");
+        Assertions.assertThat(result).extracting("rank").containsExactly(1L, 2L, 1L, 2L);
+    }
+
+    @Test
+    public void rankWithinTeam() {
+        List<MemberRankDto> result = memberRankingRepository.rankWithinTeam("teamB");
+
+        Assertions.assertThat(result).extracting("username").containsExactly("member4", "member5", "member3");
+        Assertions.assertThat(result).extracting("rank").containsExactly(1L, 1L, 3L);
+    }
+
+    @Test
+    public void oldestInEachTeam() {
+        List<MemberRankDto> result = memberRankingRepository.findOldestInEachTeam();
+
+        Assertions.assertThat(result).extracting("username").containsExactly("member2", "member4", "member5");
+    }
+
+    // 팀 없는 전체 순위(페이징 없음)는 막고, n은 querydsl.ranking.max-per-team(100)까지
+    @Test
+    public void endpointLimits() throws Exception {
+        // @AutoConfigureMockMvc를 붙이면 컨텍스트가 하나 더 떠서 같은 DB의 스키마를 다시 만든다
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        mockMvc.perform(get("/v1/members/team-rank")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/members/team-rank").param("teamName", " ")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/members/team-rank").param("teamName", "teamB"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+        mockMvc.perform(get("/v1/members/oldest-per-team").param("n", "101")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/members/oldest-per-team").param("n", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5));
+    }
+}
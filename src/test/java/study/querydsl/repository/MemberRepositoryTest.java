@@ -12,7 +12,10 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.fixture.Dataset;
+import study.querydsl.fixture.Fixtures;
 
+import javax.sql.DataSource;
 import java.util.List;
 
 @SpringBootTest
@@ -21,11 +24,15 @@ class MemberRepositoryTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    DataSource dataSource;
+
     @Autowired
     MemberRepository memberRepository;
 
     @Test
     public void basicTest() {
+        Fixtures.restore(dataSource, Dataset.EMPTY);
         Member member = new Member("member1", 10);
         memberRepository.save(member);
 
@@ -42,21 +49,7 @@ class MemberRepositoryTest {
 
     @Test
     public void searchTest() {
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
-        em.persist(teamA);
-        em.persist(teamB);
-
-        Member member1 = new Member("member1", 10, teamA);
-        Member member2 = new Member("member2", 20, teamA);
-
-        Member member3 = new Member("member3", 30, teamB);
-        Member member4 = new Member("member4", 40, teamB);
-
-        em.persist(member1);
-        em.persist(member2);
-        em.persist(member3);
-        em.persist(member4);
+        Fixtures.restore(dataSource, Dataset.BASIC);
 
         MemberSearchCondition condition = new MemberSearchCondition();
         condition.setAgeGoe(35);
@@ -73,21 +66,7 @@ class MemberRepositoryTest {
     // 페이징
     @Test
     public void searchPageSimpleTest() {
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
-        em.persist(teamA);
-        em.persist(teamB);
-
-        Member member1 = new Member("member1", 10, teamA);
-        Member member2 = new Member("member2", 20, teamA);
-
-        Member member3 = new Member("member3", 30, teamB);
-        Member member4 = new Member("member4", 40, teamB);
-
-        em.persist(member1);
-        em.persist(member2);
-        em.persist(member3);
-        em.persist(member4);
+        Fixtures.restore(dataSource, Dataset.BASIC);
 
         MemberSearchCondition condition = new MemberSearchCondition();
 
@@ -99,4 +78,28 @@ class MemberRepositoryTest {
 
 
     }
+
+    @Test
+    public void searchPageWindowTest() {
+        Fixtures.restore(dataSource, Dataset.EMPTY);
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        Page<MemberTeamDto> first = memberRepository.searchPageWindow(condition, PageRequest.of(0, 2));
+        Assertions.assertThat(first.getContent()).extracting("username").containsExactly("member1", "member3");
+        Assertions.assertThat(first.getTotalElements()).isEqualTo(3);
+
+        Page<MemberTeamDto> overflow = memberRepository.searchPageWindow(condition, PageRequest.of(5, 2));
+        Assertions.assertThat(overflow.getContent()).isEmpty();
+        Assertions.assertThat(overflow.getTotalElements()).isEqualTo(3);
+    }
 }
@@ -0,0 +1,193 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.Usernames;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueriesTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberSearchQueries searchQueries;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @BeforeEach
+    public void before() {
+        Team[] teams = {new Team("teamA"), new Team("teamB"), new Team("teamC")};
+        for (Team t : teams) {
+            em.persist(t);
+        }
+        for (int i = 0; i < 60; i++) {
+            // 팀 없는 회원도 섞음 - left join을 뺐을 때 누락되면 안 됨
+            Team selected = i % 4 == 3 ? null : teams[i % 3];
+            em.persist(new Member("member" + (i % 20), i, selected));
+        }
+    }
+
+    @Test
+    public void joinOnlyWhenNeeded() {
+        MemberSearchCondition noTeam = new MemberSearchCondition();
+        noTeam.setAgeGoe(10);
+        MemberSearchCondition withTeam = new MemberSearchCondition();
+        withTeam.setTeamName("teamA");
+
+        Assertions.assertThat(searchQueries.count(noTeam).toString()).doesNotContain("join");
+        Assertions.assertThat(searchQueries.count(withTeam).toString()).contains("inner join");
+        Assertions.assertThat(searchQueries.select(new QMemberDto(member.username, member.age), noTeam).toString())
+                .doesNotContain("join");
+        Assertions.assertThat(searchQueries.select(memberTeamDto(), noTeam).toString()).contains("left join");
+    }
+
+    // 무작위 조건으로 "항상 left join" 하는 원래 쿼리와 결과가 같은지 확인 (property-based)
+    @Test
+    public void sameResultsAsAlwaysJoin() {
+        Random random = new Random(20240101L);
+        String[] usernames = {null, "", "member1", "member7", "member19", "nobody"};
+        String[] teamNames = {null, "", "teamA", "teamB", "teamC", "teamZ"};
+
+        for (int i = 0; i < 300; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername(usernames[random.nextInt(usernames.length)]);
+            condition.setTeamName(teamNames[random.nextInt(teamNames.length)]);
+            condition.setAgeGoe(random.nextBoolean() ? random.nextInt(70) - 5 : null);
+            condition.setAgeLoe(random.nextBoolean() ? random.nextInt(70) - 5 : null);
+
+            List<MemberTeamDto> expected = sorted(queryFactory
+                    .select(memberTeamDto())
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(searchQueries.where(condition))
+                    .fetch());
+            long expectedCount = queryFactory
+                    .select(member.count())
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(searchQueries.where(condition))
+                    .fetchOne();
+            List<MemberDto> expectedMembers = queryFactory
+                    .select(new QMemberDto(member.username, member.age))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(searchQueries.where(condition))
+                    .orderBy(member.age.asc())
+                    .fetch();
+
+            Assertions.assertThat(sorted(searchQueries.select(memberTeamDto(), condition).fetch()))
+                    .as("content %s", condition).isEqualTo(expected);
+            Assertions.assertThat(searchQueries.count(condition).fetchOne())
+                    .as("count %s", condition).isEqualTo(expectedCount);
+            Assertions.assertThat(searchQueries.select(new QMemberDto(member.username, member.age), condition)
+                            .orderBy(member.age.asc()).fetch())
+                    .as("member only %s", condition).isEqualTo(expectedMembers);
+        }
+    }
+
+    @Test
+    public void usernameIgnoreCaseAndAccents() {
+        em.persist(new Member("Émile", 131));
+        em.persist(new Member("EMILE", 132));
+        em.persist(new Member("emilie", 133));
+        Member renamed = new Member("other", 134);
+        em.persist(renamed);
+        em.flush();
+        renamed.setUsername("émilE");
+        em.persist(new Member("x", 135));
+        em.flush();
+        // 벌크 update 경로도 정규화 컬럼 유지
+        Usernames.set(queryFactory.update(member), member, "EmIlE").where(member.age.eq(135)).execute();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("emile");
+        condition.setUsernameIgnoreCase(true);
+
+        Assertions.assertThat(searchQueries.select(member.age, condition).orderBy(member.age.asc()).fetch())
+                .containsExactly(131, 132, 134, 135);
+        Assertions.assertThat(memberSqlRepository.search(condition)).extracting(MemberTeamDto::getAge)
+                .containsExactlyInAnyOrder(131, 132, 134, 135);
+        Assertions.assertThat(memberQueryRepository.searchBatch(List.of(condition)).get(0))
+                .extracting(MemberTeamDto::getAge).containsExactly(131, 132, 134, 135);
+
+        condition.setUsernameIgnoreCase(false);
+        Assertions.assertThat(searchQueries.count(condition).fetchOne()).isZero();
+    }
+
+    // Usernames.set 없이 username만 바꾼 벌크/네이티브 update도 정규화 컬럼이 따라간다 (DB 트리거)
+    @Test
+    public void rawUsernameUpdateKeepsNormalized() {
+        em.flush();
+        queryFactory.update(member).set(member.username, "ÉMILE").where(member.age.eq(10)).execute();
+        em.createNativeQuery("update member set username = 'Emilé' where age = 11").executeUpdate();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("emile");
+        condition.setUsernameIgnoreCase(true);
+
+        Assertions.assertThat(searchQueries.select(member.age, condition).orderBy(member.age.asc()).fetch())
+                .containsExactly(10, 11);
+    }
+
+    @Test
+    public void normalize() {
+        Assertions.assertThat(Usernames.normalize("Ångström Ça")).isEqualTo("angstrom ca");
+        Assertions.assertThat(Usernames.normalize(null)).isNull();
+        // 한글은 자모로 풀린 채 남지 않고 음절 그대로
+        Assertions.assertThat(Usernames.normalize("한글 회원")).isEqualTo("한글 회원");
+    }
+
+    // 100음절 한글 이름도 정규화 컬럼(varchar 255)에 들어가고 대소문자 무시 검색으로 찾는다
+    @Test
+    public void longHangulUsername() {
+        String username = "가나다라마바사아자차".repeat(10);
+        Assertions.assertThat(Usernames.normalize(username)).hasSize(100);
+        em.persist(new Member(username, 140));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setUsernameIgnoreCase(true);
+
+        Assertions.assertThat(searchQueries.select(member.age, condition).fetch()).containsExactly(140);
+    }
+
+    private QMemberTeamDto memberTeamDto() {
+        return new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+    }
+
+    private List<MemberTeamDto> sorted(List<MemberTeamDto> rows) {
+        return rows.stream().sorted(Comparator.comparing(MemberTeamDto::getMemberId)).toList();
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+class MemberSqlRepositoryTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+        // JDBC 경로는 자동 flush가 없음
+        em.flush();
+    }
+
+    @Test
+    public void searchSameAsJpa() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberSqlRepository.search(condition);
+
+        Assertions.assertThat(result).extracting("username").containsExactly("member4");
+        Assertions.assertThat(result).isEqualTo(memberRepository.search(condition));
+    }
+
+    @Test
+    public void paging() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(1, 2);
+
+        Page<MemberTeamDto> complex = memberSqlRepository.searchPageComplex(condition, pageRequest);
+        Page<MemberTeamDto> window = memberSqlRepository.searchPageWindow(condition, pageRequest);
+
+        Assertions.assertThat(complex.getContent()).extracting("username").containsExactly("member3", "member4");
+        Assertions.assertThat(complex.getTotalElements()).isEqualTo(5);
+        Assertions.assertThat(window.getContent()).isEqualTo(complex.getContent());
+        Assertions.assertThat(window.getTotalElements()).isEqualTo(5);
+        Assertions.assertThat(memberSqlRepository.searchPageSimple(condition, pageRequest).getContent())
+                .isEqualTo(memberRepository.searchPageSimple(condition, pageRequest).getContent());
+    }
+}
@@ -0,0 +1,204 @@
+package study.querydsl.shard;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Usernames;
+import study.querydsl.query.QueryDeadline;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+// 인메모리 H2 샤드 3개. 기본 DB도 따로 (스키마를 새로 만드는 별도 컨텍스트)
+@SpringBootTest(properties = {
+        "querydsl.shards.enabled=true",
+        "querydsl.shards.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1",
+        "spring.datasource.url=jdbc:h2:mem:sharded"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShardedMemberSearchTest {
+    static final String[] TEAM_NAMES = {"teamA", "teamB", "teamC", "teamD", "teamE"};
+
+    @Autowired
+    MemberShards shards;
+
+    @Autowired
+    ShardedMemberStore store;
+
+    @Autowired
+    ShardedMemberSearch search;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    // 단일 DB였다면 나왔을 결과 (member_id 순)
+    List<MemberTeamDto> all = new ArrayList<>();
+
+    @BeforeAll
+    public void before() {
+        Long[] teamIds = new Long[TEAM_NAMES.length];
+        for (int i = 0; i < TEAM_NAMES.length; i++) {
+            teamIds[i] = store.saveTeam(TEAM_NAMES[i]);
+        }
+        Random random = new Random(45L);
+        for (int i = 0; i < 300; i++) {
+            int team = random.nextInt(TEAM_NAMES.length + 1);
+            Long teamId = team < TEAM_NAMES.length ? teamIds[team] : null;
+            String username = (i % 3 == 0 ? "Member" : "member") + (i % 40);
+            int age = random.nextInt(60);
+            long memberId = store.saveMember(username, age, teamId);
+            all.add(new MemberTeamDto(memberId, username, age, teamId, teamId != null ? TEAM_NAMES[team] : null));
+        }
+        all.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+    }
+
+    @Test
+    public void membersSpreadByTeam() {
+        for (MemberTeamDto row : all) {
+            Assertions.assertThat(Math.floorMod(row.getMemberId(), shards.size())).isEqualTo(shards.shardOf(row.getTeamId()));
+        }
+        Assertions.assertThat(all).extracting(MemberTeamDto::getMemberId).doesNotHaveDuplicates();
+    }
+
+    // 무작위 조건 x 페이지로 단일 DB 기대값과 비교
+    @Test
+    public void sameResultsAsSingleDatabase() {
+        Random random = new Random(20240101L);
+        String[] usernames = {null, "member1", "MEMBER3", "member30", "nobody"};
+        String[] teamNames = {null, "teamA", "teamC", "teamE", "teamZ"};
+        for (int i = 0; i < 100; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername(usernames[random.nextInt(usernames.length)]);
+            condition.setUsernameIgnoreCase(random.nextBoolean());
+            condition.setTeamName(teamNames[random.nextInt(teamNames.length)]);
+            condition.setAgeGoe(random.nextBoolean() ? random.nextInt(60) : null);
+            condition.setAgeLoe(random.nextBoolean() ? random.nextInt(60) : null);
+            List<MemberTeamDto> expected = expected(condition);
+            PageRequest pageable = PageRequest.of(random.nextInt(4), 1 + random.nextInt(30));
+            List<MemberTeamDto> expectedPage = expected.stream()
+                    .skip(pageable.getOffset()).limit(pageable.getPageSize()).toList();
+
+            Assertions.assertThat(search.search(condition)).as("%s", condition).isEqualTo(expected);
+            for (Page<MemberTeamDto> page : List.of(
+                    search.searchPageSimple(condition, pageable),
+                    search.searchPageComplex2(condition, pageable),
+                    search.searchPageWindow(condition, pageable))) {
+                Assertions.assertThat(page.getContent()).as("%s %s", condition, pageable).isEqualTo(expectedPage);
+                Assertions.assertThat(page.getTotalElements()).as("%s %s", condition, pageable).isEqualTo(expected.size());
+            }
+        }
+    }
+
+    @Test
+    public void keysetPagesCoverEverythingOnce() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        List<MemberTeamDto> collected = new ArrayList<>();
+        Long after = null;
+        while (true) {
+            List<MemberTeamDto> page = search.searchAfter(condition, after, 17);
+            if (page.isEmpty()) {
+                break;
+            }
+            collected.addAll(page);
+            after = page.get(page.size() - 1).getMemberId();
+        }
+        Assertions.assertThat(collected).isEqualTo(expected(condition));
+    }
+
+    // teamName이 있으면 그 팀이 있는 샤드에만 조회 (팀 이름 -> id 조회는 0번 샤드)
+    @Test
+    public void teamNameQueriesOwningShardOnly() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        int owner = shards.shardOf(all.stream()
+                .filter(row -> "teamB".equals(row.getTeamName())).findFirst().orElseThrow().getTeamId());
+        double[] before = queryCounts();
+
+        Assertions.assertThat(search.search(condition)).isEqualTo(expected(condition));
+
+        double[] after = queryCounts();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            double expectedQueries = (shard == owner ? 1 : 0) + (shard == 0 ? 1 : 0);
+            Assertions.assertThat(after[shard] - before[shard]).as("shard %d", shard).isEqualTo(expectedQueries);
+        }
+    }
+
+    // 샤드는 실험용 별도 데이터. 기본 리포지토리는 계속 기본 DB(여기서는 비어 있음)를 본다
+    @Test
+    public void repositoryStaysOnPrimary() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(30);
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+
+        Assertions.assertThat(page.getTotalElements()).isZero();
+    }
+
+    @Test
+    public void includeArchivedRejected() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setIncludeArchived(true);
+
+        Assertions.assertThatThrownBy(() -> search.search(condition))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+    }
+
+    // 요청 스레드의 마감이 샤드 작업 스레드까지 넘어간다
+    @Test
+    public void deadlineReachesShardThreads() throws InterruptedException {
+        QueryDeadline.start(1);
+        try {
+            Thread.sleep(5);
+            Assertions.assertThatThrownBy(() -> search.search(new MemberSearchCondition()))
+                    .isInstanceOf(QueryTimeoutException.class);
+        } finally {
+            QueryDeadline.clear();
+        }
+        Assertions.assertThat(search.search(new MemberSearchCondition())).hasSize(all.size());
+    }
+
+    private List<MemberTeamDto> expected(MemberSearchCondition condition) {
+        return all.stream().filter(row -> matches(condition, row)).toList();
+    }
+
+    private static boolean matches(MemberSearchCondition condition, MemberTeamDto row) {
+        if (condition.getUsername() != null && !(condition.isUsernameIgnoreCase()
+                ? Usernames.normalize(condition.getUsername()).equals(Usernames.normalize(row.getUsername()))
+                : condition.getUsername().equals(row.getUsername()))) {
+            return false;
+        }
+        if (condition.getTeamName() != null && !Objects.equals(condition.getTeamName(), row.getTeamName())) {
+            return false;
+        }
+        if (condition.getAgeGoe() != null && row.getAge() < condition.getAgeGoe()) {
+            return false;
+        }
+        return condition.getAgeLoe() == null || row.getAge() <= condition.getAgeLoe();
+    }
+
+    private double[] queryCounts() {
+        double[] counts = new double[shards.size()];
+        for (int shard = 0; shard < counts.length; shard++) {
+            counts[shard] = meterRegistry.get("member.shard.queries").tag("shard", String.valueOf(shard)).counter().count();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,141 @@
+package study.querydsl.snapshot;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.change.DataVersion;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+// import/export는 각자 커밋하므로 다른 테스트와 DB를 나눠 씀
+@SpringBootTest(properties = {
+        "querydsl.snapshot.batch-size=7",
+        "spring.datasource.url=jdbc:h2:mem:snapshot"})
+class MemberSnapshotServiceTest {
+    @Autowired
+    MemberSnapshotService memberSnapshotService;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    DataVersion dataVersion;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 40; i++) {
+                em.persist(new Member(i == 5 ? null : "Member" + i, i, i % 4 == 3 ? null : i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void exportWritesEveryRow() throws IOException {
+        Path file = dir.resolve("members.snap");
+
+        MemberSnapshotService.Summary summary = memberSnapshotService.exportTo(file);
+
+        Assertions.assertThat(summary.teams()).isEqualTo(2);
+        Assertions.assertThat(summary.members()).isEqualTo(40);
+        List<Member> members = tx.execute(status ->
+                em.createQuery("select m from Member m left join fetch m.team order by m.id", Member.class).getResultList());
+        try (MemberSnapshot snapshot = MemberSnapshot.open(file)) {
+            Assertions.assertThat(snapshot.memberCount()).isEqualTo(members.size());
+            for (int row = 0; row < members.size(); row++) {
+                Member member = members.get(row);
+                Assertions.assertThat(snapshot.memberId(row)).isEqualTo(member.getId());
+                Assertions.assertThat(snapshot.username(row)).isEqualTo(member.getUsername());
+                Assertions.assertThat(snapshot.age(row)).isEqualTo(member.getAge());
+                Assertions.assertThat(snapshot.teamName(row))
+                        .isEqualTo(member.getTeam() != null ? member.getTeam().getName() : null);
+            }
+        }
+    }
+
+    // 새 id로 추가. 관계/정규화 컬럼/버전이 맞고, 뒤이어 JPA로 저장해도 id가 겹치지 않음
+    @Test
+    public void importAddsRowsWithFreshIds() {
+        Path file = dir.resolve("members.snap");
+        memberSnapshotService.exportTo(file);
+        long versionBefore = dataVersion.current();
+
+        MemberSnapshotService.Summary summary = memberSnapshotService.importFrom(file);
+        Long persistedId = tx.execute(status -> {
+            Member member = new Member("after", 1);
+            em.persist(member);
+            return member.getId();
+        });
+
+        Assertions.assertThat(summary.members()).isEqualTo(40);
+        Assertions.assertThat(dataVersion.current()).isGreaterThan(versionBefore);
+        tx.executeWithoutResult(status -> {
+            List<Object[]> rows = em.createQuery(
+                            "select m.username, m.usernameNormalized, m.age, t.name, m.changeVersion"
+                                    + " from Member m left join m.team t where m.username <> 'after' or m.username is null",
+                            Object[].class)
+                    .getResultList();
+            Assertions.assertThat(rows).hasSize(80);
+            Assertions.assertThat(rows).filteredOn(row -> "Member6".equals(row[0]))
+                    .hasSize(2)
+                    .allSatisfy(row -> {
+                        Assertions.assertThat(row[1]).isEqualTo("member6");
+                        Assertions.assertThat(row[3]).isEqualTo("teamA");
+                        Assertions.assertThat((Long) row[4]).isPositive();
+                    });
+            Assertions.assertThat(rows).filteredOn(row -> row[0] == null).hasSize(2);
+            Assertions.assertThat(em.createQuery("select count(t) from Team t where t.name = 'teamB'", Long.class)
+                    .getSingleResult()).isEqualTo(2);
+            Assertions.assertThat(em.createQuery("select count(m) from Member m", Long.class)
+                    .getSingleResult()).isEqualTo(81);
+            Assertions.assertThat(persistedId).isNotNull();
+        });
+    }
+
+    // 두 번 연속 import해도 예약 구간이 겹치지 않음
+    @Test
+    public void importTwice() {
+        Path file = dir.resolve("members.snap");
+        memberSnapshotService.exportTo(file);
+
+        memberSnapshotService.importFrom(file);
+        memberSnapshotService.importFrom(file);
+
+        Long members = tx.execute(status -> em.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+        Long teams = tx.execute(status -> em.createQuery("select count(t) from Team t", Long.class).getSingleResult());
+        Assertions.assertThat(members).isEqualTo(120);
+        Assertions.assertThat(teams).isEqualTo(6);
+    }
+}
@@ -0,0 +1,123 @@
+package study.querydsl.snapshot;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class MemberSnapshotTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void roundTrip() throws IOException {
+        MemberSnapshotWriter writer = new MemberSnapshotWriter();
+        writer.addTeam(3, "teamA");
+        writer.addTeam(7, null);
+        writer.addTeam(12, "팀C");
+        writer.addMember(100, "member1", 10, 3L);
+        writer.addMember(101, "Émile", 20, 12L);
+        writer.addMember(102, null, 30, null);
+        writer.addMember(103, "", 40, 7L);
+        Path file = dir.resolve("members.snap");
+        long bytes = writer.writeTo(file);
+
+        Assertions.assertThat(Files.size(file)).isEqualTo(bytes);
+        try (MemberSnapshot snapshot = MemberSnapshot.open(file)) {
+            Assertions.assertThat(snapshot.memberCount()).isEqualTo(4);
+            Assertions.assertThat(snapshot.teamCount()).isEqualTo(3);
+
+            Assertions.assertThat(snapshot.memberId(1)).isEqualTo(101);
+            Assertions.assertThat(snapshot.age(1)).isEqualTo(20);
+            Assertions.assertThat(snapshot.username(1)).isEqualTo("Émile");
+            Assertions.assertThat(snapshot.teamName(1)).isEqualTo("팀C");
+
+            Assertions.assertThat(snapshot.username(2)).isNull();
+            Assertions.assertThat(snapshot.usernameBytes(2)).isNull();
+            Assertions.assertThat(snapshot.teamId(2)).isEqualTo(MemberSnapshot.NO_TEAM);
+            Assertions.assertThat(snapshot.teamName(2)).isNull();
+
+            Assertions.assertThat(snapshot.username(3)).isEmpty();
+            Assertions.assertThat(snapshot.teamIndexOf(7)).isEqualTo(1);
+            Assertions.assertThat(snapshot.teamNameAt(1)).isNull();
+            Assertions.assertThat(snapshot.teamIndexOf(8)).isEqualTo(-1);
+
+            ByteBuffer username = snapshot.usernameBytes(0);
+            Assertions.assertThat(StandardCharsets.UTF_8.decode(username).toString()).isEqualTo("member1");
+        }
+    }
+
+    // 열 뷰는 매핑된 파일 위의 읽기 전용 버퍼 (힙 배열로 복사하지 않음)
+    @Test
+    public void columnsAreMappedViews() throws IOException {
+        MemberSnapshotWriter writer = new MemberSnapshotWriter();
+        writer.addTeam(1, "team0");
+        writer.addTeam(2, "team1");
+        for (int i = 0; i < 5000; i++) {
+            writer.addMember(i, "member" + i, i % 100, (long) (1 + i % 2));
+        }
+        Path file = dir.resolve("members.snap");
+        writer.writeTo(file);
+
+        try (MemberSnapshot snapshot = MemberSnapshot.open(file)) {
+            IntBuffer ages = snapshot.ages();
+            LongBuffer teamIds = snapshot.teamIds();
+            Assertions.assertThat(ages.isDirect()).isTrue();
+            Assertions.assertThat(ages.isReadOnly()).isTrue();
+            Assertions.assertThat(ages.hasArray()).isFalse();
+
+            long team1Ages = 0;
+            while (ages.hasRemaining()) {
+                int age = ages.get();
+                if (teamIds.get() == 2) {
+                    team1Ages += age;
+                }
+            }
+            long expected = 0;
+            for (int i = 1; i < 5000; i += 2) {
+                expected += i % 100;
+            }
+            Assertions.assertThat(team1Ages).isEqualTo(expected);
+            Assertions.assertThat(snapshot.memberIds().get(4999)).isEqualTo(4999);
+            Assertions.assertThat(snapshot.username(4321)).isEqualTo("member4321");
+        }
+    }
+
+    @Test
+    public void emptySnapshot() throws IOException {
+        Path file = dir.resolve("empty.snap");
+        new MemberSnapshotWriter().writeTo(file);
+
+        try (MemberSnapshot snapshot = MemberSnapshot.open(file)) {
+            Assertions.assertThat(snapshot.memberCount()).isZero();
+            Assertions.assertThat(snapshot.teamCount()).isZero();
+            Assertions.assertThat(snapshot.ages().remaining()).isZero();
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("other.snap");
+        Files.write(file, new byte[128]);
+
+        Assertions.assertThatThrownBy(() -> MemberSnapshot.open(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not a member snapshot");
+    }
+
+    @Test
+    public void teamsMustBeInIdOrder() {
+        MemberSnapshotWriter writer = new MemberSnapshotWriter();
+        writer.addTeam(5, "teamA");
+
+        Assertions.assertThatThrownBy(() -> writer.addTeam(5, "teamB"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
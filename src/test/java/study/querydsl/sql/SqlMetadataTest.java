@@ -0,0 +1,75 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.RelationalPathBase;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// SMember/STeam은 손으로 맞추므로 엔티티(ddl-auto)가 만든 실제 스키마와 어긋나지 않는지 확인
+@SpringBootTest
+class SqlMetadataTest {
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    public void memberMatchesSchema() throws SQLException {
+        assertMatchesSchema(SMember.member);
+    }
+
+    @Test
+    public void teamMatchesSchema() throws SQLException {
+        assertMatchesSchema(STeam.team);
+    }
+
+    // 스키마, 컬럼(이름/순서/타입/크기/null 허용), 기본 키
+    private void assertMatchesSchema(RelationalPathBase<?> path) throws SQLException {
+        List<String> declared = new ArrayList<>();
+        for (Path<?> column : path.getColumns()) {
+            declared.add(describe(path.getMetadata(column)));
+        }
+        List<String> declaredKey = path.getPrimaryKey().getLocalColumns().stream()
+                .map(column -> path.getMetadata(column).getName())
+                .toList();
+
+        List<String> actual = new ArrayList<>();
+        List<String> actualKey = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = path.getTableName().toUpperCase();
+            try (ResultSet columns = metaData.getColumns(null, path.getSchemaName(), table, null)) {
+                while (columns.next()) {
+                    ColumnMetadata column = ColumnMetadata.named(columns.getString("COLUMN_NAME").toLowerCase())
+                            .withIndex(columns.getInt("ORDINAL_POSITION"))
+                            .ofType(columns.getInt("DATA_TYPE"))
+                            .withSize(columns.getInt("COLUMN_SIZE"));
+                    actual.add(describe(columns.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls ? column.notNull() : column));
+                }
+            }
+            try (ResultSet keys = metaData.getPrimaryKeys(null, path.getSchemaName(), table)) {
+                while (keys.next()) {
+                    actualKey.add(keys.getString("COLUMN_NAME").toLowerCase());
+                }
+            }
+        }
+
+        Assertions.assertThat(actual).as("columns of %s.%s", path.getSchemaName(), path.getTableName())
+                .containsExactlyInAnyOrderElementsOf(declared);
+        Assertions.assertThat(actualKey).containsExactlyInAnyOrderElementsOf(declaredKey);
+    }
+
+    private static String describe(ColumnMetadata column) {
+        return column.getName() + " #" + column.getIndex() + " type=" + column.getJdbcType()
+                + " size=" + column.getSize() + (column.isNullable() ? " null" : " not null");
+    }
+}
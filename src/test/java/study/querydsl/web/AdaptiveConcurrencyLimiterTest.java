@@ -0,0 +1,87 @@
+package study.querydsl.web;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void rejectWhenSaturated() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1, 10);
+
+        Assertions.assertThat(limiter.tryAcquire()).isTrue();
+        Assertions.assertThat(limiter.tryAcquire()).isTrue();
+        // 잠깐 기다려도 자리가 안 나면 거절
+        Assertions.assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5), false);
+        Assertions.assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void backOffOnSlowResponses() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 0, 0);
+
+        limiter.tryAcquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5), false);
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(50), false);
+        }
+        Assertions.assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    public void growWhenFastAndSaturated() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 100, 0, 0);
+
+        for (int i = 0; i < 50; i++) {
+            int limit = limiter.getLimit();
+            for (int j = 0; j < limit; j++) {
+                limiter.tryAcquire();
+            }
+            for (int j = 0; j < limit; j++) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(5), false);
+            }
+        }
+        Assertions.assertThat(limiter.getLimit()).isGreaterThan(2);
+    }
+
+    // DB를 안 탄 요청(304, 프리페치 적중)은 자리만 돌려주고 기준 지연에 안 들어간다
+    @Test
+    public void unsampledReleaseKeepsBaseline() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 0, 0);
+
+        for (int i = 0; i < 300; i++) {
+            limiter.tryAcquire();
+            limiter.release(TimeUnit.MICROSECONDS.toNanos(20), false, false);
+        }
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(5), false, true);
+        }
+        Assertions.assertThat(limiter.getBaselineRttMicros()).isEqualTo(5000);
+        Assertions.assertThat(limiter.getLimit()).isEqualTo(10);
+        Assertions.assertThat(limiter.getInFlight()).isZero();
+    }
+
+    // 기준은 최근 창의 하위 10% - 몇 건의 아주 빠른 응답에 끌려가지 않고, 지연이 바뀌면 다음 창에서 따라간다
+    @Test
+    public void baselineIsWindowedPercentile() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 0, 0);
+
+        for (int i = 0; i < 128; i++) {
+            limiter.tryAcquire();
+            limiter.release(TimeUnit.MICROSECONDS.toNanos(i % 40 == 0 ? 10 : 1000), false);
+        }
+        Assertions.assertThat(limiter.getBaselineRttMicros()).isEqualTo(1000);
+
+        for (int i = 0; i < 128; i++) {
+            limiter.tryAcquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        }
+        Assertions.assertThat(limiter.getBaselineRttMicros()).isEqualTo(10_000);
+    }
+}
@@ -0,0 +1,149 @@
+package study.querydsl.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import study.querydsl.change.DataVersion;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.query.QueryDeadline;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+class MemberPagePrefetcherTest {
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    DataVersion dataVersion = new DataVersion();
+    AtomicInteger loads = new AtomicInteger();
+
+    // 전체 100건짜리 가짜 조회
+    BiFunction<MemberSearchCondition, Pageable, Page<MemberTeamDto>> loader = (condition, pageable) -> {
+        loads.incrementAndGet();
+        MemberTeamDto row = new MemberTeamDto((long) pageable.getPageNumber(), "member", 10, null, null);
+        return new PageImpl<>(List.of(row), pageable, 100);
+    };
+
+    @Test
+    public void nextPageServedFromPrefetch() {
+        MemberPagePrefetcher prefetcher = new MemberPagePrefetcher(dataVersion, meterRegistry, true, 5000, 10);
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        prefetcher.page("v2", condition, PageRequest.of(0, 10), loader);
+        Page<MemberTeamDto> second = prefetcher.page("v2", condition, PageRequest.of(1, 10), loader);
+
+        Assertions.assertThat(second.getNumber()).isEqualTo(1);
+        Assertions.assertThat(second.getContent().get(0).getMemberId()).isEqualTo(1L);
+        Assertions.assertThat(count("hit")).isEqualTo(1);
+        Assertions.assertThat(count("miss")).isEqualTo(1);
+    }
+
+    @Test
+    public void writeInvalidatesPrefetch() {
+        MemberPagePrefetcher prefetcher = new MemberPagePrefetcher(dataVersion, meterRegistry, true, 5000, 1);
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        prefetcher.page("v2", condition, PageRequest.of(0, 10), loader);
+        dataVersion.touch();
+        prefetcher.page("v2", condition, PageRequest.of(1, 10), loader);
+
+        Assertions.assertThat(count("hit")).isZero();
+        Assertions.assertThat(count("miss")).isEqualTo(2);
+        // 최대 1개라 새 prefetch가 들어오면서 예전 것은 버려짐
+        Assertions.assertThat(count("wasted")).isEqualTo(1);
+    }
+
+    @Test
+    public void lastPageAndDisabled() {
+        MemberPagePrefetcher disabled = new MemberPagePrefetcher(dataVersion, meterRegistry, false, 5000, 10);
+        disabled.page("v2", new MemberSearchCondition(), PageRequest.of(0, 10), loader);
+        Assertions.assertThat(count("scheduled")).isZero();
+
+        MemberPagePrefetcher prefetcher = new MemberPagePrefetcher(dataVersion, meterRegistry, true, 5000, 10);
+        prefetcher.page("v2", new MemberSearchCondition(), PageRequest.of(9, 10), loader);
+        Assertions.assertThat(count("scheduled")).isZero();
+    }
+
+    // 아직 조회 중인 prefetch는 요청의 남은 마감까지만 기다리고 직접 조회. prefetch 스레드도 같은 마감 시각.
+    @Test
+    public void slowPrefetchBoundedByDeadline() throws InterruptedException {
+        MemberPagePrefetcher prefetcher = new MemberPagePrefetcher(dataVersion, meterRegistry, true, 5000, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Long> prefetchRemaining = new AtomicReference<>();
+        BiFunction<MemberSearchCondition, Pageable, Page<MemberTeamDto>> slow = (condition, pageable) -> {
+            if (pageable.getPageNumber() == 1 && prefetchRemaining.get() == null) {
+                QueryDeadline deadline = QueryDeadline.current();
+                prefetchRemaining.set(deadline != null ? deadline.remainingMillis() : -1);
+                await(release);
+            }
+            return loader.apply(condition, pageable);
+        };
+        MemberSearchCondition condition = new MemberSearchCondition();
+        try {
+            QueryDeadline.start(10_000);
+            prefetcher.page("v2", condition, PageRequest.of(0, 10), slow);
+            QueryDeadline.start(50);
+            long start = System.nanoTime();
+            Page<MemberTeamDto> second = prefetcher.page("v2", condition, PageRequest.of(1, 10), slow);
+
+            Assertions.assertThat(second.getNumber()).isEqualTo(1);
+            Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+            Assertions.assertThat(count("hit")).isZero();
+            Assertions.assertThat(prefetchRemaining.get()).isBetween(1L, 10_000L);
+        } finally {
+            release.countDown();
+            QueryDeadline.clear();
+            prefetcher.shutdown();
+        }
+    }
+
+    // 엔드포인트 리미터에 바로 자리가 없으면 prefetch하지 않음. 있으면 자리를 잡았다가 끝나면 돌려줌.
+    @Test
+    public void prefetchTakesLimiterPermit() {
+        MemberPagePrefetcher prefetcher = new MemberPagePrefetcher(dataVersion, meterRegistry, true, 5000, 10);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0, 0);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(AdmissionControlInterceptor.class.getName() + ".limiter", limiter);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            Assertions.assertThat(limiter.tryAcquireNow()).isTrue();
+            prefetcher.page("v2", new MemberSearchCondition(), PageRequest.of(0, 10), loader);
+            Assertions.assertThat(count("scheduled")).isZero();
+
+            limiter.release(0, false, false);
+            prefetcher.page("v2", new MemberSearchCondition(), PageRequest.of(0, 10), loader);
+            Assertions.assertThat(count("scheduled")).isEqualTo(1);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (limiter.getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.onSpinWait();
+            }
+            Assertions.assertThat(limiter.getInFlight()).isZero();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            prefetcher.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("member.prefetch").tag("result", result).counter().count();
+    }
+}
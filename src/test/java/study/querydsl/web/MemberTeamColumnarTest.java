@@ -0,0 +1,155 @@
+package study.querydsl.web;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 검색 엔드포인트는 작업 스레드에서 조회하므로 데이터를 커밋하고 DB를 따로 씀
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:member-team-columnar")
+@AutoConfigureMockMvc
+class MemberTeamColumnarTest {
+    static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void roundTripPage() throws IOException {
+        List<MemberTeamDto> rows = List.of(
+                new MemberTeamDto(5L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(3L, "회원2", 0, 2L, "teamB"),   // id 감소, 비ASCII
+                new MemberTeamDto(9L, "member3", 30, 1L, "teamA"),
+                new MemberTeamDto(10L, null, -1, null, null),
+                new MemberTeamDto(11L, "", 40, 3L, null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberTeamColumnar.writePage(new PageImpl<>(rows, PageRequest.of(2, 5), 27), out);
+
+        MemberTeamColumnar.Decoded decoded = MemberTeamColumnar.read(new ByteArrayInputStream(out.toByteArray()));
+
+        Assertions.assertThat(decoded.kind()).isEqualTo(MemberTeamColumnar.PAGE);
+        Assertions.assertThat(decoded.page()).isEqualTo(2);
+        Assertions.assertThat(decoded.size()).isEqualTo(5);
+        Assertions.assertThat(decoded.totalElements()).isEqualTo(27);
+        Assertions.assertThat(decoded.blocks()).containsExactly(rows);
+    }
+
+    @Test
+    public void teamNameWrittenOncePerBlock() throws IOException {
+        List<MemberTeamDto> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(new MemberTeamDto((long) i, "m", 1, 1L, "a-rather-long-team-name"));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberTeamColumnar.writeList(rows, out);
+
+        String body = out.toString(StandardCharsets.ISO_8859_1);
+        Assertions.assertThat(body.split("a-rather-long-team-name", -1)).hasSize(2);
+        Assertions.assertThat(MemberTeamColumnar.read(new ByteArrayInputStream(out.toByteArray())).blocks())
+                .containsExactly(rows);
+    }
+
+    @Test
+    public void contentNegotiation() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, null));
+        });
+
+        // 기본은 그대로 JSON
+        search(get("/v2/members"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        MvcResult cbor = search(get("/v2/members").accept(CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CBOR))
+                .andReturn();
+        MvcResult json = search(get("/v2/members").accept(MediaType.APPLICATION_JSON)).andReturn();
+        Assertions.assertThat(cbor.getResponse().getContentAsByteArray().length)
+                .isLessThan(json.getResponse().getContentAsByteArray().length);
+        // 형식마다 ETag가 달라야 캐시가 섞이지 않는다
+        Assertions.assertThat(cbor.getResponse().getHeader("ETag"))
+                .isNotEqualTo(json.getResponse().getHeader("ETag"));
+
+        MvcResult columnar = search(get("/v2/members").accept(MemberTeamColumnar.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberTeamColumnar.MEDIA_TYPE))
+                .andReturn();
+        MemberTeamColumnar.Decoded page = MemberTeamColumnar.read(
+                new ByteArrayInputStream(columnar.getResponse().getContentAsByteArray()));
+        Assertions.assertThat(page.kind()).isEqualTo(MemberTeamColumnar.PAGE);
+        Assertions.assertThat(page.totalElements()).isEqualTo(2);
+        Assertions.assertThat(page.blocks().get(0))
+                .extracting(MemberTeamDto::getUsername, MemberTeamDto::getTeamName)
+                .containsExactlyInAnyOrder(
+                        Assertions.tuple("member1", "teamA"),
+                        Assertions.tuple("member2", null));
+
+        MvcResult batch = search(post("/v1/members/search-batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MemberTeamColumnar.MEDIA_TYPE)
+                        .content("[{\"teamName\":\"teamA\"},{\"username\":\"nobody\"}]"))
+                .andExpect(status().isOk())
+                .andReturn();
+        MemberTeamColumnar.Decoded blocks = MemberTeamColumnar.read(
+                new ByteArrayInputStream(batch.getResponse().getContentAsByteArray()));
+        Assertions.assertThat(blocks.kind()).isEqualTo(MemberTeamColumnar.BATCH);
+        Assertions.assertThat(blocks.blocks()).hasSize(2);
+        Assertions.assertThat(blocks.blocks().get(0)).extracting(MemberTeamDto::getUsername).containsExactly("member1");
+        Assertions.assertThat(blocks.blocks().get(1)).isEmpty();
+    }
+
+    // 검색 엔드포인트는 비동기(Callable) - 결과는 async dispatch에서 쓴다
+    private ResultActions search(RequestBuilder requestBuilder) throws Exception {
+        MvcResult started = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+}
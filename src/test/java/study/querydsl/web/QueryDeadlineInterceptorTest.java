@@ -0,0 +1,222 @@
+package study.querydsl.web;
+
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.assertj.core.api.Assertions;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+import study.querydsl.controller.MemberController;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.query.QueryDeadline;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+
+// 느린 쿼리용 함수(test_sleep)와 커밋된 데이터가 필요해서 DB를 따로 씀
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:query-deadline-interceptor")
+class QueryDeadlineInterceptorTest {
+    @Autowired
+    WebApplicationContext context;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberController memberController;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            em.createNativeQuery("create alias if not exists test_sleep for '" + SlowFunction.class.getName() + ".sleep'").executeUpdate();
+            if (queryFactory.selectFrom(member).fetch().isEmpty()) {
+                for (int i = 0; i < 2000; i++) {
+                    em.persist(new Member("member" + i, i));
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    public void clear() {
+        QueryDeadline.clear();
+    }
+
+    // 비동기로 풀린 요청은 클라이언트가 끊으면(AsyncListener.onError) 마감 전이라도 돌고 있는 쿼리를 취소
+    @Test
+    public void disconnectCancelsRunningQuery() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryDeadlineInterceptor interceptor = new QueryDeadlineInterceptor(60_000, registry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v2/members");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        // @QueryTimeout이 없는 엔드포인트 - 마감(60초)보다 먼저 끊긴 경우만 보려고
+        HandlerMethod handler = new HandlerMethod(memberController, MemberController.class.getMethod("searchMemberV2",
+                MemberSearchCondition.class, Pageable.class, WebRequest.class));
+
+        interceptor.preHandle(request, response, handler);
+        QueryDeadline deadline = QueryDeadline.current();
+        // 행마다 5ms - 2000건이면 10초 넘게. H2는 128행마다 취소 여부를 확인
+        SlowFunction.started = new CountDownLatch(1);
+        CompletableFuture<List<Member>> slow = CompletableFuture.supplyAsync(QueryDeadline.inheriting(() -> tx.execute(status ->
+                queryFactory.selectFrom(member)
+                        .where(Expressions.booleanTemplate("function('test_sleep', 5) is null"))
+                        .fetch())));
+        request.startAsync();
+        interceptor.afterConcurrentHandlingStarted(request, response, handler);
+        Assertions.assertThat(QueryDeadline.current()).isNull();
+        // 실행 전에 취소하면 H2가 실행 시작 때 취소 표시를 지우므로 실행 중인 걸 확인하고
+        Assertions.assertThat(SlowFunction.started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        long start = System.nanoTime();
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onError(new AsyncEvent(asyncContext, new IOException("client disconnected")));
+        }
+
+        Assertions.assertThatThrownBy(() -> slow.get(8, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        Assertions.assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(2));
+        Assertions.assertThat(deadline.isCancelled()).isTrue();
+        Assertions.assertThat(registry.get("member.query.cancellations").tag("reason", "disconnect").counter().count())
+                .isEqualTo(1);
+        Assertions.assertThat(registry.get("member.query.cancellations").tag("reason", "deadline").counter().count())
+                .isZero();
+    }
+
+    // 엔드포인트째로: /v2/members 조회가 작업 스레드에서 도는 중에 클라이언트가 끊기면 그 쿼리가 바로 취소된다
+    @Test
+    public void disconnectCancelsRunningEndpointQuery() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        double disconnects = cancellations("disconnect");
+        double deadlines = cancellations("deadline");
+        SlowFunction.started = new CountDownLatch(1);
+        SlowSelect.armed = true;
+        try {
+            MvcResult result = mockMvc.perform(get("/v2/members"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            Assertions.assertThat(SlowFunction.started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            long start = System.nanoTime();
+            MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+            for (AsyncListener listener : asyncContext.getListeners()) {
+                listener.onError(new AsyncEvent(asyncContext, new IOException("client disconnected")));
+            }
+
+            while (runningSlowStatements() > 0 && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(8)) {
+                Thread.sleep(20);
+            }
+            Assertions.assertThat(runningSlowStatements()).isZero();
+            Assertions.assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(2));
+            Assertions.assertThat(cancellations("disconnect") - disconnects).isEqualTo(1);
+            Assertions.assertThat(cancellations("deadline") - deadlines).isZero();
+            // 끊긴 요청은 다시 디스패치되지 않고 컨테이너가 끝낸다 (onComplete에서 마감 watchdog 정리)
+            asyncContext.complete();
+        } finally {
+            SlowSelect.armed = false;
+        }
+    }
+
+    // /v1/members는 비동기. 결과를 쓰러 다시 들어올 때 입장 제어 자리를 또 받지 않음
+    @Test
+    public void asyncSearchHoldsOnePermit() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        MvcResult result = mockMvc.perform(get("/v1/members").param("username", "member1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        Assertions.assertThat(meterRegistry.get("member.limiter.inflight").tag("endpoint", "searchMemberV1").gauge().value())
+                .isZero();
+    }
+
+    // 다른 세션에서 아직 실행 중인 test_sleep 쿼리 수
+    private long runningSlowStatements() {
+        return tx.execute(status -> ((Number) em.createNativeQuery("select count(*) from information_schema.sessions"
+                + " where session_id <> session_id() and executing_statement like '%test_sleep%'").getSingleResult()).longValue());
+    }
+
+    private double cancellations(String reason) {
+        return meterRegistry.get("member.query.cancellations").tag("reason", reason).counter().count();
+    }
+
+    // H2 함수 test_sleep. 첫 호출로 쿼리가 실행 중인 걸 알린다.
+    // 인터럽트로는 멈추지 않는다 - 실제 DB 드라이버처럼 JDBC cancel로만 (스프링은 끊기면 Callable 스레드를 인터럽트함)
+    public static class SlowFunction {
+        static volatile CountDownLatch started = new CountDownLatch(1);
+
+        public static Integer sleep(int millis) {
+            started.countDown();
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+            for (long left = end - System.nanoTime(); left > 0; left = end - System.nanoTime()) {
+                LockSupport.parkNanos(left);
+            }
+            return null;
+        }
+    }
+
+    // armed면 다음 member 조회 한 번을 행마다 test_sleep을 부르는 느린 쿼리로 바꾼다 (엔드포인트 조회를 붙잡으려고)
+    @TestConfiguration
+    static class SlowSelect {
+        static volatile boolean armed;
+
+        @Bean
+        StatementInspector slowSelectInspector() {
+            return sql -> {
+                if (!armed || !sql.contains(" from member m1_0")) {
+                    return sql;
+                }
+                armed = false;
+                return sql.replace(" from member m1_0", " from (select * from member where test_sleep(5) is null) m1_0");
+            };
+        }
+    }
+}